@@ -43,6 +43,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.function.Consumer;
 
 /** @author Brian Pfretzschner &lt;brian.pfretzschner@gmail.com&gt; */
 public class NodejsCallGraphBuilderUtil extends JSCallGraphUtil {
@@ -54,6 +55,18 @@ public class NodejsCallGraphBuilderUtil extends JSCallGraphUtil {
 
   public static PropagationCallGraphBuilder makeCGBuilder(File workingDir, File mainFile)
       throws IOException, IllegalArgumentException, WalaException {
+    return makeCGBuilder(workingDir, mainFile, selector -> {});
+  }
+
+  /**
+   * @param requireTargetSelectorSink is given the selector that resolves the require() calls for
+   *     the new builder, for instance to read its statistics once the call graph is built
+   */
+  public static PropagationCallGraphBuilder makeCGBuilder(
+      File workingDir,
+      File mainFile,
+      Consumer<NodejsRequireTargetSelector> requireTargetSelectorSink)
+      throws IOException, IllegalArgumentException, WalaException {
     JavaScriptTranslatorFactory translatorFactory = new CAstRhinoTranslatorFactory();
     JSCallGraphUtil.setTranslatorFactory(translatorFactory);
 
@@ -109,6 +122,7 @@ public class NodejsCallGraphBuilderUtil extends JSCallGraphUtil {
     // CallGraphBuilder
     // and the RequireTargetSelector also needs the CallGraphBuilder instance.
     requireTargetSelector.setCallGraphBuilder(builder);
+    requireTargetSelectorSink.accept(requireTargetSelector);
 
     ContextSelector contextSelector =
         new PropertyNameContextSelector(cache, 2, builder.getContextSelector());
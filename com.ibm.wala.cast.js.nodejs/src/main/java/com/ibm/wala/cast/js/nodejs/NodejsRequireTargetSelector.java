@@ -34,6 +34,7 @@ import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.intset.OrdinalSet;
 import java.io.File;
 import java.io.IOException;
@@ -60,6 +61,16 @@ public class NodejsRequireTargetSelector implements MethodTargetSelector {
 
   private final HashMap<String, IMethod> previouslyRequired = HashMapFactory.make();
 
+  /** resolved modules, by requiring directory and required name */
+  private final HashMap<Pair<File, String>, SourceFileModule> resolved = HashMapFactory.make();
+
+  private int resolutions = 0;
+
+  private int resolutionCacheHits = 0;
+
+  /** the number of JavaScript and JSON files below rootDir, once counted */
+  private int availableModules = -1;
+
   public NodejsRequireTargetSelector(File rootDir, MethodTargetSelector base) {
     this.rootDir = rootDir;
     this.base = base;
@@ -100,7 +111,7 @@ public class NodejsRequireTargetSelector implements MethodTargetSelector {
       for (String target : targets) {
         try {
           File workingDir = new File(receiver.getSourceFileName()).getParentFile();
-          SourceModule sourceModule = resolve(rootDir, workingDir, target);
+          SourceModule sourceModule = resolveCached(workingDir, target);
           if (previouslyRequired.containsKey(sourceModule.getClassName())) {
             return previouslyRequired.get(sourceModule.getClassName());
           }
@@ -133,6 +144,57 @@ public class NodejsRequireTargetSelector implements MethodTargetSelector {
     return calledMethod;
   }
 
+  /**
+   * Resolving a module walks up the directory tree looking for node_modules folders, and reads
+   * package.json files on the way, so each required name is resolved only once per requiring
+   * directory.
+   */
+  private SourceFileModule resolveCached(File workingDir, String target) throws IOException {
+    resolutions++;
+    Pair<File, String> key = Pair.make(workingDir, target);
+    SourceFileModule module = resolved.get(key);
+    if (module != null) {
+      resolutionCacheHits++;
+    } else {
+      module = resolve(rootDir, workingDir, target);
+      resolved.put(key, module);
+    }
+    return module;
+  }
+
+  /** @return how many times a require() target has been resolved */
+  public int getNumberOfResolutions() {
+    return resolutions;
+  }
+
+  /** @return how many resolutions of require() targets were answered from the cache */
+  public int getNumberOfResolutionCacheHits() {
+    return resolutionCacheHits;
+  }
+
+  /**
+   * Modules are only translated and added to the class hierarchy once a require() call reachable in
+   * the call graph names them.
+   *
+   * @return the number of modules loaded this way so far
+   */
+  public int getNumberOfLoadedModules() {
+    return previouslyRequired.size();
+  }
+
+  /**
+   * The files are counted by listing the whole tree below the root directory on the first call;
+   * later calls return that count.
+   *
+   * @return the number of JavaScript and JSON files below the root directory
+   */
+  public int getNumberOfAvailableModules() {
+    if (availableModules < 0) {
+      availableModules = FileUtils.listFiles(rootDir, new String[] {"js", "json"}, true).size();
+    }
+    return availableModules;
+  }
+
   private static JavaScriptInvoke getInvokeInstruction(CGNode caller, CallSiteReference site) {
     IR callerIR = caller.getIR();
     SSAAbstractInvokeInstruction callInstrs[] = callerIR.getCalls(site);
@@ -284,8 +346,8 @@ public class NodejsRequireTargetSelector implements MethodTargetSelector {
   private static List<File> nodeModulePaths(File rootDir, File d) throws IOException {
     LinkedList<File> dirs = new LinkedList<>();
 
-    while (d.getCanonicalPath().startsWith(rootDir.getCanonicalPath())
-        && d.toPath().getNameCount() > 0) {
+    String root = rootDir.getCanonicalPath();
+    while (d.getCanonicalPath().startsWith(root) && d.toPath().getNameCount() > 0) {
       // 4.a.
       if (!d.getName().equals("node_modules")) {
         // 4.b. and 4.c.
@@ -10,14 +10,18 @@
  */
 package com.ibm.wala.cast.js.nodejs.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.ibm.wala.cast.js.nodejs.NodejsCallGraphBuilderUtil;
+import com.ibm.wala.cast.js.nodejs.NodejsRequireTargetSelector;
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
 
 /** @author Brian Pfretzschner &lt;brian.pfretzschner@gmail.com&gt; */
@@ -108,4 +112,28 @@ public class NodejsRequireTargetSelectorResolveTest {
     assertTrue(cgString.contains("Lhttps/nodejsModule/moduleSource/https"));
     assertTrue(cgString.contains("Lhttp/nodejsModule/moduleSource/http"));
   }
+
+  @Test
+  public void testRequireLazy() throws Exception {
+    URL fileUrl =
+        getClass()
+            .getClassLoader()
+            .getResource("NodejsRequireTargetSelectorResolve/requireLazy/index.js");
+    File file = new File(fileUrl.toURI());
+
+    List<NodejsRequireTargetSelector> selectors = new ArrayList<>();
+    PropagationCallGraphBuilder builder =
+        NodejsCallGraphBuilderUtil.makeCGBuilder(file.getParentFile(), file, selectors::add);
+    CallGraph CG = builder.makeCallGraph(builder.getOptions());
+    String cgString = CG.toString();
+
+    assertTrue(cgString.contains("Lused/nodejsModule/moduleSource/used>"));
+    assertFalse(cgString.contains("Lunused/nodejsModule"));
+
+    assertEquals(1, selectors.size());
+    NodejsRequireTargetSelector selector = selectors.get(0);
+    assertEquals(1, selector.getNumberOfLoadedModules());
+    assertEquals(3, selector.getNumberOfAvailableModules());
+    assertTrue(selector.getNumberOfResolutionCacheHits() > 0);
+  }
 }
@@ -0,0 +1,9 @@
+var used = require('./used');
+var again = require('./used');
+
+function neverCalled() {
+  return require('./unused');
+}
+
+used();
+again();
@@ -0,0 +1,2 @@
+module.exports = function unused() {
+};
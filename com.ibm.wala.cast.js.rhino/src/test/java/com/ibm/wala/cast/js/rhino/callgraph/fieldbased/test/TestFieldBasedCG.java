@@ -10,11 +10,29 @@
  */
 package com.ibm.wala.cast.js.rhino.callgraph.fieldbased.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import com.ibm.wala.cast.ir.translator.TranslatorToCAst.Error;
+import com.ibm.wala.cast.js.callgraph.fieldbased.DemandDrivenCallGraphQuery;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.FlowGraph;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.CallVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.FuncVertex;
+import com.ibm.wala.cast.js.html.DefaultSourceExtractor;
+import com.ibm.wala.cast.js.ipa.callgraph.JSCallGraph;
+import com.ibm.wala.cast.js.util.CallGraph2JSON;
 import com.ibm.wala.cast.js.util.FieldBasedCGUtil.BuilderType;
+import com.ibm.wala.core.util.ProgressMaster;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.NullProgressMonitor;
 import com.ibm.wala.util.PlatformUtil;
 import com.ibm.wala.util.WalaException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -42,6 +60,11 @@ public class TestFieldBasedCG extends AbstractFieldBasedTest {
     runTest("tests/fieldbased/simple.js", assertionsForSimpleJS, BuilderType.OPTIMISTIC_WORKLIST);
   }
 
+  @Test
+  public void testSimpleJSSCC() throws WalaException, Error, CancelException {
+    runTest("tests/fieldbased/simple.js", assertionsForSimpleJS, BuilderType.OPTIMISTIC_SCC);
+  }
+
   private static final Object[][] assertionsForOneShot =
       new Object[][] {
         new Object[] {ROOT, new String[] {"suffix:oneshot.js"}},
@@ -64,6 +87,11 @@ public class TestFieldBasedCG extends AbstractFieldBasedTest {
     runTest("tests/fieldbased/oneshot.js", assertionsForOneShot, BuilderType.OPTIMISTIC_WORKLIST);
   }
 
+  @Test
+  public void testOneshotSCC() throws WalaException, Error, CancelException {
+    runTest("tests/fieldbased/oneshot.js", assertionsForOneShot, BuilderType.OPTIMISTIC_SCC);
+  }
+
   private static final Object[][] assertionsForCallbacks =
       new Object[][] {
         new Object[] {ROOT, new String[] {"suffix:callbacks.js"}},
@@ -83,6 +111,11 @@ public class TestFieldBasedCG extends AbstractFieldBasedTest {
         "tests/fieldbased/callbacks.js", assertionsForCallbacks, BuilderType.OPTIMISTIC_WORKLIST);
   }
 
+  @Test
+  public void testCallbacksSCC() throws WalaException, Error, CancelException {
+    runTest("tests/fieldbased/callbacks.js", assertionsForCallbacks, BuilderType.OPTIMISTIC_SCC);
+  }
+
   private static final Object[][] assertionsForLexical =
       new Object[][] {new Object[] {"suffix:h", new String[] {"suffix:g"}}};
 
@@ -101,6 +134,11 @@ public class TestFieldBasedCG extends AbstractFieldBasedTest {
     runTest("tests/fieldbased/lexical.js", assertionsForLexical, BuilderType.OPTIMISTIC_WORKLIST);
   }
 
+  @Test
+  public void testLexicalSCC() throws WalaException, Error, CancelException {
+    runTest("tests/fieldbased/lexical.js", assertionsForLexical, BuilderType.OPTIMISTIC_SCC);
+  }
+
   private static final Object[][] assertionsForReflectiveCall =
       new Object[][] {
         new Object[] {
@@ -129,6 +167,14 @@ public class TestFieldBasedCG extends AbstractFieldBasedTest {
         BuilderType.OPTIMISTIC_WORKLIST);
   }
 
+  @Test
+  public void testReflectiveCallSCC() throws WalaException, Error, CancelException {
+    runTest(
+        "tests/fieldbased/reflective_calls.js",
+        assertionsForReflectiveCall,
+        BuilderType.OPTIMISTIC_SCC);
+  }
+
   private static final Object[][] assertionsForNew =
       new Object[][] {
         new Object[] {"suffix:new.js", new String[] {"suffix:g", "suffix:f"}},
@@ -145,6 +191,11 @@ public class TestFieldBasedCG extends AbstractFieldBasedTest {
     runTest("tests/fieldbased/new.js", assertionsForNew, BuilderType.OPTIMISTIC_WORKLIST);
   }
 
+  @Test
+  public void testNewSCC() throws WalaException, Error, CancelException {
+    runTest("tests/fieldbased/new.js", assertionsForNew, BuilderType.OPTIMISTIC_SCC);
+  }
+
   private static final Object[][] assertionsForCallbacks2 =
       new Object[][] {
         new Object[] {"suffix:callbacks2.js", new String[] {"suffix:g"}},
@@ -162,6 +213,11 @@ public class TestFieldBasedCG extends AbstractFieldBasedTest {
         "tests/fieldbased/callbacks2.js", assertionsForCallbacks2, BuilderType.OPTIMISTIC_WORKLIST);
   }
 
+  @Test
+  public void testCallbacks2SCC() throws WalaException, Error, CancelException {
+    runTest("tests/fieldbased/callbacks2.js", assertionsForCallbacks2, BuilderType.OPTIMISTIC_SCC);
+  }
+
   @Test
   public void testNewFnEmptyNoCrash() throws WalaException, Error, CancelException {
     runTest("tests/fieldbased/new_fn_empty.js", new Object[][] {}, BuilderType.OPTIMISTIC_WORKLIST);
@@ -204,6 +260,71 @@ public class TestFieldBasedCG extends AbstractFieldBasedTest {
         BuilderType.OPTIMISTIC_WORKLIST);
   }
 
+  @Test
+  public void testSCCSameEdgesAsWorklist() throws WalaException, Error, CancelException {
+    for (String script :
+        new String[] {
+          "tests/fieldbased/simple.js",
+          "tests/fieldbased/callbacks.js",
+          "tests/fieldbased/reflective_calls.js",
+          "tests/recursive_lex_write.js"
+        }) {
+      URL url = TestFieldBasedCG.class.getClassLoader().getResource(script);
+      CallGraph2JSON cg2JSON = new CallGraph2JSON(false);
+      assertEquals(
+          script,
+          cg2JSON.extractEdges(buildCG(url, BuilderType.OPTIMISTIC_WORKLIST)),
+          cg2JSON.extractEdges(buildCG(url, BuilderType.OPTIMISTIC_SCC)));
+    }
+  }
+
+  @Test
+  public void testDemandDrivenSameCalleesAsOptimistic()
+      throws WalaException, Error, CancelException {
+    for (String script :
+        new String[] {
+          "tests/fieldbased/simple.js",
+          "tests/fieldbased/callbacks.js",
+          "tests/fieldbased/callbacks2.js",
+          "tests/fieldbased/new.js"
+        }) {
+      URL url = TestFieldBasedCG.class.getClassLoader().getResource(script);
+
+      IProgressMonitor monitor = ProgressMaster.make(new NullProgressMonitor(), 45000, true);
+      FlowGraph flowGraph =
+          util.buildCG(url, BuilderType.OPTIMISTIC, monitor, false, DefaultSourceExtractor.factory)
+              .getFlowGraph();
+      Map<String, Set<String>> expected = new HashMap<>();
+      for (CallVertex c : flowGraph.getVertexFactory().getCallVertices()) {
+        Set<String> callees = new HashSet<>();
+        for (FuncVertex f : flowGraph.getReachingSet(c, monitor)) {
+          callees.add(f.getFullName());
+        }
+        expected.put(c.toString(), callees);
+      }
+
+      DemandDrivenCallGraphQuery query = util.makeDemandDrivenQuery(url);
+      Map<String, Set<String>> actual = new HashMap<>();
+      for (CallVertex c : query.getFlowGraph().getVertexFactory().getCallVertices()) {
+        Set<String> callees = new HashSet<>();
+        for (FuncVertex f : query.getCallees(c)) {
+          callees.add(f.getFullName());
+          assertTrue(script + ": " + c, query.getCallers(f).contains(c));
+        }
+        actual.put(c.toString(), callees);
+      }
+
+      assertEquals(script, expected, actual);
+    }
+  }
+
+  private JSCallGraph buildCG(URL url, BuilderType builderType)
+      throws WalaException, CancelException {
+    IProgressMonitor monitor = ProgressMaster.make(new NullProgressMonitor(), 45000, true);
+    return util.buildCG(url, builderType, monitor, false, DefaultSourceExtractor.factory)
+        .getCallGraph();
+  }
+
   @Ignore
   @Test
   public void testBug2979() throws WalaException, Error, CancelException {
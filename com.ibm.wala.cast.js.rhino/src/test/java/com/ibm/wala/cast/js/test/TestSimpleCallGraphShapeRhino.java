@@ -10,13 +10,22 @@
  */
 package com.ibm.wala.cast.js.test;
 
+import com.ibm.wala.cast.ir.translator.TranslatorToCAst;
 import com.ibm.wala.cast.js.ipa.callgraph.JSCFABuilder;
 import com.ibm.wala.cast.js.translator.CAstRhinoTranslatorFactory;
+import com.ibm.wala.cast.js.translator.CachingJavaScriptTranslatorFactory;
 import com.ibm.wala.cast.js.util.JSCallGraphBuilderUtil;
+import com.ibm.wala.cast.loader.CAstAbstractModuleLoader;
+import com.ibm.wala.cast.tree.impl.CAstImpl;
+import com.ibm.wala.cast.tree.rewrite.CAstCloner;
+import com.ibm.wala.classLoader.SourceURLModule;
+import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.WalaException;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -37,6 +46,64 @@ public class TestSimpleCallGraphShapeRhino extends TestSimpleCallGraphShape {
     // just make sure this does not crash
   }
 
+  @Test
+  public void testParallelCAstTranslation()
+      throws IOException, IllegalArgumentException, CancelException, WalaException {
+    int threads = CAstAbstractModuleLoader.CAST_TRANSLATION_THREADS;
+    CAstAbstractModuleLoader.CAST_TRANSLATION_THREADS = 4;
+    try {
+      CallGraph CG = JSCallGraphBuilderUtil.makeScriptCG("tests", "simple.js");
+      verifyGraphAssertions(CG, assertionsForSimple);
+    } finally {
+      CAstAbstractModuleLoader.CAST_TRANSLATION_THREADS = threads;
+    }
+  }
+
+  @Test
+  public void testCachedCAstTranslation()
+      throws IOException, IllegalArgumentException, CancelException, WalaException {
+    CachingJavaScriptTranslatorFactory factory =
+        new CachingJavaScriptTranslatorFactory(new CAstRhinoTranslatorFactory());
+    com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil.setTranslatorFactory(factory);
+    CallGraph CG = JSCallGraphBuilderUtil.makeScriptCG("tests", "simple.js");
+    verifyGraphAssertions(CG, assertionsForSimple);
+    int misses = factory.getMisses();
+    int hits = factory.getHits();
+    Assert.assertTrue(misses > 0);
+
+    // nothing changed, so nothing is translated again
+    CG = JSCallGraphBuilderUtil.makeScriptCG("tests", "simple.js");
+    verifyGraphAssertions(CG, assertionsForSimple);
+    Assert.assertEquals(misses, factory.getMisses());
+    Assert.assertTrue(factory.getHits() > hits);
+  }
+
+  @Test
+  public void testCachedCAstTranslationRunsRewriters() throws IOException, TranslatorToCAst.Error {
+    CachingJavaScriptTranslatorFactory factory =
+        new CachingJavaScriptTranslatorFactory(new CAstRhinoTranslatorFactory());
+    SourceURLModule script =
+        new SourceURLModule(
+            JSCallGraphBuilderUtil.getURLforFile(
+                "tests", "simple.js", TestSimpleCallGraphShapeRhino.class.getClassLoader()));
+    AtomicInteger rewrites = new AtomicInteger();
+    for (int i = 0; i < 2; i++) {
+      TranslatorToCAst translator = factory.make(new CAstImpl(), script);
+      translator.addRewriter(
+          ast -> {
+            rewrites.incrementAndGet();
+            return new CAstCloner(ast, true);
+          },
+          false);
+      Assert.assertNotNull(translator.translateToCAst());
+    }
+
+    // the translation is cached, but the rewriter runs on every use
+    Assert.assertEquals(1, factory.getMisses());
+    Assert.assertEquals(1, factory.getHits());
+    Assert.assertEquals(2, rewrites.get());
+  }
+
   @Test
   public void testRewriterDoesNotChangeLabelsBug()
       throws IOException, IllegalArgumentException, CancelException, WalaException {
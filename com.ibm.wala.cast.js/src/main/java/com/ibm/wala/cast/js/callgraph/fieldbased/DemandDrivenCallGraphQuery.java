@@ -0,0 +1,334 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.cast.js.callgraph.fieldbased;
+
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.FlowGraph;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.ArgVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.CallVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.FuncVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.ParamVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.RetVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.UnknownVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.Vertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.VertexFactory;
+import com.ibm.wala.cast.js.ssa.JavaScriptInvoke;
+import com.ibm.wala.cast.js.types.JavaScriptMethods;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.Pair;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers call graph queries for a single call site or function on demand, rather than building the
+ * whole call graph first.
+ *
+ * <p>The queries work on the intraprocedural flow graph built by {@link
+ * com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.FlowGraphBuilder}, and give the answers of
+ * the {@link OptimisticCallgraphBuilder}: the callees of a call site are the functions reaching it
+ * in the flow graph, once the argument and return flow of the call edges has been added. A query
+ * for the callees of a call site explores the flow graph backwards from the call, and a query for
+ * the callers of a function explores it forwards from the function. Where the exploration reaches a
+ * parameter or return value, it needs call edges, which are found by further queries; only those
+ * call edges get their flow added.
+ *
+ * <p>Queries, and the flow added for them, are kept, so later queries only explore what earlier
+ * ones have not.
+ */
+public class DemandDrivenCallGraphQuery {
+  private final FlowGraph flowGraph;
+  private final VertexFactory factory;
+  private final boolean handleCallApply;
+
+  // the call whose result a vertex holds
+  private final Map<Vertex, CallVertex> resultOf = HashMapFactory.make();
+
+  // the calls a vertex is passed to, as function, receiver or argument
+  private final Map<Vertex, Set<CallVertex>> argumentOf = HashMapFactory.make();
+
+  // the queries for the functions reaching a vertex, by vertex
+  private final Map<Vertex, Query> backwardQueries = HashMapFactory.make();
+
+  // the queries for the calls reached by a function, by function
+  private final Map<FuncVertex, Query> forwardQueries = HashMapFactory.make();
+
+  // all queries, in the order they were made
+  private final List<Query> queries = new ArrayList<>();
+
+  // call edges found, and those whose flow still has to be added
+  private final Set<Pair<CallVertex, FuncVertex>> knownEdges = HashSetFactory.make();
+  private final ArrayDeque<Pair<CallVertex, FuncVertex>> newEdges = new ArrayDeque<>();
+
+  // for the receiver of calls to Function.prototype.call or apply: those calls
+  private final Map<Vertex, Set<CallVertex>> reflectiveCalls = HashMapFactory.make();
+
+  // functions invoked reflectively by calls to Function.prototype.call or apply
+  private final Set<Pair<CallVertex, FuncVertex>> knownReflectiveEdges = HashSetFactory.make();
+  private final ArrayDeque<Pair<CallVertex, FuncVertex>> newReflectiveEdges = new ArrayDeque<>();
+
+  /** The vertices reachable from a vertex, backwards or forwards, not passing unknown. */
+  private final class Query {
+    private final Vertex root;
+    private final boolean forward;
+
+    private final Set<Vertex> visited = HashSetFactory.make();
+    private final ArrayDeque<Vertex> worklist = new ArrayDeque<>();
+
+    // the functions reaching root, or the calls reached by it
+    private final Set<Vertex> found = HashSetFactory.make();
+
+    private Query(Vertex root, boolean forward) {
+      this.root = root;
+      this.forward = forward;
+      visit(root);
+    }
+
+    private void visit(Vertex v) {
+      if (!(v instanceof UnknownVertex) && visited.add(v)) {
+        worklist.add(v);
+      }
+    }
+
+    private void edgeAdded(Vertex from, Vertex to) {
+      if (forward ? visited.contains(from) : visited.contains(to)) {
+        visit(forward ? to : from);
+      }
+    }
+
+    /** @return whether there was anything to explore */
+    private boolean explore() {
+      if (worklist.isEmpty()) return false;
+
+      while (!worklist.isEmpty()) {
+        Vertex v = worklist.poll();
+        if (forward) {
+          reachedForward(this, v);
+        } else {
+          reachedBackward(this, v);
+        }
+
+        if (flowGraph.containsVertex(v)) {
+          Iterator<Vertex> next = forward ? flowGraph.getSucc(v) : flowGraph.getPred(v);
+          for (Vertex w : Iterator2Iterable.make(next)) {
+            visit(w);
+          }
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * @param flowGraph the intraprocedural flow graph of the program; flow for the call edges found
+   *     is added to it
+   * @param handleCallApply whether to add flow for functions invoked through {@code
+   *     Function.prototype.call} and {@code Function.prototype.apply}
+   */
+  public DemandDrivenCallGraphQuery(FlowGraph flowGraph, boolean handleCallApply) {
+    this.flowGraph = flowGraph;
+    this.factory = flowGraph.getVertexFactory();
+    this.handleCallApply = handleCallApply;
+
+    List<CallVertex> calls = new ArrayList<>();
+    factory.getCallVertices().forEach(calls::add);
+    for (CallVertex c : calls) {
+      JavaScriptInvoke invk = c.getInstruction();
+      resultOf.put(factory.makeVarVertex(c.getCaller(), invk.getDef()), c);
+      for (int i = 0; i < invk.getNumberOfPositionalParameters(); i++) {
+        argumentOf
+            .computeIfAbsent(
+                factory.makeVarVertex(c.getCaller(), invk.getUse(i)), k -> HashSetFactory.make())
+            .add(c);
+      }
+    }
+  }
+
+  public FlowGraph getFlowGraph() {
+    return flowGraph;
+  }
+
+  /** @return the functions that may be called at call */
+  public Set<FuncVertex> getCallees(CallVertex call) {
+    Query query = backwardQuery(call);
+    solve();
+    Set<FuncVertex> result = HashSetFactory.make();
+    for (Vertex f : query.found) {
+      result.add((FuncVertex) f);
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  /** @return the call sites at which func may be called */
+  public Set<CallVertex> getCallers(FuncVertex func) {
+    Query query = forwardQuery(func);
+    solve();
+    Set<CallVertex> result = HashSetFactory.make();
+    for (Vertex c : query.found) {
+      result.add((CallVertex) c);
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  /** @return the number of vertices explored by all queries so far, counting repeats */
+  public int getNumberOfExploredVertices() {
+    int explored = 0;
+    for (Query query : queries) {
+      explored += query.visited.size();
+    }
+    return explored;
+  }
+
+  private Query backwardQuery(Vertex v) {
+    Query query = backwardQueries.get(v);
+    if (query == null) {
+      backwardQueries.put(v, query = new Query(v, false));
+      queries.add(query);
+    }
+    return query;
+  }
+
+  private Query forwardQuery(FuncVertex f) {
+    Query query = forwardQueries.get(f);
+    if (query == null) {
+      forwardQueries.put(f, query = new Query(f, true));
+      queries.add(query);
+    }
+    return query;
+  }
+
+  // explore until no query has anything left to explore, and no call edge is left without flow
+  private void solve() {
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      // exploring may make new queries
+      for (int i = 0; i < queries.size(); i++) {
+        changed |= queries.get(i).explore();
+      }
+      while (!newEdges.isEmpty()) {
+        changed = true;
+        Pair<CallVertex, FuncVertex> edge = newEdges.poll();
+        addFlow(edge.fst, edge.snd);
+      }
+      while (!newReflectiveEdges.isEmpty()) {
+        changed = true;
+        Pair<CallVertex, FuncVertex> edge = newReflectiveEdges.poll();
+        addReflectiveFlow(edge.fst, edge.snd);
+      }
+    }
+  }
+
+  private void reachedBackward(Query query, Vertex v) {
+    if (v instanceof FuncVertex) {
+      FuncVertex f = (FuncVertex) v;
+      query.found.add(f);
+      if (query.root instanceof CallVertex) {
+        addCallEdge((CallVertex) query.root, f);
+      }
+      for (CallVertex c : reflectiveCalls.getOrDefault(query.root, Collections.emptySet())) {
+        if (knownReflectiveEdges.add(Pair.make(c, f))) {
+          newReflectiveEdges.add(Pair.make(c, f));
+        }
+      }
+    } else if (v instanceof ParamVertex) {
+      // flows in from the arguments at the callers
+      forwardQuery(((ParamVertex) v).getFunc());
+    } else if (v instanceof ArgVertex) {
+      forwardQuery(((ArgVertex) v).getFunc());
+    }
+
+    // flows in from the return values of the callees
+    CallVertex call = resultOf.get(v);
+    if (call != null) {
+      backwardQuery(call);
+    }
+  }
+
+  private void reachedForward(Query query, Vertex v) {
+    if (v instanceof CallVertex) {
+      query.found.add(v);
+      addCallEdge((CallVertex) v, (FuncVertex) query.root);
+    } else if (v instanceof RetVertex) {
+      // flows out to the results at the callers
+      forwardQuery(((RetVertex) v).getFunc());
+    }
+
+    // flows out to the parameters of the callees
+    for (CallVertex call : argumentOf.getOrDefault(v, Collections.emptySet())) {
+      backwardQuery(call);
+    }
+  }
+
+  private void addCallEdge(CallVertex c, FuncVertex f) {
+    if (knownEdges.add(Pair.make(c, f))) {
+      newEdges.add(Pair.make(c, f));
+    }
+  }
+
+  private void addFlowEdge(Vertex from, Vertex to) {
+    flowGraph.addEdge(from, to);
+    for (Query query : queries) {
+      query.edgeAdded(from, to);
+    }
+  }
+
+  // the same flow as OptimisticCallgraphBuilder adds for a new call edge
+  private void addFlow(CallVertex c, FuncVertex callee) {
+    JavaScriptInvoke invk = c.getInstruction();
+    FuncVertex caller = c.getCaller();
+
+    int offset = 0;
+    if (invk.getDeclaredTarget()
+        .getSelector()
+        .equals(JavaScriptMethods.ctorReference.getSelector())) {
+      offset = 1;
+    }
+
+    for (int i = 0; i < invk.getNumberOfPositionalParameters(); ++i) {
+      addFlowEdge(factory.makeVarVertex(caller, invk.getUse(i)), factory.makeArgVertex(callee));
+      addFlowEdge(
+          factory.makeVarVertex(caller, invk.getUse(i)),
+          factory.makeParamVertex(callee, i + offset));
+    }
+
+    addFlowEdge(factory.makeRetVertex(callee), factory.makeVarVertex(caller, invk.getDef()));
+
+    if (handleCallApply
+        && (callee.getFullName().equals("Lprologue.js/Function_prototype_call")
+            || callee.getFullName().equals("Lprologue.js/Function_prototype_apply"))) {
+      // the functions invoked are those reaching the receiver
+      Vertex receiver = factory.makeVarVertex(caller, invk.getUse(1));
+      reflectiveCalls.computeIfAbsent(receiver, k -> HashSetFactory.make()).add(c);
+      Query query = backwardQuery(receiver);
+      for (Vertex f : query.found) {
+        if (knownReflectiveEdges.add(Pair.make(c, (FuncVertex) f))) {
+          newReflectiveEdges.add(Pair.make(c, (FuncVertex) f));
+        }
+      }
+    }
+  }
+
+  // the same flow as OptimisticCallgraphBuilder adds for a function invoked by call or apply
+  private void addReflectiveFlow(CallVertex c, FuncVertex realCallee) {
+    JavaScriptInvoke invk = c.getInstruction();
+    FuncVertex caller = c.getCaller();
+
+    for (int i = 2; i < invk.getNumberOfPositionalParameters(); ++i) {
+      addFlowEdge(
+          factory.makeVarVertex(caller, invk.getUse(i)),
+          factory.makeParamVertex(realCallee, i - 1));
+    }
+
+    addFlowEdge(factory.makeRetVertex(realCallee), factory.makeVarVertex(caller, invk.getDef()));
+  }
+}
@@ -110,6 +110,16 @@ public abstract class FieldBasedCallGraphBuilder {
   /** Build a flow graph for the program to be analysed. */
   public abstract FlowGraph buildFlowGraph(IProgressMonitor monitor) throws CancelException;
 
+  /**
+   * Answer queries for the callees of single call sites and the callers of single functions,
+   * without building the whole call graph.
+   */
+  public DemandDrivenCallGraphQuery makeDemandDrivenQuery() {
+    return new DemandDrivenCallGraphQuery(
+        flowGraphFactory(),
+        options instanceof JSAnalysisOptions && ((JSAnalysisOptions) options).handleCallApply());
+  }
+
   /** Full result of call graph computation */
   public static class CallGraphResult {
 
@@ -82,9 +82,6 @@ public class OptimisticCallgraphBuilder extends FieldBasedCallGraphBuilder {
           addEdge(flowgraph, edge.fst, edge.snd);
 
           // special handling of invocations of Function.prototype.call
-          // TODO: since we've just added some edges to the flow graph, its transitive closure will
-          // be
-          //       recomputed here, which is slow and unnecessary
           if (handleCallApply
               && (edge.snd.getFullName().equals("Lprologue.js/Function_prototype_call")
                   || edge.snd.getFullName().equals("Lprologue.js/Function_prototype_apply"))) {
@@ -0,0 +1,509 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.cast.js.callgraph.fieldbased;
+
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.FlowGraph;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.FlowGraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.CallVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.FuncVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.VarVertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.Vertex;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.VertexFactory;
+import com.ibm.wala.cast.js.ipa.callgraph.JSAnalysisOptions;
+import com.ibm.wala.cast.js.ssa.JavaScriptInvoke;
+import com.ibm.wala.cast.js.types.JavaScriptMethods;
+import com.ibm.wala.cast.types.AstMethodReference;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.intset.BitVector;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.EmptyIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optimistic call graph builder that computes the same call edges as {@link
+ * WorklistBasedOptimisticCallgraphBuilder}, but scales to much larger flow graphs.
+ *
+ * <p>Vertices are handled by their number in the {@link FlowGraph}, and the functions reaching a
+ * vertex are kept as a bit vector. Strongly connected components of the flow graph are collapsed
+ * into a single representative before propagation starts, and cycles closed by the edges added for
+ * newly discovered calls are collapsed lazily, when the sets at both ends of such an edge coincide.
+ * Only the functions that newly reached a vertex are propagated to its successors.
+ */
+public class SCCOptimisticCallgraphBuilder extends FieldBasedCallGraphBuilder {
+
+  private static final String FUNCTION_PROTOTYPE_CALL = "Lprologue.js/Function_prototype_call";
+
+  private static final String FUNCTION_PROTOTYPE_APPLY = "Lprologue.js/Function_prototype_apply";
+
+  private final boolean handleCallApply;
+
+  public SCCOptimisticCallgraphBuilder(
+      IClassHierarchy cha,
+      AnalysisOptions options,
+      IAnalysisCacheView cache,
+      boolean supportFullPointerAnalysis) {
+    super(cha, options, cache, supportFullPointerAnalysis);
+    handleCallApply =
+        options instanceof JSAnalysisOptions && ((JSAnalysisOptions) options).handleCallApply();
+  }
+
+  @Override
+  public FlowGraph buildFlowGraph(IProgressMonitor monitor) throws CancelException {
+    return new FlowGraphBuilder(cha, cache, false).buildFlowGraph();
+  }
+
+  @Override
+  public Set<Pair<CallVertex, FuncVertex>> extractCallGraphEdges(
+      FlowGraph flowgraph, IProgressMonitor monitor) throws CancelException {
+    return new Solver(flowgraph, monitor).solve();
+  }
+
+  /** The propagation state for one flow graph. All arrays are indexed by vertex number. */
+  private final class Solver {
+    private final FlowGraph flowgraph;
+
+    private final VertexFactory factory;
+
+    private final IProgressMonitor monitor;
+
+    /** numbering of the functions, i.e., the bits of the reaching sets */
+    private final MutableMapping<FuncVertex> functions = MutableMapping.make();
+
+    /** invocations of Function.prototype.call/apply, keyed by the number of the callee vertex */
+    private final Map<Integer, Pair<JavaScriptInvoke, Boolean>> reflectiveCallees =
+        HashMapFactory.make();
+
+    /** number of vertices set up so far */
+    private int size = 0;
+
+    /** union-find forest; a vertex is the representative of its SCC iff {@code rep[v] == v} */
+    private int[] rep = new int[0];
+
+    /** successors of an SCC, as numbers of (possibly no longer representative) vertices */
+    private MutableIntSet[] succ = new MutableIntSet[0];
+
+    /** the functions reaching an SCC */
+    private BitVectorIntSet[] reach = new BitVectorIntSet[0];
+
+    /** the functions that reached an SCC since it was last processed */
+    private BitVectorIntSet[] delta = new BitVectorIntSet[0];
+
+    /** call vertices and reflective callee vertices in an SCC */
+    private MutableIntSet[] special = new MutableIntSet[0];
+
+    /** for call vertices and reflective callee vertices, the functions already handled */
+    private BitVectorIntSet[] seen = new BitVectorIntSet[0];
+
+    private final ArrayDeque<Integer> worklist = new ArrayDeque<>();
+
+    private final BitVector queued = new BitVector();
+
+    // state of the cycle detection
+    private int[] visited = new int[0];
+    private int[] index = new int[0];
+    private int[] lowlink = new int[0];
+    private int round = 0;
+
+    Solver(FlowGraph flowgraph, IProgressMonitor monitor) {
+      this.flowgraph = flowgraph;
+      this.factory = flowgraph.getVertexFactory();
+      this.monitor = monitor;
+    }
+
+    Set<Pair<CallVertex, FuncVertex>> solve() throws CancelException {
+      ensureCapacity(flowgraph.getMaxNumber());
+      for (Vertex v : flowgraph) {
+        int n = flowgraph.getNumber(v);
+        IntSet s = flowgraph.getSuccNodeNumbers(v);
+        if (s != null && !s.isEmpty()) {
+          succ[n] = MutableSparseIntSet.make(s);
+        }
+        if (v instanceof FuncVertex) {
+          int f = functions.add((FuncVertex) v);
+          reach(n).add(f);
+          delta(n).add(f);
+        } else if (v instanceof CallVertex) {
+          makeSpecial(n);
+        }
+      }
+
+      // seed the worklist in topological order, so that most vertices are processed only once
+      List<Integer> order = collapseCycles(0, size, null);
+      worklist.clear();
+      queued.clearAll();
+      for (int i = order.size() - 1; i >= 0; i--) {
+        int r = order.get(i);
+        if (find(r) == r && delta[r] != null) {
+          enqueue(r);
+        }
+      }
+
+      drain();
+
+      Set<Pair<CallVertex, FuncVertex>> res = HashSetFactory.make();
+      for (int n = 0; n < size; n++) {
+        if (seen[n] != null && flowgraph.getNode(n) instanceof CallVertex) {
+          CallVertex c = (CallVertex) flowgraph.getNode(n);
+          for (IntIterator it = seen[n].intIterator(); it.hasNext(); ) {
+            res.add(Pair.make(c, functions.getMappedObject(it.next())));
+          }
+        }
+      }
+      return res;
+    }
+
+    // process the worklist until the reaching sets are stable
+    private void drain() throws CancelException {
+      while (!worklist.isEmpty()) {
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+
+        int r = worklist.poll();
+        queued.clear(r);
+        if (find(r) != r) {
+          continue;
+        }
+
+        handleSpecials(r);
+        if (find(r) != r || delta[r] == null) {
+          continue;
+        }
+
+        BitVectorIntSet d = delta[r];
+        delta[r] = null;
+        if (succ[r] != null) {
+          for (IntIterator it = succ[r].intIterator(); it.hasNext(); ) {
+            int s = find(it.next());
+            if (s != r) {
+              propagate(d, s);
+            }
+          }
+        }
+      }
+    }
+
+    // add the functions in bits to the SCC s
+    private void propagate(BitVectorIntSet bits, int s) {
+      if (reach(s).addAll(bits)) {
+        delta(s).addAll(bits);
+        enqueue(s);
+      }
+    }
+
+    // handle the functions that newly reached call vertices and reflective callee vertices
+    private void handleSpecials(int r) {
+      if (special[r] == null) {
+        return;
+      }
+      for (IntIterator it = MutableSparseIntSet.make(special[r]).intIterator(); it.hasNext(); ) {
+        int m = it.next();
+        BitVectorIntSet all = reach[find(m)];
+        if (all == null || seen[m].containsAll(all)) {
+          continue;
+        }
+        BitVectorIntSet added = new BitVectorIntSet(all);
+        added.removeAll(seen[m]);
+        seen[m].addAll(added);
+
+        Vertex v = flowgraph.getNode(m);
+        for (IntIterator fs = added.intIterator(); fs.hasNext(); ) {
+          FuncVertex fv = functions.getMappedObject(fs.next());
+          if (v instanceof CallVertex) {
+            handleCall((CallVertex) v, fv);
+          } else {
+            Pair<JavaScriptInvoke, Boolean> invkAndIsCall = reflectiveCallees.get(m);
+            addReflectiveCallEdge((VarVertex) v, invkAndIsCall.fst, fv, invkAndIsCall.snd);
+          }
+        }
+      }
+    }
+
+    private void handleCall(CallVertex callVertex, FuncVertex fv) {
+      addCallEdge(callVertex, fv);
+
+      // special handling of invocations of Function.prototype.call
+      String fullName = fv.getFullName();
+      if (handleCallApply
+          && (fullName.equals(FUNCTION_PROTOTYPE_CALL)
+              || fullName.equals(FUNCTION_PROTOTYPE_APPLY))) {
+        JavaScriptInvoke invk = callVertex.getInstruction();
+        VarVertex reflectiveCalleeVertex =
+            factory.makeVarVertex(callVertex.getCaller(), invk.getUse(1));
+        addEdge(
+            reflectiveCalleeVertex, factory.makeReflectiveCallVertex(callVertex.getCaller(), invk));
+        // we only add dataflow edges for Function.prototype.call
+        boolean isCall = fullName.equals(FUNCTION_PROTOTYPE_CALL);
+        int n = flowgraph.getNumber(reflectiveCalleeVertex);
+        reflectiveCallees.put(n, Pair.make(invk, isCall));
+        makeSpecial(n);
+        BitVectorIntSet all = reach[find(n)];
+        if (all != null) {
+          seen[n].addAll(all);
+          for (IntIterator fs = new BitVectorIntSet(all).intIterator(); fs.hasNext(); ) {
+            addReflectiveCallEdge(
+                reflectiveCalleeVertex, invk, functions.getMappedObject(fs.next()), isCall);
+          }
+        }
+      }
+    }
+
+    // add flow corresponding to a new call edge
+    private void addCallEdge(CallVertex c, FuncVertex callee) {
+      FuncVertex caller = c.getCaller();
+      JavaScriptInvoke invk = c.getInstruction();
+
+      int offset = 0;
+      if (invk.getDeclaredTarget()
+          .getSelector()
+          .equals(JavaScriptMethods.ctorReference.getSelector())) {
+        offset = 1;
+      }
+
+      for (int i = 0; i < invk.getNumberOfPositionalParameters(); ++i) {
+        // only flow receiver into 'this' if invk is, in fact, a method call
+        addEdge(factory.makeVarVertex(caller, invk.getUse(i)), factory.makeArgVertex(callee));
+        if (i != 1 || !invk.getDeclaredTarget().getSelector().equals(AstMethodReference.fnSelector))
+          addEdge(
+              factory.makeVarVertex(caller, invk.getUse(i)),
+              factory.makeParamVertex(callee, i + offset));
+      }
+
+      // flow from return vertex to result vertex
+      addEdge(factory.makeRetVertex(callee), factory.makeVarVertex(caller, invk.getDef()));
+    }
+
+    // add data flow corresponding to a reflective invocation via Function.prototype.call
+    private void addReflectiveCallEdge(
+        VarVertex reflectiveCallee,
+        JavaScriptInvoke invk,
+        FuncVertex realCallee,
+        boolean isFunctionPrototypeCall) {
+      FuncVertex caller = reflectiveCallee.getFunction();
+
+      if (isFunctionPrototypeCall) {
+        // flow from arguments to parameters
+        for (int i = 2; i < invk.getNumberOfPositionalParameters(); ++i) {
+          addEdge(
+              factory.makeVarVertex(caller, invk.getUse(i)),
+              factory.makeParamVertex(realCallee, i - 1));
+        }
+      }
+
+      // flow from return vertex to result vertex
+      addEdge(factory.makeRetVertex(realCallee), factory.makeVarVertex(caller, invk.getDef()));
+    }
+
+    // add an edge to the flow graph, and propagate everything that reaches its source
+    private void addEdge(Vertex from, Vertex to) {
+      flowgraph.addEdge(from, to);
+      int f = flowgraph.getNumber(from);
+      int t = flowgraph.getNumber(to);
+      ensureCapacity(Math.max(f, t));
+
+      int rf = find(f);
+      int rt = find(t);
+      if (succ[rf] == null) {
+        succ[rf] = MutableSparseIntSet.makeEmpty();
+      }
+      if (!succ[rf].add(t) || rf == rt || reach[rf] == null) {
+        return;
+      }
+
+      propagate(reach[rf], rt);
+      // lazy cycle detection: the edge may have closed a cycle if both ends have the same set
+      if (reach[rf].sameValue(reach[rt])) {
+        collapseCycles(rt, rt + 1, reach[rt]);
+      }
+    }
+
+    private void makeSpecial(int n) {
+      if (seen[n] == null) {
+        seen[n] = new BitVectorIntSet();
+      }
+      int r = find(n);
+      if (special[r] == null) {
+        special[r] = MutableSparseIntSet.makeEmpty();
+      }
+      special[r].add(n);
+    }
+
+    /**
+     * Collapse the strongly connected components reachable from the representatives in [from, to)
+     * using Tarjan's algorithm.
+     *
+     * @param filter if not null, only components whose reaching set equals filter are searched
+     * @return the representatives of the components found, in reverse topological order
+     */
+    private List<Integer> collapseCycles(int from, int to, BitVectorIntSet filter) {
+      List<Integer> order = new ArrayList<>();
+      round++;
+      int counter = 0;
+      ArrayDeque<Integer> stack = new ArrayDeque<>();
+      BitVector onStack = new BitVector();
+      ArrayDeque<Integer> callStack = new ArrayDeque<>();
+      ArrayDeque<IntIterator> iterators = new ArrayDeque<>();
+
+      for (int root = from; root < to; root++) {
+        if (find(root) != root || visited[root] == round) {
+          continue;
+        }
+
+        visited[root] = round;
+        index[root] = lowlink[root] = counter++;
+        stack.push(root);
+        onStack.set(root);
+        callStack.push(root);
+        iterators.push(successors(root));
+
+        while (!callStack.isEmpty()) {
+          int v = callStack.peek();
+          IntIterator it = iterators.peek();
+          if (it.hasNext()) {
+            int w = find(it.next());
+            if (w == v || (filter != null && (reach[w] == null || !reach[w].sameValue(filter)))) {
+              continue;
+            }
+            if (visited[w] != round) {
+              visited[w] = round;
+              index[w] = lowlink[w] = counter++;
+              stack.push(w);
+              onStack.set(w);
+              callStack.push(w);
+              iterators.push(successors(w));
+            } else if (onStack.get(w)) {
+              lowlink[v] = Math.min(lowlink[v], index[w]);
+            }
+          } else {
+            callStack.pop();
+            iterators.pop();
+            if (!callStack.isEmpty()) {
+              int u = callStack.peek();
+              lowlink[u] = Math.min(lowlink[u], lowlink[v]);
+            }
+            if (lowlink[v] == index[v]) {
+              List<Integer> component = new ArrayList<>();
+              int w;
+              do {
+                w = stack.pop();
+                onStack.clear(w);
+                component.add(w);
+              } while (w != v);
+              order.add(merge(component));
+            }
+          }
+        }
+      }
+      return order;
+    }
+
+    // merge an SCC into a single representative
+    private int merge(List<Integer> component) {
+      int r = component.get(0);
+      if (component.size() == 1) {
+        return r;
+      }
+      for (int m : component.subList(1, component.size())) {
+        rep[m] = r;
+        if (reach[m] != null) {
+          reach(r).addAll(reach[m]);
+        }
+        if (succ[m] != null) {
+          if (succ[r] == null) {
+            succ[r] = MutableSparseIntSet.makeEmpty();
+          }
+          succ[r].addAll(succ[m]);
+        }
+        if (special[m] != null) {
+          if (special[r] == null) {
+            special[r] = MutableSparseIntSet.makeEmpty();
+          }
+          special[r].addAll(special[m]);
+        }
+        reach[m] = delta[m] = null;
+        succ[m] = special[m] = null;
+      }
+      // the successors of the members have not seen the functions of the other members
+      if (reach[r] != null) {
+        delta(r).addAll(reach[r]);
+        enqueue(r);
+      }
+      return r;
+    }
+
+    private IntIterator successors(int r) {
+      return succ[r] == null ? EmptyIntSet.instance.intIterator() : succ[r].intIterator();
+    }
+
+    private int find(int n) {
+      while (rep[n] != n) {
+        rep[n] = rep[rep[n]];
+        n = rep[n];
+      }
+      return n;
+    }
+
+    private void enqueue(int r) {
+      if (!queued.get(r)) {
+        queued.set(r);
+        worklist.add(r);
+      }
+    }
+
+    private BitVectorIntSet reach(int r) {
+      if (reach[r] == null) {
+        reach[r] = new BitVectorIntSet();
+      }
+      return reach[r];
+    }
+
+    private BitVectorIntSet delta(int r) {
+      if (delta[r] == null) {
+        delta[r] = new BitVectorIntSet();
+      }
+      return delta[r];
+    }
+
+    // make room for the vertices up to number max, which may have been added to the flow graph
+    private void ensureCapacity(int max) {
+      if (max < size) {
+        return;
+      }
+      if (max >= rep.length) {
+        int length = Math.max(max + 1, 2 * rep.length);
+        rep = Arrays.copyOf(rep, length);
+        succ = Arrays.copyOf(succ, length);
+        reach = Arrays.copyOf(reach, length);
+        delta = Arrays.copyOf(delta, length);
+        special = Arrays.copyOf(special, length);
+        seen = Arrays.copyOf(seen, length);
+        visited = Arrays.copyOf(visited, length);
+        index = Arrays.copyOf(index, length);
+        lowlink = Arrays.copyOf(lowlink, length);
+      }
+      for (; size <= max; size++) {
+        rep[size] = size;
+      }
+    }
+  }
+}
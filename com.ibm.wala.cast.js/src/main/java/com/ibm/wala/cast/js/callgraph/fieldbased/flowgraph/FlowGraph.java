@@ -56,6 +56,7 @@ import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.ssa.SSANewInstruction;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.CompoundIterator;
 import com.ibm.wala.util.collections.HashMapFactory;
@@ -71,8 +72,14 @@ import com.ibm.wala.util.graph.impl.ExtensionGraph;
 import com.ibm.wala.util.graph.impl.InvertedGraph;
 import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
 import com.ibm.wala.util.graph.traverse.DFS;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.OrdinalSet;
 import com.ibm.wala.util.intset.OrdinalSetMapping;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
@@ -92,20 +99,67 @@ public class FlowGraph implements Iterable<Vertex> {
   // a factory that allows us to build canonical vertices
   private final VertexFactory factory;
 
-  // the transitive closure of the inverse of this.graph,
-  // but without paths going through the Unknown vertex
-  private GraphReachability<Vertex, FuncVertex> optimistic_closure;
+  // the transitive closure of the inverse of this.graph restricted to function vertices,
+  // but without paths going through the Unknown vertex: for every vertex (by number), the
+  // functions reaching it. Once computed, it is kept up to date as edges are added.
+  private BitVectorIntSet[] optimistic_closure;
+
+  // numbering of the function vertices in optimistic_closure
+  private final MutableMapping<FuncVertex> functions = MutableMapping.make();
 
   public FlowGraph() {
     this.graph = new SlowSparseNumberedGraph<>(1);
     this.factory = new VertexFactory();
   }
 
-  // (re-)compute optimistic_closure
+  // compute optimistic_closure, unless it is there already
   private void compute_optimistic_closure(IProgressMonitor monitor) throws CancelException {
     if (optimistic_closure != null) return;
 
-    optimistic_closure = computeClosure(graph, monitor, FuncVertex.class);
+    optimistic_closure = new BitVectorIntSet[0];
+    ArrayDeque<Integer> worklist = new ArrayDeque<>();
+    grow_optimistic_closure(worklist);
+    if (!propagate_optimistic_closure(worklist, monitor)) {
+      optimistic_closure = null;
+      throw CancelException.make("computation of the flow graph closure canceled");
+    }
+  }
+
+  // make room for new vertices in optimistic_closure; new function vertices reach themselves
+  private void grow_optimistic_closure(ArrayDeque<Integer> worklist) {
+    int oldSize = optimistic_closure.length;
+    if (graph.getMaxNumber() < oldSize) return;
+
+    optimistic_closure = Arrays.copyOf(optimistic_closure, graph.getMaxNumber() + 1);
+    for (int n = oldSize; n < optimistic_closure.length; n++) {
+      Vertex v = graph.getNode(n);
+      if (v instanceof FuncVertex) {
+        optimistic_closure[n] = new BitVectorIntSet();
+        optimistic_closure[n].add(functions.add((FuncVertex) v));
+        worklist.add(n);
+      }
+    }
+  }
+
+  // push the functions reaching the vertices in worklist to their successors, transitively;
+  // returns false if canceled
+  private boolean propagate_optimistic_closure(
+      ArrayDeque<Integer> worklist, IProgressMonitor monitor) {
+    while (!worklist.isEmpty()) {
+      if (MonitorUtil.isCanceled(monitor)) return false;
+
+      int n = worklist.poll();
+      BitVectorIntSet reaching = optimistic_closure[n];
+      for (IntIterator succs = graph.getSuccNodeNumbers(graph.getNode(n)).intIterator();
+          succs.hasNext(); ) {
+        int m = succs.next();
+        if (graph.getNode(m) instanceof UnknownVertex) continue;
+
+        if (optimistic_closure[m] == null) optimistic_closure[m] = new BitVectorIntSet();
+        if (optimistic_closure[m].addAll(reaching)) worklist.add(m);
+      }
+    }
+    return true;
   }
 
   private static <T> GraphReachability<Vertex, T> computeClosure(
@@ -151,8 +205,18 @@ public class FlowGraph implements Iterable<Vertex> {
     if (!graph.containsNode(to)) graph.addNode(to);
 
     if (!graph.hasEdge(from, to)) {
-      optimistic_closure = null;
       graph.addEdge(from, to);
+
+      // only propagate along the new edge, rather than recomputing the closure
+      if (optimistic_closure != null) {
+        ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        grow_optimistic_closure(worklist);
+        int f = graph.getNumber(from);
+        if (optimistic_closure[f] != null && !(from instanceof UnknownVertex)) {
+          worklist.add(f);
+        }
+        propagate_optimistic_closure(worklist, null);
+      }
     }
   }
 
@@ -165,13 +229,43 @@ public class FlowGraph implements Iterable<Vertex> {
     if (!graph.containsNode(dest)) return OrdinalSet.empty();
 
     compute_optimistic_closure(monitor);
-    return optimistic_closure.getReachableSet(dest);
+    BitVectorIntSet reaching = optimistic_closure[graph.getNumber(dest)];
+    if (reaching == null || dest instanceof UnknownVertex) return OrdinalSet.empty();
+
+    // copy, as the closure changes when edges are added
+    return new OrdinalSet<>(new BitVectorIntSet(reaching), functions);
   }
 
   public Iterator<Vertex> getSucc(Vertex v) {
     return graph.getSuccNodes(v);
   }
 
+  public Iterator<Vertex> getPred(Vertex v) {
+    return graph.getPredNodes(v);
+  }
+
+  /** @return whether {@code v} has been added to this flow graph, by way of an edge */
+  public boolean containsVertex(Vertex v) {
+    return graph.containsNode(v);
+  }
+
+  /** @return the number of {@code v} in the underlying graph; vertices are numbered densely */
+  public int getNumber(Vertex v) {
+    return graph.getNumber(v);
+  }
+
+  public Vertex getNode(int number) {
+    return graph.getNode(number);
+  }
+
+  public int getMaxNumber() {
+    return graph.getMaxNumber();
+  }
+
+  public IntSet getSuccNodeNumbers(Vertex v) {
+    return graph.getSuccNodeNumbers(v);
+  }
+
   @Override
   public Iterator<Vertex> iterator() {
     return graph.iterator();
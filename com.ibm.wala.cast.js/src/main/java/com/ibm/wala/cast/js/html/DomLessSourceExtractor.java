@@ -326,6 +326,16 @@ public class DomLessSourceExtractor extends JSSourceExtractor {
     SourceRegion finalRegion = new SourceRegion();
     htmlCallback.writeToFinalRegion(finalRegion);
 
+    if (!USE_TEMP_FILE) {
+      tempFile = null;
+      FileMapping fileMapping = finalRegion.getFileMapping();
+      if (fileMapping == null) {
+        fileMapping = new EmptyFileMapping();
+      }
+      return Collections.singleton(
+          new MappedSourceStringModule(entrypointUrl, finalRegion.getSource(), fileMapping));
+    }
+
     // writing the final region into one SourceFileModule.
     File outputFile = createOutputFile(entrypointUrl, DELETE_UPON_EXIT, USE_TEMP_NAME);
     tempFile = outputFile;
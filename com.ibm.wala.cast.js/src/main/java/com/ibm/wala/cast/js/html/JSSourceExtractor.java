@@ -30,6 +30,12 @@ public abstract class JSSourceExtractor {
 
   public static boolean USE_TEMP_NAME = true;
 
+  /**
+   * if false, the extracted scripts are kept in memory as a {@link MappedSourceStringModule} rather
+   * than written to a file, which saves the file I/O when extracting many pages
+   */
+  public static boolean USE_TEMP_FILE = true;
+
   /**
    * Returns the temporary file created by a call to {@link #extractSources(URL, IHtmlParser,
    * IUrlResolver, Reader)} which holds all the discovered JS source. If no such file exists,
@@ -0,0 +1,125 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.cast.js.html;
+
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.util.collections.NonNullSingletonIterator;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.Iterator;
+
+/**
+ * The scripts extracted from a web page, kept in memory rather than written to a file. The {@link
+ * URL} of the module is the URL of the page with ".js" appended to its path; it can be opened, and
+ * then reads the extracted source, so positions in the generated code still have their text.
+ */
+public class MappedSourceStringModule implements MappedSourceModule {
+  private final String source;
+  private final URL url;
+  private final FileMapping fileMapping;
+
+  public MappedSourceStringModule(URL pageUrl, String source, FileMapping fileMapping)
+      throws MalformedURLException {
+    this.source = source;
+    this.fileMapping = fileMapping;
+    this.url =
+        new URL(
+            pageUrl.getProtocol(),
+            pageUrl.getHost(),
+            pageUrl.getPort(),
+            pageUrl.getPath()
+                + ".js"
+                + (pageUrl.getQuery() == null ? "" : "?" + pageUrl.getQuery()),
+            new URLStreamHandler() {
+              @Override
+              protected URLConnection openConnection(URL u) {
+                return new URLConnection(u) {
+                  @Override
+                  public void connect() {}
+
+                  @Override
+                  public InputStream getInputStream() {
+                    return MappedSourceStringModule.this.getInputStream();
+                  }
+                };
+              }
+            });
+  }
+
+  @Override
+  public FileMapping getMapping() {
+    return fileMapping;
+  }
+
+  @Override
+  public URL getURL() {
+    return url;
+  }
+
+  @Override
+  public String getName() {
+    return url.getFile();
+  }
+
+  @Override
+  public String getClassName() {
+    return getName();
+  }
+
+  /** encoded as the extracted scripts would have been when written to a file */
+  @Override
+  public InputStream getInputStream() {
+    return new ByteArrayInputStream(source.getBytes());
+  }
+
+  @Override
+  public Reader getInputReader() {
+    return new StringReader(source);
+  }
+
+  @Override
+  public boolean isClassFile() {
+    return false;
+  }
+
+  @Override
+  public boolean isSourceFile() {
+    return true;
+  }
+
+  @Override
+  public boolean isModuleFile() {
+    return false;
+  }
+
+  @Override
+  public Module asModule() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Module getContainer() {
+    return null;
+  }
+
+  @Override
+  public Iterator<? extends ModuleEntry> getEntries() {
+    return new NonNullSingletonIterator<>(this);
+  }
+
+  @Override
+  public String toString() {
+    return "module:" + url;
+  }
+}
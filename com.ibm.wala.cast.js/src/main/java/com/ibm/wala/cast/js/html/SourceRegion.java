@@ -93,6 +93,16 @@ public class SourceRegion {
     return fileMapping;
   }
 
+  /** @return the source code of this region */
+  public String getSource() {
+    return source.toString();
+  }
+
+  /** @return the source location information, or null if there is none */
+  public FileMapping getFileMapping() {
+    return fileMapping;
+  }
+
   public void write(SourceRegion otherRegion) {
     int rangeStart = source.length();
     String text = otherRegion.source.toString();
@@ -20,7 +20,14 @@ import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
 public class WebUtil {
@@ -58,6 +65,39 @@ public class WebUtil {
     }
   }
 
+  /**
+   * extract the scripts of many pages, using up to the given number of threads. Set {@link
+   * JSSourceExtractor#USE_TEMP_FILE} to false to keep the extracted scripts in memory.
+   *
+   * @return the extracted sources of each page, in the order of urls
+   */
+  public static Map<URL, Set<MappedSourceModule>> extractScriptsFromHTML(
+      Collection<URL> urls, Supplier<JSSourceExtractor> fSourceExtractor, int threads)
+      throws Error {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    try {
+      Map<URL, Future<Set<MappedSourceModule>>> futures = new LinkedHashMap<>();
+      for (URL url : urls) {
+        futures.put(url, executor.submit(() -> extractScriptFromHTML(url, fSourceExtractor).fst));
+      }
+      Map<URL, Set<MappedSourceModule>> result = new LinkedHashMap<>();
+      for (Map.Entry<URL, Future<Set<MappedSourceModule>>> e : futures.entrySet()) {
+        result.put(e.getKey(), e.getValue().get());
+      }
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   public static void main(String[] args) throws MalformedURLException, Error {
     System.err.println(
         extractScriptFromHTML(
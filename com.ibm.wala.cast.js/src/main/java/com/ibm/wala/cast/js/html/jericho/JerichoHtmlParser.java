@@ -28,7 +28,9 @@ import net.htmlparser.jericho.Source;
 
 /** @author danielk Uses the Jericho parser to go over the HTML */
 public class JerichoHtmlParser implements IHtmlParser {
-  static Set<Warning> warnings = HashSetFactory.make();
+  /** problems reported by Jericho, per thread so that pages can be parsed concurrently */
+  private static final ThreadLocal<Set<Warning>> warnings =
+      ThreadLocal.withInitial(HashSetFactory::make);
 
   static {
     class CAstLoggerProvider implements LoggerProvider {
@@ -44,13 +46,15 @@ public class JerichoHtmlParser implements IHtmlParser {
 
           @Override
           public void error(final String arg0) {
-            warnings.add(
-                new Warning() {
-                  @Override
-                  public String getMsg() {
-                    return arg0;
-                  }
-                });
+            warnings
+                .get()
+                .add(
+                    new Warning() {
+                      @Override
+                      public String getMsg() {
+                        return arg0;
+                      }
+                    });
           }
 
           @Override
@@ -96,6 +100,7 @@ public class JerichoHtmlParser implements IHtmlParser {
   @Override
   public void parse(URL url, Reader reader, IHtmlCallback callback, String fileName)
       throws TranslatorToCAst.Error {
+    Set<Warning> warnings = JerichoHtmlParser.warnings.get();
     warnings.clear();
     Parser parser = new Parser(callback, fileName);
     Source src;
@@ -107,7 +112,7 @@ public class JerichoHtmlParser implements IHtmlParser {
         parser.parse(e);
       }
       if (!warnings.isEmpty()) {
-        throw new TranslatorToCAst.Error(warnings);
+        throw new TranslatorToCAst.Error(HashSetFactory.make(warnings));
       }
     } catch (IOException e) {
       System.err.println("Error parsing file: " + e.getMessage());
@@ -911,50 +911,56 @@ public class JSSSAPropagationCallGraphBuilder extends AstSSAPropagationCallGraph
 
     }
 
-    private final UnaryOperator<PointsToSetVariable> transitivePrototypeOp =
-        new UnaryOperator<PointsToSetVariable>() {
-          @Override
-          public byte evaluate(final PointsToSetVariable lhs, PointsToSetVariable rhs) {
-            class Op implements IntSetAction {
-              private boolean changed = false;
-
-              @Override
-              public void act(int x) {
-                InstanceKey protoObj = system.getInstanceKey(x);
-                PointerKey protoObjKey = new TransitivePrototypeKey(protoObj);
-                changed |=
-                    system.newStatement(
-                        lhs,
-                        assignOperator,
-                        system.findOrCreatePointsToSet(protoObjKey),
-                        true,
-                        true);
-              }
-            }
+    /**
+     * adds the transitive prototypes of each object flowing into the rhs to the lhs. The transitive
+     * prototypes of an object are kept once, in its {@link TransitivePrototypeKey}, and shared by
+     * all lookups on it, so each object only needs to be connected to the lhs once; an operator
+     * instance is therefore used for one statement only, and remembers the objects it has already
+     * connected.
+     */
+    private final class TransitivePrototypeOp extends UnaryOperator<PointsToSetVariable> {
+      private final MutableIntSet previous = IntSetUtil.make();
 
-            if (rhs.getValue() != null) {
-              Op op = new Op();
-              rhs.getValue().foreach(op);
-              return (op.changed ? CHANGED : NOT_CHANGED);
-            }
-            return NOT_CHANGED;
-          }
+      @Override
+      public byte evaluate(final PointsToSetVariable lhs, PointsToSetVariable rhs) {
+        class Op implements IntSetAction {
+          private boolean changed = false;
 
           @Override
-          public int hashCode() {
-            return -896435647;
+          public void act(int x) {
+            InstanceKey protoObj = system.getInstanceKey(x);
+            PointerKey protoObjKey = new TransitivePrototypeKey(protoObj);
+            getBuilder().getPropertyConstraintStatistics().recordPrototypeConstraint();
+            changed |=
+                system.newStatement(
+                    lhs, assignOperator, system.findOrCreatePointsToSet(protoObjKey), true, true);
           }
+        }
 
-          @Override
-          public boolean equals(Object o) {
-            return o == this;
-          }
+        if (rhs.getValue() != null) {
+          Op op = new Op();
+          rhs.getValue().foreachExcluding(previous, op);
+          previous.addAll(rhs.getValue());
+          return (op.changed ? CHANGED : NOT_CHANGED);
+        }
+        return NOT_CHANGED;
+      }
 
-          @Override
-          public String toString() {
-            return "transitivePrototypeOp";
-          }
-        };
+      @Override
+      public int hashCode() {
+        return System.identityHashCode(this);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+        return o == this;
+      }
+
+      @Override
+      public String toString() {
+        return "transitivePrototypeOp";
+      }
+    }
 
     @Override
     public void visitSetPrototype(SetPrototype instruction) {
@@ -966,6 +972,7 @@ public class JSSSAPropagationCallGraphBuilder extends AstSSAPropagationCallGraph
           PointerKey newObjKey = new TransitivePrototypeKey(newObj);
           for (InstanceKey protoObj : getInvariantContents(instruction.getUse(1))) {
             system.newConstraint(newObjKey, protoObj);
+            getBuilder().getPropertyConstraintStatistics().recordPrototypeConstraint();
             system.newConstraint(newObjKey, assignOperator, new TransitivePrototypeKey(protoObj));
           }
         }
@@ -975,7 +982,7 @@ public class JSSSAPropagationCallGraphBuilder extends AstSSAPropagationCallGraph
           system.newConstraint(
               newObjKey, assignOperator, getPointerKeyForLocal(instruction.getUse(1)));
           system.newConstraint(
-              newObjKey, transitivePrototypeOp, getPointerKeyForLocal(instruction.getUse(1)));
+              newObjKey, new TransitivePrototypeOp(), getPointerKeyForLocal(instruction.getUse(1)));
         }
       }
     }
@@ -988,6 +995,7 @@ public class JSSSAPropagationCallGraphBuilder extends AstSSAPropagationCallGraph
           system.newConstraint(getPointerKeyForLocal(instruction.getDef(0)), rhsObj);
 
           // ...or prototype objects
+          getBuilder().getPropertyConstraintStatistics().recordPrototypeConstraint();
           system.newConstraint(
               getPointerKeyForLocal(instruction.getDef(0)),
               assignOperator,
@@ -1003,7 +1011,7 @@ public class JSSSAPropagationCallGraphBuilder extends AstSSAPropagationCallGraph
         // ...or prototype objects
         system.newConstraint(
             getPointerKeyForLocal(instruction.getDef(0)),
-            transitivePrototypeOp,
+            new TransitivePrototypeOp(),
             getPointerKeyForLocal(instruction.getUse(0)));
       }
     }
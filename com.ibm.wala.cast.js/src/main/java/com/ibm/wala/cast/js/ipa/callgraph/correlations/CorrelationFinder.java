@@ -77,12 +77,32 @@ public class CorrelationFinder {
   private static final boolean TRACK_ESCAPES = true;
   private static final boolean IGNORE_NUMERIC_INDICES = false;
 
+  /**
+   * functions with more (non-SSA) instructions than this are not searched for correlations. Leaving
+   * the correlations of a function out only means none of its code is extracted into closures, so
+   * the call graph remains sound, if less precise.
+   */
+  public static int MAX_FUNCTION_SIZE = Integer.MAX_VALUE;
+
+  /**
+   * functions with more correlations than this have none of them kept, to bound the code growth of
+   * extracting them all
+   */
+  public static int MAX_FUNCTION_CORRELATIONS = Integer.MAX_VALUE;
+
   private final JavaScriptTranslatorFactory translatorFactory;
 
+  private final CorrelationStatistics statistics = new CorrelationStatistics();
+
   public CorrelationFinder(JavaScriptTranslatorFactory translatorFactory) {
     this.translatorFactory = translatorFactory;
   }
 
+  /** @return the work done by this finder so far */
+  public CorrelationStatistics getStatistics() {
+    return statistics;
+  }
+
   @SuppressWarnings("unused")
   public static CorrelationSummary findCorrelatedAccesses(IMethod method, IR ir) {
     AstMethod astMethod = (AstMethod) method;
@@ -292,9 +312,20 @@ public class CorrelationFinder {
     Map<IMethod, CorrelationSummary> correlations = HashMapFactory.make();
     for (IClass klass : cha) {
       for (IMethod method : klass.getAllMethods()) {
+        long start = System.nanoTime();
+        if (((AstMethod) method).cfg().getInstructions().length > MAX_FUNCTION_SIZE) {
+          statistics.recordSkippedFunction(System.nanoTime() - start);
+          continue;
+        }
         IR ir = factory.makeIR(method, Everywhere.EVERYWHERE, ssaOptions);
         CorrelationSummary summary = findCorrelatedAccesses(method, ir);
-        if (!summary.getCorrelations().isEmpty()) correlations.put(method, summary);
+        int size = summary.getCorrelations().size();
+        if (size > MAX_FUNCTION_CORRELATIONS) {
+          statistics.recordSkippedFunction(System.nanoTime() - start);
+          continue;
+        }
+        statistics.recordFunction(System.nanoTime() - start, size);
+        if (size > 0) correlations.put(method, summary);
       }
     }
 
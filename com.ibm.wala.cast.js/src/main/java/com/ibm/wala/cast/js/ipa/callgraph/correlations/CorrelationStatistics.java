@@ -0,0 +1,101 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.cast.js.ipa.callgraph.correlations;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the work done to find correlated pairs with a {@link CorrelationFinder} and to extract
+ * them into closures with a {@code ClosureExtractor}. Scripts may be rewritten concurrently, so all
+ * counters are atomic.
+ */
+public final class CorrelationStatistics {
+  private final AtomicLong functions = new AtomicLong();
+  private final AtomicLong skippedFunctions = new AtomicLong();
+  private final AtomicLong correlations = new AtomicLong();
+  private final AtomicLong findingNanos = new AtomicLong();
+
+  private final AtomicLong extractedClosures = new AtomicLong();
+  private final AtomicLong nodesBefore = new AtomicLong();
+  private final AtomicLong nodesAfter = new AtomicLong();
+  private final AtomicLong extractionNanos = new AtomicLong();
+
+  /** record that a function was searched, and how many correlations were kept for it */
+  public void recordFunction(long nanos, int correlations) {
+    functions.incrementAndGet();
+    this.correlations.addAndGet(correlations);
+    findingNanos.addAndGet(nanos);
+  }
+
+  /** record that a function exceeded the budget, so none of its correlations are kept */
+  public void recordSkippedFunction(long nanos) {
+    functions.incrementAndGet();
+    skippedFunctions.incrementAndGet();
+    findingNanos.addAndGet(nanos);
+  }
+
+  /** record the rewriting of one script, which grew from nodesBefore to nodesAfter CAst nodes */
+  public void recordExtraction(long nanos, int closures, int nodesBefore, int nodesAfter) {
+    extractedClosures.addAndGet(closures);
+    this.nodesBefore.addAndGet(nodesBefore);
+    this.nodesAfter.addAndGet(nodesAfter);
+    extractionNanos.addAndGet(nanos);
+  }
+
+  /** @return the number of functions searched for correlations, including skipped ones */
+  public long getFunctions() {
+    return functions.get();
+  }
+
+  /** @return the number of functions whose correlations were dropped for exceeding the budget */
+  public long getSkippedFunctions() {
+    return skippedFunctions.get();
+  }
+
+  /** @return the number of correlations kept */
+  public long getCorrelations() {
+    return correlations.get();
+  }
+
+  public long getFindingNanos() {
+    return findingNanos.get();
+  }
+
+  /** @return the number of closures the rewritten scripts have been extracted into */
+  public long getExtractedClosures() {
+    return extractedClosures.get();
+  }
+
+  /** @return the number of CAst nodes of the scripts before they were rewritten */
+  public long getNodesBefore() {
+    return nodesBefore.get();
+  }
+
+  /** @return the number of CAst nodes of the scripts after they were rewritten */
+  public long getNodesAfter() {
+    return nodesAfter.get();
+  }
+
+  public long getExtractionNanos() {
+    return extractionNanos.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d functions (%d skipped), %d correlations in %d ms; "
+            + "%d closures extracted, %d -> %d nodes in %d ms",
+        getFunctions(),
+        getSkippedFunctions(),
+        getCorrelations(),
+        getFindingNanos() / 1000000,
+        getExtractedClosures(),
+        getNodesBefore(),
+        getNodesAfter(),
+        getExtractionNanos() / 1000000);
+  }
+}
@@ -30,6 +30,7 @@ import static com.ibm.wala.cast.tree.CAstNode.RETURN;
 import static com.ibm.wala.cast.tree.CAstNode.TRY;
 import static com.ibm.wala.cast.tree.CAstNode.VAR;
 
+import com.ibm.wala.cast.js.ipa.callgraph.correlations.CorrelationStatistics;
 import com.ibm.wala.cast.js.translator.JSAstTranslator;
 import com.ibm.wala.cast.js.types.JavaScriptTypes;
 import com.ibm.wala.cast.tree.CAst;
@@ -194,9 +195,53 @@ public class ClosureExtractor extends CAstRewriterExt {
 
   private final NodeLabeller labeller = new NodeLabeller();
 
+  // where to record the work done, or null
+  private final CorrelationStatistics statistics;
+
   public ClosureExtractor(CAst Ast, ExtractionPolicyFactory policyFactory) {
+    this(Ast, policyFactory, null);
+  }
+
+  public ClosureExtractor(
+      CAst Ast, ExtractionPolicyFactory policyFactory, CorrelationStatistics statistics) {
     super(Ast, true, new RootPos());
     this.policyFactory = policyFactory;
+    this.statistics = statistics;
+  }
+
+  @Override
+  public CAstEntity rewrite(CAstEntity root) {
+    // only measure the outermost entity, which includes its nested ones
+    if (statistics == null || !policies.isEmpty()) {
+      return super.rewrite(root);
+    }
+    long start = System.nanoTime();
+    int closures = anonymous_counter;
+    CAstEntity entity = super.rewrite(root);
+    statistics.recordExtraction(
+        System.nanoTime() - start, anonymous_counter - closures, size(root), size(entity));
+    return entity;
+  }
+
+  // the number of CAst nodes of entity and its nested entities
+  private static int size(CAstEntity entity) {
+    int size = entity.getAST() == null ? 0 : size(entity.getAST());
+    for (Collection<CAstEntity> scoped : entity.getAllScopedEntities().values()) {
+      for (CAstEntity e : scoped) {
+        size += size(e);
+      }
+    }
+    return size;
+  }
+
+  private static int size(CAstNode node) {
+    int size = 1;
+    for (CAstNode child : node.getChildren()) {
+      if (child != null) {
+        size += size(child);
+      }
+    }
+    return size;
   }
 
   @Override
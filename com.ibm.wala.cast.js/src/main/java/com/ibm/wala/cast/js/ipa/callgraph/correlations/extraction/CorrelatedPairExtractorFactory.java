@@ -12,6 +12,7 @@
 package com.ibm.wala.cast.js.ipa.callgraph.correlations.extraction;
 
 import com.ibm.wala.cast.js.ipa.callgraph.correlations.CorrelationFinder;
+import com.ibm.wala.cast.js.ipa.callgraph.correlations.CorrelationStatistics;
 import com.ibm.wala.cast.js.ipa.callgraph.correlations.CorrelationSummary;
 import com.ibm.wala.cast.js.translator.JavaScriptTranslatorFactory;
 import com.ibm.wala.cast.tree.CAst;
@@ -26,21 +27,43 @@ import java.util.Map;
 
 public class CorrelatedPairExtractorFactory implements CAstRewriterFactory<NodePos, NoKey> {
   private final Map<IMethod, CorrelationSummary> summaries;
+  private final CorrelationStatistics statistics;
 
   public CorrelatedPairExtractorFactory(
       JavaScriptTranslatorFactory translatorFactory, URL entryPoint)
       throws ClassHierarchyException {
-    this(new CorrelationFinder(translatorFactory).findCorrelatedAccesses(entryPoint));
+    this(new CorrelationFinder(translatorFactory), entryPoint);
   }
 
   public CorrelatedPairExtractorFactory(
       JavaScriptTranslatorFactory translatorFactory, SourceModule[] scripts)
       throws ClassHierarchyException {
-    this(new CorrelationFinder(translatorFactory).findCorrelatedAccesses(scripts));
+    this(new CorrelationFinder(translatorFactory), scripts);
+  }
+
+  private CorrelatedPairExtractorFactory(CorrelationFinder finder, URL entryPoint)
+      throws ClassHierarchyException {
+    this(finder.findCorrelatedAccesses(entryPoint), finder.getStatistics());
+  }
+
+  private CorrelatedPairExtractorFactory(CorrelationFinder finder, SourceModule[] scripts)
+      throws ClassHierarchyException {
+    this(finder.findCorrelatedAccesses(scripts), finder.getStatistics());
   }
 
   public CorrelatedPairExtractorFactory(Map<IMethod, CorrelationSummary> summaries) {
+    this(summaries, new CorrelationStatistics());
+  }
+
+  public CorrelatedPairExtractorFactory(
+      Map<IMethod, CorrelationSummary> summaries, CorrelationStatistics statistics) {
     this.summaries = summaries;
+    this.statistics = statistics;
+  }
+
+  /** @return the work done finding the correlations and extracting them so far */
+  public CorrelationStatistics getStatistics() {
+    return statistics;
   }
 
   @Override
@@ -55,6 +78,6 @@ public class CorrelatedPairExtractorFactory implements CAstRewriterFactory<NodeP
             return policy;
           }
         };
-    return new ClosureExtractor(ast, policyFactory);
+    return new ClosureExtractor(ast, policyFactory, statistics);
   }
 }
@@ -0,0 +1,158 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.cast.js.translator;
+
+import com.ibm.wala.cast.ir.translator.TranslatorToCAst;
+import com.ibm.wala.cast.tree.CAst;
+import com.ibm.wala.cast.tree.CAstEntity;
+import com.ibm.wala.cast.tree.impl.CAstImpl;
+import com.ibm.wala.cast.tree.rewrite.CAstRewriter.CopyKey;
+import com.ibm.wala.cast.tree.rewrite.CAstRewriter.RewriteContext;
+import com.ibm.wala.cast.tree.rewrite.CAstRewriterFactory;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.classLoader.SourceModule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link JavaScriptTranslatorFactory} that remembers the CAst produced by another factory for
+ * each script, keyed by the location and a hash of the contents of the script. Scripts that are
+ * loaded again unchanged, e.g. the prologue or a library shared by many pages, are then not parsed
+ * and translated again.
+ *
+ * <p>Only the translation done by the underlying factory is cached. Rewriters added to the
+ * translators made by this factory, such as the correlation extraction of the {@code
+ * JavaScriptLoader}, still run every time, since their output may depend on the analysis.
+ *
+ * <p>To share the cache between analyses, keep using the same instance of this factory, e.g. by
+ * passing it to {@code JSCallGraphUtil.setTranslatorFactory} once. Cached trees are held softly, so
+ * they are dropped when memory gets short.
+ */
+public class CachingJavaScriptTranslatorFactory implements JavaScriptTranslatorFactory {
+
+  private final JavaScriptTranslatorFactory base;
+
+  private final Map<String, SoftReference<CAstEntity>> cache = new ConcurrentHashMap<>();
+
+  private final AtomicInteger hits = new AtomicInteger();
+
+  private final AtomicInteger misses = new AtomicInteger();
+
+  public CachingJavaScriptTranslatorFactory(JavaScriptTranslatorFactory base) {
+    this.base = base;
+  }
+
+  @Override
+  public TranslatorToCAst make(CAst ast, ModuleEntry M) {
+    return new CachingTranslator(ast, M);
+  }
+
+  /** @return how many scripts were found in the cache */
+  public int getHits() {
+    return hits.get();
+  }
+
+  /** @return how many scripts had to be translated */
+  public int getMisses() {
+    return misses.get();
+  }
+
+  /** drop all cached translations */
+  public void clear() {
+    cache.clear();
+  }
+
+  /** Looks up the translation in the cache, and then applies the rewriters added to it. */
+  private class CachingTranslator implements TranslatorToCAst {
+    private final CAst ast;
+    private final ModuleEntry M;
+    private final List<CAstRewriterFactory<?, ?>> rewriters = new ArrayList<>();
+
+    private CachingTranslator(CAst ast, ModuleEntry M) {
+      this.ast = ast;
+      this.M = M;
+    }
+
+    @Override
+    public <C extends RewriteContext<K>, K extends CopyKey<K>> void addRewriter(
+        CAstRewriterFactory<C, K> factory, boolean prepend) {
+      if (prepend) rewriters.add(0, factory);
+      else rewriters.add(factory);
+    }
+
+    @Override
+    public CAstEntity translateToCAst() throws IOException, Error {
+      CAstEntity entity = translateCached();
+      if (entity != null && !rewriters.isEmpty()) {
+        CAstImpl Ast = new CAstImpl();
+        for (CAstRewriterFactory<?, ?> rwf : rewriters) {
+          entity = rwf.createCAstRewriter(Ast).rewrite(entity);
+        }
+      }
+      return entity;
+    }
+
+    private CAstEntity translateCached() throws IOException, Error {
+      String key = key(M);
+      SoftReference<CAstEntity> cached = cache.get(key);
+      CAstEntity entity = cached == null ? null : cached.get();
+      if (entity != null) {
+        hits.incrementAndGet();
+        return entity;
+      }
+
+      misses.incrementAndGet();
+      entity = base.make(ast, M).translateToCAst();
+      if (entity != null) {
+        cache.put(key, new SoftReference<>(entity));
+      }
+      return entity;
+    }
+  }
+
+  /**
+   * The source positions in the CAst refer to the location of the script, so two scripts with the
+   * same contents at different locations do not share a translation.
+   */
+  private static String key(ModuleEntry M) throws IOException {
+    URL url = M instanceof SourceModule ? ((SourceModule) M).getURL() : null;
+    StringBuilder key = new StringBuilder(url != null ? url.toString() : M.getName()).append('#');
+    for (byte b : digest(url != null ? url.openStream() : M.getInputStream())) {
+      key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return key.toString();
+  }
+
+  /**
+   * Modules such as the prologue hand out a single stream, which the translator still has to read,
+   * so the contents are read from the URL whenever there is one.
+   */
+  private static byte[] digest(InputStream contents) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    try (InputStream in = contents) {
+      byte[] buf = new byte[8192];
+      for (int n; (n = in.read(buf)) != -1; ) {
+        digest.update(buf, 0, n);
+      }
+    }
+    return digest.digest();
+  }
+}
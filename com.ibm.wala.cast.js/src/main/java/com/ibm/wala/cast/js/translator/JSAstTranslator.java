@@ -49,6 +49,15 @@ public class JSAstTranslator extends AstTranslator {
     super(loader);
   }
 
+  /**
+   * The hooks below only add to the CFG and scopes of the given context, and reach the loader
+   * through {@link #declareFunction} and {@link #defineFunction}.
+   */
+  @Override
+  protected boolean supportsConcurrentTranslation() {
+    return true;
+  }
+
   private static boolean isPrologueScript(WalkContext context) {
     return JavaScriptLoader.bootstrapFileNames.contains(context.getModule().getName());
   }
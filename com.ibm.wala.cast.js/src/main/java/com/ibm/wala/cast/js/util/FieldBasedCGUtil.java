@@ -12,10 +12,12 @@ package com.ibm.wala.cast.js.util;
 
 import com.ibm.wala.cast.ipa.callgraph.CAstAnalysisScope;
 import com.ibm.wala.cast.ir.ssa.AstIRFactory;
+import com.ibm.wala.cast.js.callgraph.fieldbased.DemandDrivenCallGraphQuery;
 import com.ibm.wala.cast.js.callgraph.fieldbased.FieldBasedCallGraphBuilder;
 import com.ibm.wala.cast.js.callgraph.fieldbased.FieldBasedCallGraphBuilder.CallGraphResult;
 import com.ibm.wala.cast.js.callgraph.fieldbased.OptimisticCallgraphBuilder;
 import com.ibm.wala.cast.js.callgraph.fieldbased.PessimisticCallGraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.SCCOptimisticCallgraphBuilder;
 import com.ibm.wala.cast.js.callgraph.fieldbased.WorklistBasedOptimisticCallgraphBuilder;
 import com.ibm.wala.cast.js.html.JSSourceExtractor;
 import com.ibm.wala.cast.js.html.WebPageLoaderFactory;
@@ -87,6 +89,18 @@ public class FieldBasedCGUtil {
         return new WorklistBasedOptimisticCallgraphBuilder(
             cha, makeOptions, cache, supportFullPointerAnalysis);
       }
+    },
+
+    OPTIMISTIC_SCC {
+      @Override
+      protected FieldBasedCallGraphBuilder fieldBasedCallGraphBuilderFactory(
+          IClassHierarchy cha,
+          JSAnalysisOptions makeOptions,
+          IAnalysisCacheView cache,
+          boolean supportFullPointerAnalysis) {
+        return new SCCOptimisticCallgraphBuilder(
+            cha, makeOptions, cache, supportFullPointerAnalysis);
+      }
     };
 
     protected abstract FieldBasedCallGraphBuilder fieldBasedCallGraphBuilderFactory(
@@ -207,6 +221,25 @@ public class FieldBasedCGUtil {
     return builder.buildCallGraph(roots, monitor);
   }
 
+  /**
+   * Set up demand-driven call graph queries for the script at url, rather than building its call
+   * graph
+   */
+  public DemandDrivenCallGraphQuery makeDemandDrivenQuery(URL url) throws WalaException {
+    JavaScriptLoaderFactory loaders = new JavaScriptLoaderFactory(translatorFactory);
+    Module[] scripts =
+        new Module[] {new SourceURLModule(url), JSCallGraphUtil.getPrologueFile("prologue.js")};
+    CAstAnalysisScope scope =
+        new CAstAnalysisScope(scripts, loaders, Collections.singleton(JavaScriptLoader.JS));
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope, loaders, JavaScriptLoader.JS);
+    com.ibm.wala.cast.util.Util.checkForFrontEndErrors(cha);
+    Iterable<Entrypoint> roots = JSCallGraphUtil.makeScriptRoots(cha);
+    IAnalysisCacheView cache = new AnalysisCacheImpl(AstIRFactory.makeDefaultFactory());
+    return new OptimisticCallgraphBuilder(
+            cha, JSCallGraphUtil.makeOptions(scope, cha, roots), cache, false)
+        .makeDemandDrivenQuery();
+  }
+
   /*
   private JavaScriptLoaderFactory makeLoaderFactory(URL url) {
   	return url.getFile().endsWith(".js") ? new JavaScriptLoaderFactory(translatorFactory) : new WebPageLoaderFactory(translatorFactory);
@@ -12,10 +12,20 @@ package com.ibm.wala.cast.js.test;
 
 import com.ibm.wala.cast.ir.translator.TranslatorToCAst.Error;
 import com.ibm.wala.cast.js.html.DefaultSourceExtractor;
+import com.ibm.wala.cast.js.html.JSSourceExtractor;
 import com.ibm.wala.cast.js.html.MappedSourceModule;
+import com.ibm.wala.cast.js.html.MappedSourceStringModule;
 import com.ibm.wala.cast.js.html.WebUtil;
 import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.io.Streams;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.junit.Assert;
 import org.junit.Test;
@@ -39,4 +49,58 @@ public class TestWebUtil extends WalaTestCase {
         WebUtil.extractScriptFromHTML(url, DefaultSourceExtractor.factory).fst;
     Assert.assertNotNull(mod);
   }
+
+  @Test
+  public void testInMemoryExtraction() throws Error, IOException {
+    URL url = getClass().getClassLoader().getResource("ajaxslt/test/xslt.html");
+    Assert.assertNotNull(url);
+    Set<MappedSourceModule> onDisk =
+        WebUtil.extractScriptFromHTML(url, DefaultSourceExtractor.factory).fst;
+
+    JSSourceExtractor.USE_TEMP_FILE = false;
+    Pair<Set<MappedSourceModule>, File> inMemory;
+    try {
+      inMemory = WebUtil.extractScriptFromHTML(url, DefaultSourceExtractor.factory);
+    } finally {
+      JSSourceExtractor.USE_TEMP_FILE = true;
+    }
+    Assert.assertNull(inMemory.snd);
+    Assert.assertEquals(1, inMemory.fst.size());
+    MappedSourceModule module = inMemory.fst.iterator().next();
+    Assert.assertTrue(module instanceof MappedSourceStringModule);
+    Assert.assertEquals(
+        read(onDisk.iterator().next().getInputStream()), read(module.getInputStream()));
+    Assert.assertEquals(read(module.getInputStream()), read(module.getURL().openStream()));
+  }
+
+  @Test
+  public void testConcurrentExtraction() throws Error, IOException {
+    ClassLoader loader = getClass().getClassLoader();
+    List<URL> urls =
+        Arrays.asList(
+            loader.getResource("ajaxslt/test/xslt.html"),
+            loader.getResource("ajaxslt/test/xpath.html"));
+
+    JSSourceExtractor.USE_TEMP_FILE = false;
+    Map<URL, Set<MappedSourceModule>> pages;
+    try {
+      pages = WebUtil.extractScriptsFromHTML(urls, DefaultSourceExtractor.factory, 2);
+    } finally {
+      JSSourceExtractor.USE_TEMP_FILE = true;
+    }
+    Assert.assertEquals(urls, Arrays.asList(pages.keySet().toArray()));
+    for (URL url : urls) {
+      Set<MappedSourceModule> expected =
+          WebUtil.extractScriptFromHTML(url, DefaultSourceExtractor.factory).fst;
+      Assert.assertEquals(
+          read(expected.iterator().next().getInputStream()),
+          read(pages.get(url).iterator().next().getInputStream()));
+    }
+  }
+
+  private static String read(InputStream in) throws IOException {
+    try (InputStream s = in) {
+      return new String(Streams.inputStream2ByteArray(s));
+    }
+  }
 }
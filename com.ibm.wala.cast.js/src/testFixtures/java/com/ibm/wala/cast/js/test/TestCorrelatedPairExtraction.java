@@ -647,4 +647,44 @@ public abstract class TestCorrelatedPairExtraction {
             + "  }"
             + "}");
   }
+
+  private static final String EXTEND =
+      "function extend(dest, src) {\n"
+          + "  for(var p in src) {\n"
+          + "    dest[p] = src[p];\n"
+          + "  }\n"
+          + "}";
+
+  // functions over the correlation budget are left alone
+  @Test
+  public void testCorrelationBudget() {
+    int max = CorrelationFinder.MAX_FUNCTION_CORRELATIONS;
+    CorrelationFinder.MAX_FUNCTION_CORRELATIONS = 0;
+    try {
+      testRewriter(EXTEND, EXTEND);
+    } finally {
+      CorrelationFinder.MAX_FUNCTION_CORRELATIONS = max;
+    }
+  }
+
+  // functions over the size budget are left alone
+  @Test
+  public void testSizeBudget() throws IOException, ClassHierarchyException {
+    int max = CorrelationFinder.MAX_FUNCTION_SIZE;
+    CorrelationFinder.MAX_FUNCTION_SIZE = 1;
+    File tmp = File.createTempFile("test", ".js");
+    try {
+      FileUtil.writeFile(tmp, EXTEND);
+      CorrelationFinder finder = makeCorrelationFinder();
+      Map<IMethod, CorrelationSummary> summaries =
+          finder.findCorrelatedAccesses(
+              Collections.singleton(new SourceURLModule(tmp.toURI().toURL())));
+      Assert.assertTrue(summaries.isEmpty());
+      Assert.assertTrue(finder.getStatistics().getSkippedFunctions() > 0);
+      Assert.assertEquals(0, finder.getStatistics().getCorrelations());
+    } finally {
+      CorrelationFinder.MAX_FUNCTION_SIZE = max;
+      tmp.delete();
+    }
+  }
 }
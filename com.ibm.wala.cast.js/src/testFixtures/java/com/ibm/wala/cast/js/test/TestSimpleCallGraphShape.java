@@ -11,8 +11,11 @@
 package com.ibm.wala.cast.js.test;
 
 import com.ibm.wala.cast.ipa.callgraph.CAstCallGraphUtil;
+import com.ibm.wala.cast.ipa.callgraph.PropertyConstraintStatistics;
+import com.ibm.wala.cast.ir.translator.AstTranslator;
 import com.ibm.wala.cast.js.ipa.callgraph.JSCFABuilder;
 import com.ibm.wala.cast.js.ipa.callgraph.PropertyNameContextSelector;
+import com.ibm.wala.cast.js.types.JavaScriptTypes;
 import com.ibm.wala.cast.js.util.JSCallGraphBuilderUtil;
 import com.ibm.wala.core.util.ProgressMaster;
 import com.ibm.wala.ipa.callgraph.CGNode;
@@ -28,6 +31,7 @@ import com.ibm.wala.util.NullProgressMonitor;
 import com.ibm.wala.util.WalaException;
 import com.ibm.wala.util.collections.Iterator2Collection;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Ignore;
@@ -240,6 +244,18 @@ public abstract class TestSimpleCallGraphShape extends TestJSCallGraphShape {
     verifyGraphAssertions(CG, assertionsForForin);
   }
 
+  @Test
+  public void testPropertyConstraintStatistics()
+      throws IOException, IllegalArgumentException, CancelException, WalaException {
+    JSCFABuilder B = JSCallGraphBuilderUtil.makeScriptCGBuilder("tests", "forin.js");
+    CallGraph CG = B.makeCallGraph(B.getOptions());
+    verifyGraphAssertions(CG, assertionsForForin);
+
+    PropertyConstraintStatistics statistics = B.getPropertyConstraintStatistics();
+    Assert.assertTrue(statistics.toString(), statistics.getReflectedFieldKeys() > 0);
+    Assert.assertTrue(statistics.toString(), statistics.getPrototypeConstraints() > 0);
+  }
+
   private static final Object[][] assertionsForSimpleLexical =
       new Object[][] {
         new Object[] {ROOT, new String[] {"simple-lexical.js"}},
@@ -270,6 +286,38 @@ public abstract class TestSimpleCallGraphShape extends TestJSCallGraphShape {
     verifyGraphAssertions(CG, assertionsForSimpleLexical);
   }
 
+  @Test
+  public void testParallelIRTranslation()
+      throws IOException, IllegalArgumentException, CancelException, WalaException {
+    int threads = AstTranslator.FUNCTION_TRANSLATION_THREADS;
+    List<String> sequential =
+        jsClasses(JSCallGraphBuilderUtil.makeScriptCG("tests", "simple-lexical.js"));
+    AstTranslator.FUNCTION_TRANSLATION_THREADS = 4;
+    try {
+      CallGraph CG = JSCallGraphBuilderUtil.makeScriptCG("tests", "simple-lexical.js");
+      verifyGraphAssertions(CG, assertionsForSimpleLexical);
+
+      // the loader gets the functions in the same order as a sequential translation, in every run
+      Assert.assertEquals(sequential, jsClasses(CG));
+      for (int i = 0; i < 3; i++) {
+        Assert.assertEquals(
+            sequential,
+            jsClasses(JSCallGraphBuilderUtil.makeScriptCG("tests", "simple-lexical.js")));
+      }
+    } finally {
+      AstTranslator.FUNCTION_TRANSLATION_THREADS = threads;
+    }
+  }
+
+  private static List<String> jsClasses(CallGraph CG) {
+    List<String> names = new ArrayList<>();
+    CG.getClassHierarchy()
+        .getLoader(JavaScriptTypes.jsLoader)
+        .iterateAllClasses()
+        .forEachRemaining(c -> names.add(c.getName().toString()));
+    return names;
+  }
+
   @Test
   public void testRecursiveLexical()
       throws IOException, IllegalArgumentException, CancelException, WalaException {
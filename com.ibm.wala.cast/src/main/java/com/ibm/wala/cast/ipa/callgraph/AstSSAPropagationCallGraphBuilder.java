@@ -125,6 +125,14 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
     super(fakeRootClass, options, cache, pointerKeyFactory);
   }
 
+  private final PropertyConstraintStatistics propertyStatistics =
+      new PropertyConstraintStatistics();
+
+  /** @return counts of the constraints generated so far for property accesses */
+  public PropertyConstraintStatistics getPropertyConstraintStatistics() {
+    return propertyStatistics;
+  }
+
   public SSAContextInterpreter makeDefaultContextInterpreters(
       SSAContextInterpreter appContextInterpreter, AnalysisOptions options, IClassHierarchy cha) {
     SSAContextInterpreter c = new DefaultSSAInterpreter(options, getAnalysisCache());
@@ -509,6 +517,7 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
           if (!getBuilder().isUncataloguedField(key.getConcreteType(), fieldName)) {
             PointerKey objCatalog = getPointerKeyForObjectCatalog(key);
             if (objCatalog != null) {
+              getBuilder().getPropertyConstraintStatistics().recordCatalogConstraint();
               system.newConstraint(objCatalog, fieldNameKeys[0]);
             }
           }
@@ -518,22 +527,29 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
         final String hack = fieldName;
         system.newSideEffect(
             new UnaryOperator<PointsToSetVariable>() {
+              private final MutableIntSet previous = IntSetUtil.make();
+
               @Override
               public byte evaluate(PointsToSetVariable lhs, PointsToSetVariable rhs) {
                 final IntSetVariable<?> objects = rhs;
                 if (objects.getValue() != null) {
                   objects
                       .getValue()
-                      .foreach(
+                      .foreachExcluding(
+                          previous,
                           optr -> {
                             InstanceKey object = system.getInstanceKey(optr);
                             if (!getBuilder().isUncataloguedField(object.getConcreteType(), hack)) {
                               PointerKey cat = getPointerKeyForObjectCatalog(object);
                               if (cat != null) {
+                                getBuilder()
+                                    .getPropertyConstraintStatistics()
+                                    .recordCatalogConstraint();
                                 system.newConstraint(cat, fieldNameKeys[0]);
                               }
                             }
                           });
+                  previous.addAll(objects.getValue());
                 }
                 return NOT_CHANGED;
               }
@@ -580,13 +596,16 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
       } else {
         system.newSideEffect(
             new UnaryOperator<PointsToSetVariable>() {
+              private final MutableIntSet previous = IntSetUtil.make();
+
               @Override
               public byte evaluate(PointsToSetVariable lhs, PointsToSetVariable rhs) {
                 final IntSetVariable<?> objects = rhs;
                 if (objects.getValue() != null) {
                   objects
                       .getValue()
-                      .foreach(
+                      .foreachExcluding(
+                          previous,
                           optr -> {
                             InstanceKey object = system.getInstanceKey(optr);
                             PointerKey objCatalog = getPointerKeyForObjectCatalog(object);
@@ -594,6 +613,7 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
                               system.newConstraint(lk, assignOperator, objCatalog);
                             }
                           });
+                  previous.addAll(objects.getValue());
                 }
                 return NOT_CHANGED;
               }
@@ -988,11 +1008,33 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
         final ReflectedFieldAction action,
         PointerKey objKey,
         final PointerKey fieldKey) {
+      final PropertyConstraintStatistics statistics =
+          getBuilder().getPropertyConstraintStatistics();
+      statistics.recordFieldOperation(false, false);
       system.newSideEffect(
           new AbstractOperator<PointsToSetVariable>() {
             private final MutableIntSet doneReceiver = IntSetUtil.make();
             private final MutableIntSet doneField = IntSetUtil.make();
 
+            private void act(InstanceKey receiver, int fptr) {
+              InstanceKey field = system.getInstanceKey(fptr);
+              for (PointerKey pkey :
+                  Iterator2Iterable.make(
+                      isLoadOperation
+                          ? getPointerKeysForReflectedFieldRead(receiver, field)
+                          : getPointerKeysForReflectedFieldWrite(receiver, field))) {
+                AbstractFieldPointerKey key = (AbstractFieldPointerKey) pkey;
+                if (DEBUG_PROPERTIES) action.dump(key, false, false);
+                statistics.recordReflectedFieldKey();
+                action.action(key);
+              }
+            }
+
+            /*
+             * only pairs of receiver and field with at least one of them new since the last
+             * evaluation are processed: new receivers with all fields, and old receivers with new
+             * fields
+             */
             @Override
             public byte evaluate(PointsToSetVariable lhs, final PointsToSetVariable[] rhs) {
               final IntSetVariable<?> receivers = rhs[0];
@@ -1004,33 +1046,21 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
                         rptr -> {
                           final InstanceKey receiver = system.getInstanceKey(rptr);
 
-                          if (!isLoadOperation) {
-                            PointerKey cat = getPointerKeyForObjectCatalog(receiver);
-                            if (cat != null) {
-                              system.newConstraint(cat, assignOperator, fieldKey);
+                          if (!doneReceiver.contains(rptr)) {
+                            if (!isLoadOperation) {
+                              PointerKey cat = getPointerKeyForObjectCatalog(receiver);
+                              if (cat != null) {
+                                statistics.recordCatalogConstraint();
+                                system.newConstraint(cat, assignOperator, fieldKey);
+                              }
                             }
-                          }
 
-                          fields
-                              .getValue()
-                              .foreach(
-                                  fptr -> {
-                                    if (!doneField.contains(fptr) || !doneReceiver.contains(rptr)) {
-                                      InstanceKey field = system.getInstanceKey(fptr);
-                                      for (PointerKey pkey :
-                                          Iterator2Iterable.make(
-                                              isLoadOperation
-                                                  ? getPointerKeysForReflectedFieldRead(
-                                                      receiver, field)
-                                                  : getPointerKeysForReflectedFieldWrite(
-                                                      receiver, field))) {
-                                        AbstractFieldPointerKey key =
-                                            (AbstractFieldPointerKey) pkey;
-                                        if (DEBUG_PROPERTIES) action.dump(key, false, false);
-                                        action.action(key);
-                                      }
-                                    }
-                                  });
+                            fields.getValue().foreach(fptr -> act(receiver, fptr));
+                          } else {
+                            fields
+                                .getValue()
+                                .foreachExcluding(doneField, fptr -> act(receiver, fptr));
+                          }
                         });
                 doneReceiver.addAll(receivers.getValue());
                 doneField.addAll(fields.getValue());
@@ -1063,15 +1093,21 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
         final ReflectedFieldAction action,
         final PointerKey objKey,
         final InstanceKey[] fieldsKeys) {
+      final PropertyConstraintStatistics statistics =
+          getBuilder().getPropertyConstraintStatistics();
+      statistics.recordFieldOperation(false, true);
       system.newSideEffect(
           new UnaryOperator<PointsToSetVariable>() {
+            private final MutableIntSet previous = IntSetUtil.make();
+
             @Override
             public byte evaluate(PointsToSetVariable lhs, PointsToSetVariable rhs) {
               final IntSetVariable<?> objects = rhs;
               if (objects.getValue() != null) {
                 objects
                     .getValue()
-                    .foreach(
+                    .foreachExcluding(
+                        previous,
                         optr -> {
                           InstanceKey object = system.getInstanceKey(optr);
                           PointerKey objCatalog = getPointerKeyForObjectCatalog(object);
@@ -1082,10 +1118,12 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
                                       getPointerKeysForReflectedFieldRead(object, fieldsKey))) {
                                 AbstractFieldPointerKey key = (AbstractFieldPointerKey) pkey;
                                 if (DEBUG_PROPERTIES) action.dump(key, true, false);
+                                statistics.recordReflectedFieldKey();
                                 action.action(key);
                               }
                             } else {
                               if (objCatalog != null) {
+                                statistics.recordCatalogConstraint();
                                 system.newConstraint(objCatalog, fieldsKey);
                               }
                               for (PointerKey pkey :
@@ -1093,11 +1131,13 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
                                       getPointerKeysForReflectedFieldWrite(object, fieldsKey))) {
                                 AbstractFieldPointerKey key = (AbstractFieldPointerKey) pkey;
                                 if (DEBUG_PROPERTIES) action.dump(key, true, false);
+                                statistics.recordReflectedFieldKey();
                                 action.action(key);
                               }
                             }
                           }
                         });
+                previous.addAll(objects.getValue());
               }
               return NOT_CHANGED;
             }
@@ -1125,10 +1165,14 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
         final ReflectedFieldAction action,
         final PointerKey fieldKey,
         final InstanceKey[] objKeys) {
+      final PropertyConstraintStatistics statistics =
+          getBuilder().getPropertyConstraintStatistics();
+      statistics.recordFieldOperation(true, false);
       if (!isLoadOperation) {
         for (InstanceKey objKey : objKeys) {
           PointerKey objCatalog = getPointerKeyForObjectCatalog(objKey);
           if (objCatalog != null) {
+            statistics.recordCatalogConstraint();
             system.newConstraint(objCatalog, assignOperator, fieldKey);
           }
         }
@@ -1136,13 +1180,16 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
 
       system.newSideEffect(
           new UnaryOperator<PointsToSetVariable>() {
+            private final MutableIntSet previous = IntSetUtil.make();
+
             @Override
             public byte evaluate(PointsToSetVariable lhs, PointsToSetVariable rhs) {
               final IntSetVariable<?> fields = rhs;
               if (fields.getValue() != null) {
                 fields
                     .getValue()
-                    .foreach(
+                    .foreachExcluding(
+                        previous,
                         fptr -> {
                           InstanceKey field = system.getInstanceKey(fptr);
                           for (InstanceKey objKey : objKeys) {
@@ -1153,10 +1200,12 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
                                         : getPointerKeysForReflectedFieldWrite(objKey, field))) {
                               AbstractFieldPointerKey key = (AbstractFieldPointerKey) pkey;
                               if (DEBUG_PROPERTIES) action.dump(key, false, true);
+                              statistics.recordReflectedFieldKey();
                               action.action(key);
                             }
                           }
                         });
+                previous.addAll(fields.getValue());
               }
               return NOT_CHANGED;
             }
@@ -1184,6 +1233,8 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
         final ReflectedFieldAction action,
         final InstanceKey[] objKeys,
         InstanceKey[] fieldsKeys) {
+      PropertyConstraintStatistics statistics = getBuilder().getPropertyConstraintStatistics();
+      statistics.recordFieldOperation(true, true);
       for (InstanceKey objKey : objKeys) {
         PointerKey objCatalog = getPointerKeyForObjectCatalog(objKey);
         for (InstanceKey fieldsKey : fieldsKeys) {
@@ -1192,16 +1243,19 @@ public abstract class AstSSAPropagationCallGraphBuilder extends SSAPropagationCa
                 Iterator2Iterable.make(getPointerKeysForReflectedFieldRead(objKey, fieldsKey))) {
               AbstractFieldPointerKey key = (AbstractFieldPointerKey) pkey;
               if (DEBUG_PROPERTIES) action.dump(key, true, true);
+              statistics.recordReflectedFieldKey();
               action.action(key);
             }
           } else {
             if (objCatalog != null) {
+              statistics.recordCatalogConstraint();
               system.newConstraint(objCatalog, fieldsKey);
             }
             for (PointerKey pkey :
                 Iterator2Iterable.make(getPointerKeysForReflectedFieldWrite(objKey, fieldsKey))) {
               AbstractFieldPointerKey key = (AbstractFieldPointerKey) pkey;
               if (DEBUG_PROPERTIES) action.dump(key, true, true);
+              statistics.recordReflectedFieldKey();
               action.action(key);
             }
           }
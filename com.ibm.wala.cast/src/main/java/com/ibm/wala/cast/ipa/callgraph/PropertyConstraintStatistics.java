@@ -0,0 +1,98 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.cast.ipa.callgraph;
+
+/**
+ * Counts the constraints an {@link AstSSAPropagationCallGraphBuilder} generates for property
+ * accesses. Accesses where neither the object nor the property name is known when constraints are
+ * generated are the generic, and most expensive, case: they are resolved against every pair of
+ * receiver and name that reaches them during solving.
+ */
+public class PropertyConstraintStatistics {
+  private long fullOperations;
+  private long objectConstantOperations;
+  private long fieldConstantOperations;
+  private long constantOperations;
+  private long reflectedFieldKeys;
+  private long catalogConstraints;
+  private long prototypeConstraints;
+
+  /** record a property access, classified by which of its operands are constant */
+  public void recordFieldOperation(boolean constObj, boolean constProp) {
+    if (constObj && constProp) {
+      constantOperations++;
+    } else if (constObj) {
+      objectConstantOperations++;
+    } else if (constProp) {
+      fieldConstantOperations++;
+    } else {
+      fullOperations++;
+    }
+  }
+
+  /** record that a property access was resolved to one field pointer key */
+  public void recordReflectedFieldKey() {
+    reflectedFieldKeys++;
+  }
+
+  /** record a constraint adding property names to an object catalog */
+  public void recordCatalogConstraint() {
+    catalogConstraints++;
+  }
+
+  /** record a constraint added to follow a prototype chain */
+  public void recordPrototypeConstraint() {
+    prototypeConstraints++;
+  }
+
+  /** @return the number of accesses with neither a constant object nor a constant name */
+  public long getFullOperations() {
+    return fullOperations;
+  }
+
+  /** @return the number of accesses with a constant object, but not a constant name */
+  public long getObjectConstantOperations() {
+    return objectConstantOperations;
+  }
+
+  /** @return the number of accesses with a constant name, but not a constant object */
+  public long getFieldConstantOperations() {
+    return fieldConstantOperations;
+  }
+
+  /** @return the number of accesses with both a constant object and a constant name */
+  public long getConstantOperations() {
+    return constantOperations;
+  }
+
+  /** @return the number of times an access was resolved to a field pointer key */
+  public long getReflectedFieldKeys() {
+    return reflectedFieldKeys;
+  }
+
+  public long getCatalogConstraints() {
+    return catalogConstraints;
+  }
+
+  public long getPrototypeConstraints() {
+    return prototypeConstraints;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "property accesses: %d generic, %d constant object, %d constant name, %d constant; "
+            + "%d field keys, %d catalog constraints, %d prototype constraints",
+        fullOperations,
+        objectConstantOperations,
+        fieldConstantOperations,
+        constantOperations,
+        reflectedFieldKeys,
+        catalogConstraints,
+        prototypeConstraints);
+  }
+}
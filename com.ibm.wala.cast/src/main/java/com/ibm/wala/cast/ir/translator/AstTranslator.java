@@ -102,6 +102,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Function;
 
 /**
@@ -1234,10 +1237,10 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     }
 
     public void unknownInstructions(Runnable f) {
-      Position save = currentPosition;
-      currentPosition = CAstSourcePositionMap.NO_INFORMATION;
+      Position save = getCurrentPosition();
+      setCurrentPosition(CAstSourcePositionMap.NO_INFORMATION);
       f.run();
-      currentPosition = save;
+      setCurrentPosition(save);
     }
 
     public void addInstruction(SSAInstruction n) {
@@ -1823,7 +1826,7 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     }
 
     @Override
-    public void declare(CAstSymbol s, int vn) {
+    public synchronized void declare(CAstSymbol s, int vn) {
       String nm = s.name();
       if (!contains(nm)) {
         if (s.isCaseInsensitive()) caseInsensitiveNames.put(nm.toLowerCase(), nm);
@@ -1835,7 +1838,7 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     }
 
     @Override
-    public void declare(CAstSymbol s) {
+    public synchronized void declare(CAstSymbol s) {
       String nm = s.name();
       if (!contains(nm) || lookup(nm).getDefiningScope() != this) {
         if (s.isCaseInsensitive()) caseInsensitiveNames.put(nm.toLowerCase(), nm);
@@ -1874,12 +1877,16 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
         Scope parent);
 
     @Override
-    public boolean isCaseInsensitive(String nm) {
+    public synchronized boolean isCaseInsensitive(String nm) {
       return caseInsensitiveNames.containsKey(nm.toLowerCase());
     }
 
+    /**
+     * lookups cache symbols of enclosing scopes, so they are synchronized in case nested functions
+     * are translated concurrently; locks are only ever taken from a scope to its parents.
+     */
     @Override
-    public Symbol lookup(String nm) {
+    public synchronized Symbol lookup(String nm) {
       if (contains(nm)) {
         return values.get(mapName(nm));
       } else {
@@ -1908,7 +1915,7 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     }
 
     @Override
-    public boolean contains(String nm) {
+    public synchronized boolean contains(String nm) {
       String mappedName = caseInsensitiveNames.get(nm.toLowerCase());
       return values.containsKey(mappedName == null ? nm : mappedName);
     }
@@ -2328,17 +2335,17 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
       }
 
       @Override
-      public boolean contains(String name) {
+      public synchronized boolean contains(String name) {
         return hasImplicitGlobals() || globalSymbols.containsKey(mapName(name));
       }
 
       @Override
-      public boolean isCaseInsensitive(String name) {
+      public synchronized boolean isCaseInsensitive(String name) {
         return caseInsensitiveNames.containsKey(name.toLowerCase());
       }
 
       @Override
-      public Symbol lookup(final String name) {
+      public synchronized Symbol lookup(final String name) {
         if (!globalSymbols.containsKey(mapName(name))) {
           if (hasImplicitGlobals()) {
             declare(
@@ -2390,7 +2397,7 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
       }
 
       @Override
-      public void declare(final CAstSymbol s) {
+      public synchronized void declare(final CAstSymbol s) {
         final String name = s.name();
         if (s.isCaseInsensitive()) {
           caseInsensitiveNames.put(name.toLowerCase(), name);
@@ -2798,6 +2805,9 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
 
     Set<Access> accesses;
 
+    /** nested functions to translate once the body of this entity has been walked */
+    List<DeferredFunction> deferredFunctions;
+
     /**
      * maps nodes in the current function to the value number holding their value or, for constants,
      * to their constant value.
@@ -2821,10 +2831,10 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     }
 
     @Override
-    public Set<Access> getAccesses(CAstEntity e) {
+    public synchronized Set<Access> getAccesses(CAstEntity e) {
       if (e == topNode) {
         if (accesses == null) {
-          accesses = HashSetFactory.make();
+          accesses = Collections.synchronizedSet(HashSetFactory.make());
         }
         return accesses;
       } else {
@@ -2833,17 +2843,17 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     }
 
     @Override
-    public Set<Pair<Pair<String, String>, Integer>> exposeNameSet(
+    public synchronized Set<Pair<Pair<String, String>, Integer>> exposeNameSet(
         CAstEntity entity, boolean writeSet) {
       if (entity == topNode) {
         if (writeSet) {
           if (exposedWrites == null) {
-            exposedWrites = HashSetFactory.make();
+            exposedWrites = Collections.synchronizedSet(HashSetFactory.make());
           }
           return exposedWrites;
         } else {
           if (exposedReads == null) {
-            exposedReads = HashSetFactory.make();
+            exposedReads = Collections.synchronizedSet(HashSetFactory.make());
           }
           return exposedReads;
         }
@@ -3424,10 +3434,142 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     return new CodeEntityContext(context, scope, n);
   }
 
+  /**
+   * number of threads used to generate IR for the functions of a module, by translators whose
+   * {@link #supportsConcurrentTranslation()} holds. With more than one, the translation of a
+   * function is deferred until the body of its enclosing entity has been walked, or for functions
+   * outside any code, until the whole module has been walked. The deferred functions are then
+   * translated concurrently before the enclosing entity is closed, as at that point they only read
+   * the scopes of their enclosing entities.
+   *
+   * <p>The calls of a deferred function to {@link #declareFunction}, {@link #defineFunction} and
+   * {@link #defineField} are held back and made once all the deferred functions are done, in the
+   * order the functions were deferred, so the loader sees the same definitions in the same order in
+   * every run. {@link #defineType}, whose result is needed at once, is only serialized.
+   */
+  public static int FUNCTION_TRANSLATION_THREADS = 1;
+
+  /**
+   * whether the hooks of this translator may run on several threads, for different functions, when
+   * {@link #FUNCTION_TRANSLATION_THREADS} is more than one. They may then only change the state of
+   * the {@link WalkContext} of the function being translated, and reach the loader only through the
+   * definitions.
+   */
+  protected boolean supportsConcurrentTranslation() {
+    return false;
+  }
+
+  private final Object typeDefinitionLock = new Object();
+
+  /** the definitions held back for the deferred function, if any, the current thread translates */
+  private final ThreadLocal<List<Runnable>> pendingDefinitions = new ThreadLocal<>();
+
+  /** functions outside any code entity, while a module is translated concurrently; else null */
+  private List<DeferredFunction> deferredTopLevelFunctions;
+
+  /** the deferred function, if any, that the current thread is translating */
+  private final ThreadLocal<CAstEntity> releasedFunction = new ThreadLocal<>();
+
+  /** translation of a function entity, deferred until its enclosing entity has been walked */
+  private final class DeferredFunction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final CAstEntity n;
+
+    private final WalkContext context;
+
+    private final CAstVisitor<WalkContext> visitor;
+
+    private final List<Runnable> definitions = new ArrayList<>();
+
+    private DeferredFunction(CAstEntity n, WalkContext context, CAstVisitor<WalkContext> visitor) {
+      this.n = n;
+      this.context = context;
+      this.visitor = visitor;
+    }
+
+    @Override
+    protected void compute() {
+      CAstEntity outer = releasedFunction.get();
+      List<Runnable> outerDefinitions = pendingDefinitions.get();
+      releasedFunction.set(n);
+      pendingDefinitions.set(definitions);
+      try {
+        visitEntities(n, context, visitor);
+      } finally {
+        releasedFunction.set(outer);
+        pendingDefinitions.set(outerDefinitions);
+      }
+    }
+  }
+
+  /**
+   * @return the list collecting the functions deferred in context, or null if functions cannot be
+   *     deferred there
+   */
+  private List<DeferredFunction> getDeferredFunctions(WalkContext context) {
+    if (context.cfg() == null) {
+      return deferredTopLevelFunctions;
+    }
+    WalkContext codeContext = context.codeContext();
+    if (!(codeContext instanceof CodeEntityContext)) {
+      return null;
+    }
+    CodeEntityContext entityContext = (CodeEntityContext) codeContext;
+    if (entityContext.deferredFunctions == null) {
+      entityContext.deferredFunctions = new ArrayList<>();
+    }
+    return entityContext.deferredFunctions;
+  }
+
+  /** translate, concurrently, the functions deferred while walking the entity of codeContext */
+  private void translateDeferredFunctions(WalkContext codeContext) {
+    if (codeContext instanceof CodeEntityContext) {
+      CodeEntityContext entityContext = (CodeEntityContext) codeContext;
+      if (entityContext.deferredFunctions != null) {
+        translateDeferredFunctions(entityContext.deferredFunctions);
+        entityContext.deferredFunctions = null;
+      }
+    }
+  }
+
+  private void translateDeferredFunctions(List<DeferredFunction> functions) {
+    ForkJoinTask.invokeAll(functions);
+    for (DeferredFunction f : functions) {
+      f.definitions.forEach(this::define);
+    }
+  }
+
+  /**
+   * make a definition now, or if the current thread translates a deferred function, once all the
+   * deferred functions are done
+   */
+  private void define(Runnable definition) {
+    List<Runnable> pending = pendingDefinitions.get();
+    if (pending == null) {
+      definition.run();
+    } else {
+      pending.add(definition);
+    }
+  }
+
   @Override
   protected boolean enterEntity(
       final CAstEntity n, WalkContext context, CAstVisitor<WalkContext> visitor) {
     if (DEBUG_TOP) System.err.println(("translating " + n.getName()));
+    // argument defaults are translated in the enclosing function, so such functions are not
+    // deferred
+    if (deferredTopLevelFunctions != null
+        && n.getKind() == CAstEntity.FUNCTION_ENTITY
+        && n.getAST() != null
+        && n.getArgumentDefaults().length == 0
+        && n != releasedFunction.get()) {
+      List<DeferredFunction> deferred = getDeferredFunctions(context);
+      if (deferred != null) {
+        deferred.add(new DeferredFunction(n, context, visitor));
+        return true;
+      }
+    }
     return false;
   }
 
@@ -3465,7 +3607,7 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     CAstEntity topEntity = context.top(); // better be a type
     assert topEntity.getKind() == CAstEntity.TYPE_ENTITY
         : "Parent of field entity is not a type???";
-    defineField(topEntity, context, n);
+    define(() -> defineField(topEntity, context, n));
   }
 
   @Override
@@ -3489,7 +3631,9 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
       WalkContext context,
       WalkContext typeContext,
       CAstVisitor<WalkContext> visitor) {
-    return !defineType(n, context);
+    synchronized (typeDefinitionLock) {
+      return !defineType(n, context);
+    }
   }
 
   @Override
@@ -3507,10 +3651,8 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
       WalkContext context,
       WalkContext codeContext,
       CAstVisitor<WalkContext> visitor) {
-    if (n.getAST() == null) // presumably abstract
-    declareFunction(n, context);
-    else {
-      declareFunction(n, context);
+    define(() -> declareFunction(n, context));
+    if (n.getAST() != null) { // non-abstract
       initFunctionEntity(n, codeContext);
     }
     return false;
@@ -3522,8 +3664,10 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
       WalkContext context,
       WalkContext codeContext,
       CAstVisitor<WalkContext> visitor) {
-    if (n.getAST() != null) // non-abstract
-    closeFunctionEntity(n, context, codeContext);
+    if (n.getAST() != null) { // non-abstract
+      translateDeferredFunctions(codeContext);
+      closeFunctionEntity(n, context, codeContext);
+    }
   }
 
   @Override
@@ -3541,7 +3685,7 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
       WalkContext context,
       WalkContext codeContext,
       CAstVisitor<WalkContext> visitor) {
-    declareFunction(n, codeContext);
+    define(() -> declareFunction(n, codeContext));
     initFunctionEntity(n, codeContext);
     return false;
   }
@@ -3552,6 +3696,7 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
       WalkContext context,
       WalkContext codeContext,
       CAstVisitor<WalkContext> visitor) {
+    translateDeferredFunctions(codeContext);
     closeFunctionEntity(n, context, codeContext);
   }
 
@@ -3618,7 +3763,8 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
             n.getSourceMap().positions());
 
     // actually make code body
-    defineFunction(n, parentContext, cfg, symtab, katch, catchTypes, monitor, LI, DBG);
+    define(
+        () -> defineFunction(n, parentContext, cfg, symtab, katch, catchTypes, monitor, LI, DBG));
   }
 
   protected abstract Position[] getParameterPositions(CAstEntity e);
@@ -3714,7 +3860,7 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
 
   protected int processFunctionExpr(CAstNode n, WalkContext context) {
     CAstEntity fn = (CAstEntity) n.getChild(0).getValue();
-    declareFunction(fn, context);
+    define(() -> declareFunction(fn, context));
     int result = context.currentScope().allocateTempValue();
     int ex = context.currentScope().allocateTempValue();
     doMaterializeFunction(n, context, result, ex, fn);
@@ -5461,12 +5607,12 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     }
 
     @Override
-    public void addEntityName(CAstEntity e, String name) {
+    public synchronized void addEntityName(CAstEntity e, String name) {
       entityNames.put(e, name);
     }
 
     @Override
-    public String getEntityName(CAstEntity e) {
+    public synchronized String getEntityName(CAstEntity e) {
       if (e == null) {
         return null;
       } else {
@@ -5526,7 +5672,28 @@ public abstract class AstTranslator extends CAstVisitor<AstTranslator.WalkContex
     }
     entity2ExposedNames = exposedNamesCollector.getEntity2ExposedNames();
     entity2WrittenNames = exposedNamesCollector.getEntity2WrittenNames();
-    walkEntities(N, context);
+    if (FUNCTION_TRANSLATION_THREADS <= 1 || !supportsConcurrentTranslation()) {
+      walkEntities(N, context);
+      return;
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(FUNCTION_TRANSLATION_THREADS);
+    deferredTopLevelFunctions = new ArrayList<>();
+    try {
+      pool.invoke(
+          new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+              walkEntities(N, context);
+              translateDeferredFunctions(deferredTopLevelFunctions);
+            }
+          });
+    } finally {
+      deferredTopLevelFunctions = null;
+      pool.shutdownNow();
+    }
   }
 
   protected void doIsFieldDefined(WalkContext context, int result, int ref, CAstNode f) {
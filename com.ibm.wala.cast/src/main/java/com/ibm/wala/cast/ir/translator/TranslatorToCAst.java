@@ -25,10 +25,10 @@ import com.ibm.wala.cast.tree.rewrite.CAstRewriterFactory;
 import com.ibm.wala.core.util.warnings.Warning;
 import com.ibm.wala.util.WalaException;
 import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -276,7 +276,7 @@ public interface TranslatorToCAst {
     @Override
     public void addScopedEntity(CAstNode construct, CAstEntity e) {
       if (!scopedEntities.containsKey(construct)) {
-        scopedEntities.put(construct, new HashSet<>(1));
+        scopedEntities.put(construct, HashSetFactory.make(1));
       }
       scopedEntities.get(construct).add(e);
     }
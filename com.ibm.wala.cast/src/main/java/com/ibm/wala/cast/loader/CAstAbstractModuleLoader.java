@@ -49,12 +49,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * abstract class loader that performs CAst and IR generation for relevant entities in a list of
@@ -64,6 +69,13 @@ public abstract class CAstAbstractModuleLoader extends CAstAbstractLoader {
 
   private static final boolean DEBUG = false;
 
+  /**
+   * number of threads used to translate module entries to CAst. With more than one, the translators
+   * returned by {@link #getTranslatorToCAst} run concurrently, so they must not share mutable
+   * state. IR generation is always sequential.
+   */
+  public static int CAST_TRANSLATION_THREADS = 1;
+
   public CAstAbstractModuleLoader(IClassHierarchy cha, IClassLoader parent) {
     super(cha, parent);
   }
@@ -110,15 +122,33 @@ public abstract class CAstAbstractModuleLoader extends CAstAbstractLoader {
    */
   protected void finishTranslation() {}
 
+  /** @return the number of threads used to translate module entries to CAst */
+  protected int getCAstTranslationThreads() {
+    return CAST_TRANSLATION_THREADS;
+  }
+
   @Override
   public void init(final List<Module> modules) {
 
     final CAst ast = new CAstImpl();
 
-    // convert everything to CAst
-    final Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities = new LinkedHashSet<>();
+    // convert everything to CAst, keeping the order of the modules
+    final List<ModuleEntry> entries = new ArrayList<>();
     for (Module module : modules) {
-      translateModuleToCAst(module, ast, topLevelEntities, modules);
+      collectModuleEntries(module, entries);
+    }
+    final List<Pair<CAstEntity, Set<Warning>>> translated =
+        translateModuleEntriesToCAst(entries, ast, modules);
+
+    final Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities = new LinkedHashSet<>();
+    for (int i = 0; i < entries.size(); i++) {
+      Pair<CAstEntity, Set<Warning>> result = translated.get(i);
+      if (result.fst != null) {
+        topLevelEntities.add(Pair.make(result.fst, entries.get(i)));
+      }
+      if (result.snd != null) {
+        addMessages(entries.get(i), result.snd);
+      }
     }
 
     // generate IR as needed
@@ -145,73 +175,112 @@ public abstract class CAstAbstractModuleLoader extends CAstAbstractLoader {
     finishTranslation();
   }
 
+  /** add the entries of module to entries, replacing nested modules by their entries */
+  private void collectModuleEntries(Module module, List<ModuleEntry> entries) {
+    for (ModuleEntry me : Iterator2Iterable.make(module.getEntries())) {
+      if (me.isModuleFile()) {
+        // nested module
+        final Module nested;
+        try {
+          nested = me.asModule();
+        } catch (RuntimeException e) {
+          addMessage(me, parsingIssue(e));
+          continue;
+        }
+        collectModuleEntries(nested, entries);
+      } else {
+        entries.add(me);
+      }
+    }
+  }
+
   /**
-   * translate moduleEntry to CAst and store result in topLevelEntities
+   * translate the module entries to CAst, using {@link #getCAstTranslationThreads()} threads
    *
-   * @param modules all mofules in the analysis
+   * @param modules all modules in the analysis
+   * @return for each entry, in order, its CAst entity and the warnings about it; either may be null
    */
-  private void translateModuleEntryToCAst(
-      ModuleEntry moduleEntry,
-      CAst ast,
-      Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities,
-      List<Module> modules) {
+  private List<Pair<CAstEntity, Set<Warning>>> translateModuleEntriesToCAst(
+      List<ModuleEntry> entries, CAst ast, List<Module> modules) {
+    final List<Pair<CAstEntity, Set<Warning>>> result = new ArrayList<>(entries.size());
+    final int threads = Math.min(getCAstTranslationThreads(), entries.size());
+    if (threads <= 1) {
+      for (ModuleEntry me : entries) {
+        result.add(translateModuleEntryToCAst(me, ast, modules));
+      }
+      return result;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
     try {
-      if (moduleEntry.isModuleFile()) {
-        // nested module
-        translateModuleToCAst(moduleEntry.asModule(), ast, topLevelEntities, modules);
-      } else {
-        TranslatorToCAst xlatorToCAst = getTranslatorToCAst(ast, moduleEntry, modules);
+      final List<Future<Pair<CAstEntity, Set<Warning>>>> futures = new ArrayList<>(entries.size());
+      for (ModuleEntry me : entries) {
+        futures.add(executor.submit(() -> translateModuleEntryToCAst(me, ast, modules)));
+      }
+      for (Future<Pair<CAstEntity, Set<Warning>>> future : futures) {
+        result.add(future.get());
+      }
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-        CAstEntity fileEntity = null;
-        try {
-          fileEntity = xlatorToCAst.translateToCAst();
+  /**
+   * translate moduleEntry to CAst
+   *
+   * @param modules all modules in the analysis
+   * @return the CAst entity of moduleEntry and the warnings about it; either may be null
+   */
+  private Pair<CAstEntity, Set<Warning>> translateModuleEntryToCAst(
+      ModuleEntry moduleEntry, CAst ast, List<Module> modules) {
+    try {
+      TranslatorToCAst xlatorToCAst = getTranslatorToCAst(ast, moduleEntry, modules);
 
-          if (DEBUG) {
-            CAstPrinter.printTo(fileEntity, new PrintWriter(System.err));
-          }
-          topLevelEntities.add(Pair.make(fileEntity, moduleEntry));
+      try {
+        CAstEntity fileEntity = xlatorToCAst.translateToCAst();
 
-        } catch (TranslatorToCAst.Error e) {
-          addMessages(moduleEntry, e.warning);
+        if (DEBUG) {
+          CAstPrinter.printTo(fileEntity, new PrintWriter(System.err));
         }
+        return Pair.make(fileEntity, null);
+
+      } catch (TranslatorToCAst.Error e) {
+        return Pair.make(null, e.warning);
       }
     } catch (final IOException e) {
-      addMessage(
-          moduleEntry,
-          new Warning(Warning.SEVERE) {
-            @Override
-            public String getMsg() {
-              return "I/O issue: " + e.getMessage();
-            }
-          });
+      return Pair.make(
+          null,
+          Collections.singleton(
+              new Warning(Warning.SEVERE) {
+                @Override
+                public String getMsg() {
+                  return "I/O issue: " + e.getMessage();
+                }
+              }));
     } catch (final RuntimeException e) {
-      final ByteArrayOutputStream s = new ByteArrayOutputStream();
-      PrintStream ps = new PrintStream(s);
-      e.printStackTrace(ps);
-      addMessage(
-          moduleEntry,
-          new Warning(Warning.SEVERE) {
-            @Override
-            public String getMsg() {
-              return "Parsing issue: " + new String(s.toByteArray());
-            }
-          });
+      return Pair.make(null, Collections.singleton(parsingIssue(e)));
     }
   }
 
-  /**
-   * translate all relevant entities in the module to CAst, storing the results in topLevelEntities
-   *
-   * @param modules all modules in the analysis
-   */
-  private void translateModuleToCAst(
-      Module module,
-      CAst ast,
-      Set<Pair<CAstEntity, ModuleEntry>> topLevelEntities,
-      List<Module> modules) {
-    for (ModuleEntry me : Iterator2Iterable.make(module.getEntries())) {
-      translateModuleEntryToCAst(me, ast, topLevelEntities, modules);
-    }
+  private static Warning parsingIssue(RuntimeException e) {
+    final ByteArrayOutputStream s = new ByteArrayOutputStream();
+    PrintStream ps = new PrintStream(s);
+    e.printStackTrace(ps);
+    return new Warning(Warning.SEVERE) {
+      @Override
+      public String getMsg() {
+        return "Parsing issue: " + new String(s.toByteArray());
+      }
+    };
   }
 
   public class DynamicCodeBody extends AstFunctionClass {
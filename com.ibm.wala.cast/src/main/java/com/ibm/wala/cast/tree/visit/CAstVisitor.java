@@ -18,6 +18,7 @@ import com.ibm.wala.cast.util.CAstPrinter;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.debug.Assertions;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -26,10 +27,20 @@ public abstract class CAstVisitor<C extends CAstVisitor.Context> {
 
   public static boolean DEBUG = true;
 
-  protected Position currentPosition;
+  /**
+   * the position of the entity or node being visited. It is kept per thread, so that a visitor may
+   * visit independent entities concurrently. This replaces the former protected field {@code
+   * currentPosition}; subclasses use {@link #getCurrentPosition()} and {@link
+   * #setCurrentPosition(Position)} instead.
+   */
+  private final ThreadLocal<Position> currentPosition = new ThreadLocal<>();
 
   public Position getCurrentPosition() {
-    return currentPosition;
+    return currentPosition.get();
+  }
+
+  protected void setCurrentPosition(Position position) {
+    currentPosition.set(position);
   }
 
   protected CAstVisitor() {}
@@ -96,7 +107,8 @@ public abstract class CAstVisitor<C extends CAstVisitor.Context> {
     return context;
   }
 
-  private final Map<CAstEntity, CAstEntity> entityParents = HashMapFactory.make();
+  private final Map<CAstEntity, CAstEntity> entityParents =
+      Collections.synchronizedMap(HashMapFactory.make());
 
   /**
    * Get the parent entity for a given entity.
@@ -166,14 +178,13 @@ public abstract class CAstVisitor<C extends CAstVisitor.Context> {
    * @param context a visitor-specific context
    */
   public final void visitEntities(final CAstEntity n, C context, CAstVisitor<C> visitor) {
-    Position restore = currentPosition;
-    if (n.getPosition() != null) {
-      currentPosition = n.getPosition();
-    } else {
-      currentPosition = null;
-    }
+    Position restore = getCurrentPosition();
+    setCurrentPosition(n.getPosition());
 
-    if (visitor.enterEntity(n, context, visitor)) return;
+    if (visitor.enterEntity(n, context, visitor)) {
+      setCurrentPosition(restore);
+      return;
+    }
     switch (n.getKind()) {
       case CAstEntity.FILE_ENTITY:
         {
@@ -254,7 +265,7 @@ public abstract class CAstVisitor<C extends CAstVisitor.Context> {
     }
     visitor.postProcessEntity(n, context, visitor);
 
-    currentPosition = restore;
+    setCurrentPosition(restore);
   }
 
   /**
@@ -503,11 +514,11 @@ public abstract class CAstVisitor<C extends CAstVisitor.Context> {
    * @param context a visitor-specific context
    */
   public final void visit(final CAstNode n, C context, CAstVisitor<C> visitor) {
-    Position restore = currentPosition;
+    Position restore = getCurrentPosition();
     if (context != null && context.getSourceMap() != null) {
       Position p = context.getSourceMap().getPosition(n);
       if (p != null) {
-        currentPosition = p;
+        setCurrentPosition(p);
       }
     }
 
@@ -985,7 +996,7 @@ public abstract class CAstVisitor<C extends CAstVisitor.Context> {
 
     visitor.postProcessNode(n, context, visitor);
 
-    currentPosition = restore;
+    setCurrentPosition(restore);
   }
 
   protected void leaveSpecialParentScope(CAstNode n, C context, CAstVisitor<C> visitor) {
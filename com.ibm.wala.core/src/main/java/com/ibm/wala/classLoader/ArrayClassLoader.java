@@ -31,7 +31,8 @@ public class ArrayClassLoader {
    * @param className name of the array class
    * @param delegator class loader to look up element type with
    */
-  public IClass lookupClass(TypeName className, IClassLoader delegator, IClassHierarchy cha)
+  public synchronized IClass lookupClass(
+      TypeName className, IClassLoader delegator, IClassHierarchy cha)
       throws IllegalArgumentException {
     ArrayClass arrayClass;
     if (DEBUG) {
@@ -78,7 +79,7 @@ public class ArrayClassLoader {
     return l;
   }
 
-  public int getNumberOfClasses() {
+  public synchronized int getNumberOfClasses() {
     return arrayClasses.size();
   }
 }
@@ -73,7 +73,10 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
    */
   protected volatile Map<Selector, IMethod> methodMap;
 
-  /** A mapping from Selector to IMethod used to cache method lookups from superclasses */
+  /**
+   * A mapping from Selector to IMethod used to cache method lookups from superclasses. Guarded by
+   * this, so that classes can be shared between threads.
+   */
   protected Map<Selector, IMethod> inheritCache;
 
   /** Canonical type representation */
@@ -391,11 +394,9 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
     if (result != null) {
       return result;
     }
-    if (inheritCache != null) {
-      result = inheritCache.get(selector);
-      if (result != null) {
-        return result;
-      }
+    result = getInherited(selector);
+    if (result != null) {
+      return result;
     }
 
     // check parent, caching if found
@@ -405,10 +406,7 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
       if (superclass != null) {
         IMethod inherit = superclass.getMethod(selector);
         if (inherit != null) {
-          if (inheritCache == null) {
-            inheritCache = new BimodalMap<>(5);
-          }
-          inheritCache.put(selector, inherit);
+          cacheInherited(selector, inherit);
           return inherit;
         }
       }
@@ -419,10 +417,7 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
     for (IClass iface : getAllImplementedInterfaces()) {
       for (IMethod m : iface.getDeclaredMethods()) {
         if (!m.isAbstract() && m.getSelector().equals(selector)) {
-          if (inheritCache == null) {
-            inheritCache = new BimodalMap<>(5);
-          }
-          inheritCache.put(selector, m);
+          cacheInherited(selector, m);
 
           return m;
         }
@@ -430,11 +425,19 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
     }
 
     // no method found
+    cacheInherited(selector, null);
+    return null;
+  }
+
+  private synchronized IMethod getInherited(Selector selector) {
+    return inheritCache == null ? null : inheritCache.get(selector);
+  }
+
+  private synchronized void cacheInherited(Selector selector, IMethod m) {
     if (inheritCache == null) {
       inheritCache = new BimodalMap<>(5);
     }
-    inheritCache.put(selector, null);
-    return null;
+    inheritCache.put(selector, m);
   }
 
   /** @return Collection of IClasses, representing the interfaces this class implements. */
@@ -98,7 +98,8 @@ public final class ShrikeCTMethod extends ShrikeBTMethod implements IBytecodeMet
     if (reader == null) {
       return null;
     }
-    final Decoder d = new CTDecoder(reader);
+    final Decoder d =
+        new CTDecoder(reader, ((ShrikeClass) getDeclaringClass()).getInstructionPool());
     try {
       d.decode();
     } catch (Decoder.InvalidBytecodeException ex) {
@@ -15,6 +15,8 @@ import com.ibm.wala.core.util.strings.Atom;
 import com.ibm.wala.core.util.strings.ImmutableByteArray;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.shrike.shrikeBT.Constants;
+import com.ibm.wala.shrike.shrikeBT.Decoder;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTDecoder;
 import com.ibm.wala.shrike.shrikeCT.AnnotationsReader;
 import com.ibm.wala.shrike.shrikeCT.AnnotationsReader.AnnotationType;
 import com.ibm.wala.shrike.shrikeCT.ClassConstants;
@@ -34,6 +36,7 @@ import com.ibm.wala.types.generics.ClassSignature;
 import com.ibm.wala.types.generics.TypeSignature;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.debug.Assertions;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -47,6 +50,9 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
   /** The Shrike object that knows how to read the class file */
   private final ShrikeClassReaderHandle reader;
 
+  /** Constant pool instructions shared by the decoders of this class's methods */
+  private SoftReference<Decoder.InstructionPool> instructionPool;
+
   /** @throws IllegalArgumentException if reader is null */
   public ShrikeClass(ShrikeClassReaderHandle reader, IClassLoader loader, IClassHierarchy cha)
       throws InvalidClassFileException {
@@ -199,6 +205,16 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
     }
   }
 
+  /** @return the instruction pool to use when decoding the bytecode of this class's methods */
+  synchronized Decoder.InstructionPool getInstructionPool() {
+    Decoder.InstructionPool pool = instructionPool == null ? null : instructionPool.get();
+    if (pool == null) {
+      pool = new Decoder.InstructionPool(CTDecoder.makeConstantPoolReader(getReader()));
+      instructionPool = new SoftReference<>(pool);
+    }
+    return pool;
+  }
+
   /** Clear all optional cached data associated with this class */
   public void clearSoftCaches() {
     // toss optional information from each method.
@@ -214,6 +230,10 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
     inheritCache = null;
     // clear the cached interfaces
     allInterfaces = null;
+    // the pooled instructions refer to the reader's constant pool
+    synchronized (this) {
+      instructionPool = null;
+    }
     // toss away the Shrike reader
     reader.clear();
   }
@@ -0,0 +1,84 @@
+package com.ibm.wala.core.tests.shrike;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.shrike.shrikeCT.ClassConstants;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.ClassRewriter;
+import com.ibm.wala.shrike.shrikeCT.ClassWriter;
+import com.ibm.wala.shrike.shrikeCT.ConstantPoolParser;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassRewriterTest extends WalaTestCase {
+  private static final String KLASS = "shrike/FloatingPoints";
+
+  private static final String RENAMED = "shrike/Renamed";
+
+  private static ClassReader read() throws IOException, InvalidClassFileException {
+    return new ClassReader(
+        Files.readAllBytes(Paths.get(getClasspathEntry("testSubjects"), KLASS + ".class")));
+  }
+
+  /** @return the index of the Utf8 item holding the name of the class */
+  private static int nameUtf8(ClassReader cr) throws InvalidClassFileException {
+    ConstantPoolParser cp = cr.getCP();
+    for (int i = 1; i < cp.getItemCount(); i++) {
+      if (cp.getItemType(i) == ClassConstants.CONSTANT_Utf8 && cp.getCPUtf8(i).equals(KLASS)) {
+        return i;
+      }
+    }
+    throw new AssertionError("no Utf8 item " + KLASS);
+  }
+
+  @Test
+  public void testUnchangedIsIdentical() throws IOException, InvalidClassFileException {
+    ClassReader cr = read();
+    Assert.assertArrayEquals(cr.getBytes(), new ClassRewriter(cr).makeBytes());
+  }
+
+  @Test
+  public void testRename() throws IOException, InvalidClassFileException {
+    ClassReader cr = read();
+    ClassRewriter rewriter = new ClassRewriter(cr);
+    rewriter.replaceUtf8(nameUtf8(cr), RENAMED);
+    byte[] bytes = rewriter.makeBytes();
+
+    ClassReader renamed = new ClassReader(bytes);
+    Assert.assertEquals(RENAMED, renamed.getName());
+    Assert.assertEquals(cr.getSuperName(), renamed.getSuperName());
+    Assert.assertEquals(cr.getCP().getItemCount(), renamed.getCP().getItemCount());
+    Assert.assertEquals(cr.getMethodCount(), renamed.getMethodCount());
+    for (int i = 0; i < cr.getMethodCount(); i++) {
+      Assert.assertEquals(cr.getMethodName(i), renamed.getMethodName(i));
+      Assert.assertEquals(cr.getMethodType(i), renamed.getMethodType(i));
+    }
+    Assert.assertEquals(cr.getFieldCount(), renamed.getFieldCount());
+  }
+
+  /** a cached raw Class item of the old name must not be handed out once its Utf8 item changed */
+  @Test
+  public void testRenameDropsCachedItems() throws IOException, InvalidClassFileException {
+    ClassReader cr = read();
+    ClassWriter w = new ClassWriter();
+    w.setMajorVersion(cr.getMajorVersion());
+    w.setMinorVersion(cr.getMinorVersion());
+    w.setRawCP(cr.getCP(), true);
+    w.setAccessFlags(cr.getAccessFlags());
+    w.setNameIndex(cr.getNameIndex());
+    w.setSuperNameIndex(cr.getSuperNameIndex());
+    w.setInterfaceNameIndices(cr.getInterfaceNameIndices());
+
+    Assert.assertEquals(cr.getNameIndex(), w.addCPClass(KLASS));
+    w.replaceRawCPUtf8(nameUtf8(cr), RENAMED);
+    int oldName = w.addCPClass(KLASS);
+    Assert.assertNotEquals(cr.getNameIndex(), oldName);
+
+    ClassReader renamed = new ClassReader(w.makeBytes());
+    Assert.assertEquals(RENAMED, renamed.getName());
+    Assert.assertEquals(KLASS, renamed.getCP().getCPClass(oldName));
+  }
+}
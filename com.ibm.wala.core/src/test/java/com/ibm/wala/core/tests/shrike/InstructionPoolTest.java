@@ -0,0 +1,183 @@
+package com.ibm.wala.core.tests.shrike;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.ShrikeCTMethod;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrike.shrikeBT.ConstantInstruction;
+import com.ibm.wala.shrike.shrikeBT.Constants;
+import com.ibm.wala.shrike.shrikeBT.Decoder;
+import com.ibm.wala.shrike.shrikeBT.GetInstruction;
+import com.ibm.wala.shrike.shrikeBT.IInstruction;
+import com.ibm.wala.shrike.shrikeBT.InvokeInstruction;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTDecoder;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.CodeReader;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InstructionPoolTest extends WalaTestCase {
+  private static final String KLASS = "shrike/FloatingPoints";
+
+  private static ClassReader read() throws IOException, InvalidClassFileException {
+    return new ClassReader(
+        Files.readAllBytes(Paths.get(getClasspathEntry("testSubjects"), KLASS + ".class")));
+  }
+
+  private static CodeReader code(ClassReader cr, String name) throws InvalidClassFileException {
+    for (int i = 0; i < cr.getMethodCount(); i++) {
+      if (cr.getMethodName(i).equals(name)) {
+        ClassReader.AttrIterator iter = new ClassReader.AttrIterator();
+        cr.initMethodAttributeIterator(i, iter);
+        for (; iter.isValid(); iter.advance()) {
+          if (iter.getName().equals("Code")) {
+            return new CodeReader(iter);
+          }
+        }
+      }
+    }
+    throw new AssertionError("no code for " + name);
+  }
+
+  private static Decoder decode(Decoder d) throws Decoder.InvalidBytecodeException {
+    d.decode();
+    return d;
+  }
+
+  /**
+   * @return whether i refers to the constant pool, and so should come from the pool; all float and
+   *     double constants of the subject are loaded with ldc
+   */
+  private static boolean isPooled(IInstruction i) {
+    return i instanceof InvokeInstruction
+        || i instanceof GetInstruction
+        || (i instanceof ConstantInstruction
+            && (((ConstantInstruction) i).getType().equals(Constants.TYPE_double)
+                || ((ConstantInstruction) i).getType().equals(Constants.TYPE_float)));
+  }
+
+  /** decoding through a pool gives the same code as decoding without one */
+  @Test
+  public void testPooledDecodingIsEqual()
+      throws IOException, InvalidClassFileException, Decoder.InvalidBytecodeException {
+    ClassReader cr = read();
+    Decoder.InstructionPool pool =
+        new Decoder.InstructionPool(CTDecoder.makeConstantPoolReader(cr));
+    for (int i = 0; i < cr.getMethodCount(); i++) {
+      String name = cr.getMethodName(i);
+      Decoder plain = decode(new CTDecoder(code(cr, name)));
+      Decoder pooled = decode(new CTDecoder(code(cr, name), pool));
+      Assert.assertArrayEquals(name, plain.getInstructions(), pooled.getInstructions());
+      Assert.assertArrayEquals(
+          name, plain.getInstructionsToBytecodes(), pooled.getInstructionsToBytecodes());
+      Assert.assertEquals(name, plain.getHandlers().length, pooled.getHandlers().length);
+    }
+  }
+
+  /** decoding one method twice hands out the same constant pool instructions */
+  @Test
+  public void testSameMethodTwice()
+      throws IOException, InvalidClassFileException, Decoder.InvalidBytecodeException {
+    ClassReader cr = read();
+    Decoder.InstructionPool pool =
+        new Decoder.InstructionPool(CTDecoder.makeConstantPoolReader(cr));
+    IInstruction[] first = decode(new CTDecoder(code(cr, "doubble"), pool)).getInstructions();
+    int misses = pool.getMisses();
+    IInstruction[] second = decode(new CTDecoder(code(cr, "doubble"), pool)).getInstructions();
+
+    Assert.assertArrayEquals(first, second);
+    int shared = 0;
+    for (int i = 0; i < first.length; i++) {
+      if (isPooled(first[i])) {
+        Assert.assertSame(first[i].toString(), first[i], second[i]);
+        shared++;
+      }
+    }
+    // ldc2_w Math.PI, ldc2_w 1.337, getstatic out, invokevirtual println
+    Assert.assertEquals(4, shared);
+    Assert.assertEquals("second decoding created instructions", misses, pool.getMisses());
+    Assert.assertEquals(shared, pool.getHits());
+  }
+
+  /** two methods using the same constant pool items share their instructions */
+  @Test
+  public void testSharedBetweenMethods()
+      throws IOException, InvalidClassFileException, Decoder.InvalidBytecodeException {
+    ClassReader cr = read();
+    Decoder.InstructionPool pool =
+        new Decoder.InstructionPool(CTDecoder.makeConstantPoolReader(cr));
+    IInstruction[] doubble = decode(new CTDecoder(code(cr, "doubble"), pool)).getInstructions();
+    IInstruction[] floatt = decode(new CTDecoder(code(cr, "floatt"), pool)).getInstructions();
+
+    int shared = 0;
+    for (IInstruction d : doubble) {
+      if (isPooled(d)) {
+        for (IInstruction f : floatt) {
+          if (d.equals(f)) {
+            Assert.assertSame(d.toString(), d, f);
+            shared++;
+          }
+        }
+      }
+    }
+    // ldc2_w 1.337, getstatic out, invokevirtual println
+    Assert.assertEquals(3, shared);
+  }
+
+  /** the methods of a ShrikeClass decode through the pool of their class */
+  @Test
+  public void testShrikeClassPool()
+      throws IOException, ClassHierarchyException, InvalidClassFileException {
+    IClassHierarchy cha =
+        ClassHierarchyFactory.make(
+            AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+                getClasspathEntry("testSubjects"), null));
+    IClass klass =
+        cha.lookupClass(TypeReference.findOrCreate(ClassLoaderReference.Application, 'L' + KLASS));
+    Assert.assertNotNull(KLASS, klass);
+    ShrikeCTMethod doubble = null;
+    ShrikeCTMethod floatt = null;
+    for (IMethod m : klass.getDeclaredMethods()) {
+      if (m.getName().toString().equals("doubble")) {
+        doubble = (ShrikeCTMethod) m;
+      } else if (m.getName().toString().equals("floatt")) {
+        floatt = (ShrikeCTMethod) m;
+      }
+    }
+    Assert.assertNotNull(doubble);
+    Assert.assertNotNull(floatt);
+
+    IInstruction[] first = doubble.getInstructions();
+    doubble.clearCaches();
+    IInstruction[] second = doubble.getInstructions();
+    IInstruction[] other = floatt.getInstructions();
+
+    Assert.assertArrayEquals(first, second);
+    int reused = 0;
+    int shared = 0;
+    for (int i = 0; i < first.length; i++) {
+      if (isPooled(first[i])) {
+        Assert.assertSame(first[i].toString(), first[i], second[i]);
+        reused++;
+        for (IInstruction o : other) {
+          if (first[i].equals(o)) {
+            Assert.assertSame(first[i].toString(), first[i], o);
+            shared++;
+          }
+        }
+      }
+    }
+    Assert.assertEquals(4, reused);
+    Assert.assertEquals(3, shared);
+  }
+}
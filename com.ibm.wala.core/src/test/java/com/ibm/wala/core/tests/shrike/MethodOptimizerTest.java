@@ -0,0 +1,166 @@
+package com.ibm.wala.core.tests.shrike;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.shrike.shrikeBT.ConstantInstruction;
+import com.ibm.wala.shrike.shrikeBT.Constants;
+import com.ibm.wala.shrike.shrikeBT.GotoInstruction;
+import com.ibm.wala.shrike.shrikeBT.LoadInstruction;
+import com.ibm.wala.shrike.shrikeBT.MethodData;
+import com.ibm.wala.shrike.shrikeBT.MethodEditor;
+import com.ibm.wala.shrike.shrikeBT.PopInstruction;
+import com.ibm.wala.shrike.shrikeBT.StoreInstruction;
+import com.ibm.wala.shrike.shrikeBT.analysis.Analyzer.FailureException;
+import com.ibm.wala.shrike.shrikeBT.analysis.ClassHierarchyStore;
+import com.ibm.wala.shrike.shrikeBT.analysis.Verifier;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTUtils;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrike.shrikeBT.tools.MethodOptimizer;
+import com.ibm.wala.shrike.shrikeBT.tools.MethodOptimizer.UnoptimizableCodeException;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Runs the optimizer over the methods of the shrike test subjects, after the kind of patch
+ * instrumentation leaves behind, and checks that the result verifies and behaves like the original.
+ */
+public class MethodOptimizerTest extends WalaTestCase {
+
+  /** a local the test subjects do not use */
+  private static final int SCRATCH = 30;
+
+  /**
+   * Read a test subject as a Java 5 class file. Shrike then writes no StackMapTable, and the JVM
+   * checks the optimized code with its type-inferring verifier, so the test does not depend on how
+   * well Shrike recomputes stack maps.
+   */
+  private static byte[] read(String klass) throws IOException {
+    byte[] bytes =
+        Files.readAllBytes(Paths.get(getClasspathEntry("testSubjects"), klass + ".class"));
+    bytes[6] = 0;
+    bytes[7] = 49;
+    return bytes;
+  }
+
+  /**
+   * Put a goto to the next instruction and a constant that goes through a fresh local and is then
+   * dropped at the start of each method, optimize, and verify the result.
+   */
+  private static byte[] patchAndOptimize(String klass)
+      throws IOException, InvalidClassFileException, UnoptimizableCodeException, FailureException {
+    byte[] bytes = read(klass);
+    ClassHierarchyStore cha = new ClassHierarchyStore();
+    CTUtils.addClassToHierarchy(cha, new ClassReader(bytes));
+    ClassInstrumenter ci = new ClassInstrumenter(klass, bytes, cha);
+    for (int m = 0; m < ci.getReader().getMethodCount(); m++) {
+      MethodData d = ci.visitMethod(m);
+      if (d == null) {
+        continue;
+      }
+      int before = d.getInstructions().length;
+
+      MethodEditor me = new MethodEditor(d);
+      me.beginPass();
+      int next = me.allocateLabel();
+      me.insertAtStart(
+          new MethodEditor.Patch() {
+            @Override
+            public void emitTo(MethodEditor.Output w) {
+              w.emit(GotoInstruction.make(next));
+              w.emitLabel(next);
+              w.emit(ConstantInstruction.make(42));
+              w.emit(StoreInstruction.make(Constants.TYPE_int, SCRATCH));
+              w.emit(LoadInstruction.make(Constants.TYPE_int, SCRATCH));
+              w.emit(PopInstruction.make(1));
+            }
+          });
+      me.applyPatches();
+      me.endPass();
+      Assert.assertEquals(before + 5, d.getInstructions().length);
+
+      Assert.assertTrue(new MethodOptimizer(me).optimize());
+      Assert.assertTrue(
+          d.getName() + " not cleaned up: " + d.getInstructions().length + " > " + before,
+          d.getInstructions().length <= before);
+      new Verifier(d).verify();
+    }
+    return ci.emitClass().makeBytes();
+  }
+
+  private static final class Loader extends ClassLoader {
+    Loader() {
+      super(MethodOptimizerTest.class.getClassLoader());
+    }
+
+    Class<?> define(String klass, byte[] bytes) {
+      return defineClass(klass.replace('/', '.'), bytes, 0, bytes.length);
+    }
+  }
+
+  private static Class<?> load(String klass, byte[] bytes) {
+    return new Loader().define(klass, bytes);
+  }
+
+  /** @return what main printed, and what it threw */
+  private static String runMain(Class<?> cls, String... args) throws ReflectiveOperationException {
+    PrintStream out = System.out;
+    PrintStream err = System.err;
+    ByteArrayOutputStream printed = new ByteArrayOutputStream();
+    try (PrintStream p = new PrintStream(printed, true, "UTF-8")) {
+      System.setOut(p);
+      System.setErr(p);
+      try {
+        cls.getMethod("main", String[].class).invoke(null, (Object) args);
+      } catch (InvocationTargetException e) {
+        p.println("threw " + e.getCause().getClass().getName());
+      }
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    } finally {
+      System.setOut(out);
+      System.setErr(err);
+    }
+    return new String(printed.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testStackMaps() throws Exception {
+    String klass = "shrike/StackMaps";
+    Class<?> original = load(klass, read(klass));
+    Class<?> optimized = load(klass, patchAndOptimize(klass));
+
+    int[][] fields = {{3, 2}, {7, 9}, {4, 4}};
+    for (int[] f : fields) {
+      Object o = original.getConstructor(int.class, int.class).newInstance(f[0], f[1]);
+      Object p = optimized.getConstructor(int.class, int.class).newInstance(f[0], f[1]);
+      for (String m : new String[] {"max", "min"}) {
+        Assert.assertEquals(m, original.getMethod(m).invoke(o), optimized.getMethod(m).invoke(p));
+      }
+    }
+
+    for (String[] args : new String[][] {{"max"}, {"min"}, {}}) {
+      String expected = runMain(original, args);
+      Assert.assertFalse(expected.isEmpty());
+      Assert.assertEquals(expected, runMain(optimized, args));
+    }
+  }
+
+  @Test
+  public void testFloatingPoints() throws Exception {
+    String klass = "shrike/FloatingPoints";
+    Class<?> original = load(klass, read(klass));
+    Class<?> optimized = load(klass, patchAndOptimize(klass));
+
+    String expected = runMain(original);
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected, runMain(optimized));
+  }
+}
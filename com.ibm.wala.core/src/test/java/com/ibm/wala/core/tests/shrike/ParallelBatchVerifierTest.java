@@ -0,0 +1,174 @@
+package com.ibm.wala.core.tests.shrike;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.shrike.shrikeBT.Decoder;
+import com.ibm.wala.shrike.shrikeBT.MethodData;
+import com.ibm.wala.shrike.shrikeBT.analysis.Analyzer.FailureException;
+import com.ibm.wala.shrike.shrikeBT.analysis.ClassHierarchyStore;
+import com.ibm.wala.shrike.shrikeBT.analysis.Verifier;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTDecoder;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTUtils;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.OfflineInstrumenter;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.tools.ParallelBatchVerifier;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.CodeReader;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelBatchVerifierTest extends WalaTestCase {
+  private static final String BROKEN = "shrike/FloatingPoints";
+
+  private static final String BROKEN_METHOD = BROKEN + ".doubble ()V";
+
+  /** @return the classes of the JUnit jar, a multi-class jar that is always on the classpath */
+  private static List<ClassReader> readJar() throws IOException, URISyntaxException {
+    File jar = new File(Test.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    Assert.assertTrue(jar + " is not a jar", jar.getName().endsWith(".jar"));
+    OfflineInstrumenter oi = new OfflineInstrumenter();
+    oi.addInputJar(jar);
+    oi.beginTraversal();
+    List<ClassReader> classes = new ArrayList<>();
+    ClassInstrumenter ci;
+    while ((ci = oi.nextClass()) != null) {
+      classes.add(ci.getReader());
+    }
+    oi.close();
+    Assert.assertTrue(classes.size() > 100);
+    return classes;
+  }
+
+  /** @return shrike/FloatingPoints with the dadd of doubble() replaced by an iadd */
+  private static ClassReader readBroken() throws IOException, InvalidClassFileException {
+    byte[] bytes =
+        Files.readAllBytes(Paths.get(getClasspathEntry("testSubjects"), BROKEN + ".class"));
+    ClassReader cr = new ClassReader(bytes);
+    for (int i = 0; i < cr.getMethodCount(); i++) {
+      if (cr.getMethodName(i).equals("doubble")) {
+        ClassReader.AttrIterator iter = new ClassReader.AttrIterator();
+        for (cr.initMethodAttributeIterator(i, iter); iter.isValid(); iter.advance()) {
+          if (iter.getName().equals("Code")) {
+            byte[] code = new CodeReader(iter).getBytecode();
+            for (int pc = 0; pc < code.length; pc++) {
+              if (code[pc] == (byte) 0x63) {
+                // the bytecode starts after the attribute header, max_stack, max_locals and
+                // code_length
+                bytes[iter.getRawOffset() + 14 + pc] = (byte) 0x60;
+                return new ClassReader(bytes);
+              }
+            }
+          }
+        }
+      }
+    }
+    throw new AssertionError("no dadd in " + BROKEN);
+  }
+
+  /**
+   * Verify the methods of classes one after the other, like {@link
+   * com.ibm.wala.shrike.shrikeBT.shrikeCT.tools.BatchVerifier}, but against a class hierarchy of
+   * all classes as {@link ParallelBatchVerifier} does.
+   *
+   * @return the failing methods
+   */
+  private static SortedSet<String> verifySequentially(List<ClassReader> classes, int[] verified)
+      throws InvalidClassFileException, Decoder.InvalidBytecodeException {
+    ClassHierarchyStore store = new ClassHierarchyStore();
+    for (ClassReader cr : classes) {
+      CTUtils.addClassToHierarchy(store, cr);
+    }
+    SortedSet<String> failures = new TreeSet<>();
+    ClassReader.AttrIterator iter = new ClassReader.AttrIterator();
+    for (ClassReader cr : classes) {
+      for (int i = 0; i < cr.getMethodCount(); i++) {
+        for (cr.initMethodAttributeIterator(i, iter); iter.isValid(); iter.advance()) {
+          if (iter.getName().equals("Code")) {
+            CTDecoder d = new CTDecoder(new CodeReader(iter));
+            d.decode();
+            MethodData md =
+                new MethodData(
+                    d,
+                    cr.getMethodAccessFlags(i),
+                    CTDecoder.convertClassToType(cr.getName()),
+                    cr.getMethodName(i),
+                    cr.getMethodType(i));
+            Verifier v = new Verifier(md);
+            v.setClassHierarchy(store);
+            try {
+              v.verify();
+            } catch (FailureException e) {
+              failures.add(cr.getName() + '.' + cr.getMethodName(i) + ' ' + cr.getMethodType(i));
+            }
+            verified[0]++;
+            break;
+          }
+        }
+      }
+    }
+    return failures;
+  }
+
+  private static SortedSet<String> methods(List<ParallelBatchVerifier.Failure> failures) {
+    SortedSet<String> methods = new TreeSet<>();
+    for (ParallelBatchVerifier.Failure f : failures) {
+      methods.add(f.getMethod());
+    }
+    Assert.assertEquals("a method failed twice", failures.size(), methods.size());
+    return methods;
+  }
+
+  @Test
+  public void testSameAsSequential()
+      throws IOException, URISyntaxException, InvalidClassFileException,
+          Decoder.InvalidBytecodeException {
+    List<ClassReader> classes = readJar();
+    classes.add(readBroken());
+
+    int[] verified = {0};
+    SortedSet<String> expected = verifySequentially(classes, verified);
+    Assert.assertTrue(expected.contains(BROKEN_METHOD));
+
+    ParallelBatchVerifier verifier = new ParallelBatchVerifier(false);
+    for (ClassReader cr : classes) {
+      verifier.addClass(cr);
+    }
+    List<ParallelBatchVerifier.Failure> failures = verifier.verify(4);
+    Assert.assertEquals(expected, methods(failures));
+    Assert.assertEquals(verified[0], verifier.getMethodsVerified());
+    Assert.assertEquals(classes.size(), verifier.getClassCount());
+  }
+
+  @Test
+  public void testReport() throws IOException, URISyntaxException, InvalidClassFileException {
+    List<ClassReader> classes = readJar();
+    classes.add(readBroken());
+    ParallelBatchVerifier verifier = new ParallelBatchVerifier(true);
+    for (ClassReader cr : classes) {
+      verifier.addClass(cr);
+    }
+    List<ParallelBatchVerifier.Failure> failures = verifier.verify(4);
+    for (int i = 1; i < failures.size(); i++) {
+      Assert.assertTrue(failures.get(i - 1).getMethod().compareTo(failures.get(i).getMethod()) < 0);
+    }
+    ParallelBatchVerifier.Failure broken = null;
+    for (ParallelBatchVerifier.Failure f : failures) {
+      if (f.getMethod().equals(BROKEN_METHOD)) {
+        broken = f;
+      }
+    }
+    Assert.assertNotNull(broken);
+    Assert.assertTrue(broken.getReport().startsWith("Verifying " + BROKEN_METHOD + ":\n"));
+    Assert.assertTrue(broken.getReport().contains("ShrikeBT code:"));
+    Assert.assertTrue(broken.getReport().contains("VERIFICATION FAILED"));
+  }
+}
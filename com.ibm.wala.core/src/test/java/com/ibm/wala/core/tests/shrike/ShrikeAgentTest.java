@@ -0,0 +1,140 @@
+package com.ibm.wala.core.tests.shrike;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.shrike.instrumentation.ClassTransform;
+import com.ibm.wala.shrike.instrumentation.ShrikeAgent;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.ClassWriter;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import java.io.IOException;
+import java.lang.instrument.IllegalClassFormatException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShrikeAgentTest extends WalaTestCase {
+  private static final String KLASS = "shrike/FloatingPoints";
+
+  /** Re-emits each class, counting how often it is asked to. */
+  public static class CountingTransform implements ClassTransform {
+    final AtomicInteger calls = new AtomicInteger();
+
+    volatile String options;
+
+    public CountingTransform() {
+      this("");
+    }
+
+    CountingTransform(String options) {
+      this.options = options;
+    }
+
+    @Override
+    public ClassWriter transform(ClassInstrumenter ci) throws InvalidClassFileException {
+      calls.incrementAndGet();
+      return ci.emitClass();
+    }
+
+    @Override
+    public String getOptions() {
+      return options;
+    }
+  }
+
+  private static byte[] bytes() throws IOException {
+    return Files.readAllBytes(Paths.get(getClasspathEntry("testSubjects"), KLASS + ".class"));
+  }
+
+  private static byte[] load(ShrikeAgent agent, String name, byte[] bytes)
+      throws IllegalClassFormatException {
+    return agent.transform(ShrikeAgentTest.class.getClassLoader(), name, null, null, bytes);
+  }
+
+  @Test
+  public void testCacheHit()
+      throws IOException, IllegalClassFormatException, InvalidClassFileException {
+    CountingTransform transform = new CountingTransform();
+    ShrikeAgent agent = new ShrikeAgent(transform);
+    byte[] first = load(agent, KLASS, bytes());
+    byte[] second = load(agent, KLASS, bytes());
+
+    Assert.assertEquals(1, transform.calls.get());
+    Assert.assertEquals(1, agent.getCacheHits());
+    Assert.assertArrayEquals(first, second);
+    Assert.assertEquals(KLASS, new ClassReader(first).getName());
+  }
+
+  /** a result is only reused while the transform describes its options the same way */
+  @Test
+  public void testOptionsAreKey() throws IOException, IllegalClassFormatException {
+    CountingTransform transform = new CountingTransform("a");
+    ShrikeAgent agent = new ShrikeAgent(transform);
+    load(agent, KLASS, bytes());
+    transform.options = "b";
+    load(agent, KLASS, bytes());
+    Assert.assertEquals(2, transform.calls.get());
+    Assert.assertEquals(0, agent.getCacheHits());
+
+    transform.options = "a";
+    load(agent, KLASS, bytes());
+    Assert.assertEquals(2, transform.calls.get());
+    Assert.assertEquals(1, agent.getCacheHits());
+  }
+
+  @Test
+  public void testNoCache() throws IOException, IllegalClassFormatException {
+    CountingTransform transform = new CountingTransform();
+    ShrikeAgent agent = new ShrikeAgent(transform, 0);
+    byte[] first = load(agent, KLASS, bytes());
+    byte[] second = load(agent, KLASS, bytes());
+
+    Assert.assertEquals(2, transform.calls.get());
+    Assert.assertEquals(0, agent.getCacheHits());
+    Assert.assertArrayEquals(first, second);
+  }
+
+  @Test
+  public void testUnchangedIsCached() throws IOException, IllegalClassFormatException {
+    AtomicInteger calls = new AtomicInteger();
+    ShrikeAgent agent =
+        new ShrikeAgent(
+            ci -> {
+              calls.incrementAndGet();
+              return null;
+            });
+    Assert.assertNull(load(agent, KLASS, bytes()));
+    Assert.assertNull(load(agent, KLASS, bytes()));
+    Assert.assertEquals(1, calls.get());
+    Assert.assertEquals(1, agent.getCacheHits());
+  }
+
+  @Test
+  public void testExcluded() throws IOException, IllegalClassFormatException {
+    CountingTransform transform = new CountingTransform();
+    ShrikeAgent agent = new ShrikeAgent(transform);
+    Assert.assertNull(load(agent, "java/lang/FloatingPoints", bytes()));
+    Assert.assertNull(load(agent, null, bytes()));
+    Assert.assertEquals(0, transform.calls.get());
+  }
+
+  @Test
+  public void testAgentArgs() throws IOException, IllegalClassFormatException {
+    ShrikeAgent agent = ShrikeAgent.make(CountingTransform.class.getName() + ",cache=0");
+    load(agent, KLASS, bytes());
+    load(agent, KLASS, bytes());
+    Assert.assertEquals(0, agent.getCacheHits());
+
+    agent = ShrikeAgent.make(CountingTransform.class.getName());
+    load(agent, KLASS, bytes());
+    load(agent, KLASS, bytes());
+    Assert.assertEquals(1, agent.getCacheHits());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadAgentArgs() {
+    ShrikeAgent.make(CountingTransform.class.getName() + ",cache=many");
+  }
+}
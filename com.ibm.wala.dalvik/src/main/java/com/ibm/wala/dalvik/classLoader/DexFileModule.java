@@ -47,20 +47,35 @@
 
 package com.ibm.wala.dalvik.classLoader;
 
+import com.google.common.io.ByteStreams;
 import com.ibm.wala.classLoader.Module;
 import com.ibm.wala.classLoader.ModuleEntry;
-import com.ibm.wala.util.io.TemporaryFile;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.jar.JarFile;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import org.jf.dexlib2.DexFileFactory;
 import org.jf.dexlib2.Opcodes;
+import org.jf.dexlib2.dexbacked.DexBackedDexFile;
+import org.jf.dexlib2.dexbacked.DexBackedDexFile.NotADexFile;
 import org.jf.dexlib2.iface.ClassDef;
 import org.jf.dexlib2.iface.DexFile;
+import org.jf.dexlib2.util.DexUtil;
+import org.jf.dexlib2.util.DexUtil.InvalidFile;
+import org.jf.dexlib2.util.DexUtil.UnsupportedFile;
 
 /**
  * A module which is a wrapper around .dex and .apk file.
@@ -80,31 +95,99 @@ public class DexFileModule implements Module {
   public static DexFileModule make(File f, int apiLevel)
       throws IllegalArgumentException, IOException {
     if (f.getName().endsWith("jar")) {
-      try (final JarFile jar = new JarFile(f)) {
-        return new DexFileModule(jar);
+      try (final ZipFile jar = new ZipFile(f)) {
+        ZipEntry classes = jar.getEntry("classes.dex");
+        if (classes == null) {
+          throw new IllegalArgumentException("no classes.dex in " + f);
+        }
+        return new DexFileModule(f, readDexEntry(jar, classes, apiLevel));
       }
     } else {
       return new DexFileModule(f, apiLevel);
     }
   }
 
-  private static File tf(JarFile f) throws IOException {
-    String name = f.getName();
-    if (name.indexOf('/') >= 0) {
-      name = name.substring(name.lastIndexOf('/') + 1);
+  /** Matches the names of the dex files of a multi-dex APK: classes.dex, classes2.dex, ... */
+  private static final Pattern DEX_ENTRY = Pattern.compile("classes(\\d*)\\.dex");
+
+  /**
+   * Make one module for each dex file of an APK or jar. As with {@link
+   * DexFileFactory#loadDexContainer}, every entry of the archive that has a valid dex header is
+   * loaded, wherever it is and whatever its name. The dex files are read directly from the archive,
+   * without extracting them to disk, and are parsed in parallel.
+   *
+   * <p>The modules of classes.dex, classes2.dex, ... classesN.dex come first, in the order in which
+   * the Android runtime searches them, followed by any other dex entries in archive order. A class
+   * defined in more than one dex file therefore resolves the same way on every run.
+   *
+   * @param f the .apk or .jar file
+   * @param apiLevel the api level wanted, or {@link #AUTO_INFER_API_LEVEL}
+   */
+  public static List<DexFileModule> makeAll(File f, int apiLevel) throws IOException {
+    try (final ZipFile zip = new ZipFile(f)) {
+      List<ZipEntry> dexEntries = new ArrayList<>();
+      for (ZipEntry e : Collections.list(zip.entries())) {
+        if (!e.isDirectory() && isDex(zip, e)) {
+          dexEntries.add(e);
+        }
+      }
+      dexEntries.sort(Comparator.comparingInt(DexFileModule::dexEntryIndex));
+
+      try {
+        return dexEntries
+            .parallelStream()
+            .map(
+                e -> {
+                  try {
+                    return new DexFileModule(f, readDexEntry(zip, e, apiLevel));
+                  } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                  }
+                })
+            .collect(Collectors.toList());
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  /** @return true if e starts with a dex header, the same test dexlib2 uses for zip containers */
+  private static boolean isDex(ZipFile zip, ZipEntry e) throws IOException {
+    try (InputStream s = new BufferedInputStream(zip.getInputStream(e))) {
+      DexUtil.verifyDexHeader(s);
+      return true;
+    } catch (NotADexFile | InvalidFile | UnsupportedFile ex) {
+      return false;
+    }
+  }
+
+  /**
+   * @return 1 for classes.dex, N for classesN.dex, and {@link Integer#MAX_VALUE} for any other dex
+   *     entry
+   */
+  private static int dexEntryIndex(ZipEntry e) {
+    Matcher m = DEX_ENTRY.matcher(e.getName());
+    if (!m.matches()) {
+      return Integer.MAX_VALUE;
+    } else if (m.group(1).isEmpty()) {
+      return 1;
     }
-    File tf = Files.createTempFile("name", "_classes.dex").toFile();
-    tf.deleteOnExit();
-    System.err.println("using " + tf);
-    return tf;
+    return Integer.parseInt(m.group(1));
   }
 
-  private DexFileModule(JarFile f) throws IllegalArgumentException, IOException {
-    this(TemporaryFile.streamToFile(tf(f), f.getInputStream(f.getEntry("classes.dex"))));
+  private static DexFile readDexEntry(ZipFile zip, ZipEntry e, int apiLevel) throws IOException {
+    byte[] bytes;
+    try (InputStream s = zip.getInputStream(e)) {
+      bytes = ByteStreams.toByteArray(s);
+    }
+    return new DexBackedDexFile(
+        apiLevel == AUTO_INFER_API_LEVEL ? null : Opcodes.forApi(apiLevel), bytes);
   }
 
-  private DexFileModule(File f) throws IllegalArgumentException {
-    this(f, AUTO_INFER_API_LEVEL);
+  private DexFileModule(File f, DexFile dexfile) {
+    this.f = f;
+    this.dexfile = dexfile;
+    this.entries = makeEntries();
   }
 
   /** @param f the .dex or .apk file */
@@ -118,12 +201,7 @@ public class DexFileModule implements Module {
       throw new IllegalArgumentException(e);
     }
 
-    // create ModuleEntries from ClassDefItem
-    entries = new HashSet<>();
-
-    for (ClassDef cdefitems : dexfile.getClasses()) {
-      entries.add(new DexModuleEntry(cdefitems, this));
-    }
+    entries = makeEntries();
   }
 
   /**
@@ -145,17 +223,22 @@ public class DexFileModule implements Module {
       throw new IllegalArgumentException(e);
     }
 
-    // create ModuleEntries from ClassDefItem
-    entries = new HashSet<>();
-    for (ClassDef cdefitems : dexfile.getClasses()) {
-      entries.add(new DexModuleEntry(cdefitems, this));
-    }
+    entries = makeEntries();
   }
 
   public DexFileModule(File f, String entry) throws IllegalArgumentException {
     this(f, entry, AUTO_INFER_API_LEVEL);
   }
 
+  /** create ModuleEntries from ClassDefItem, in the order of the dex file */
+  private Collection<ModuleEntry> makeEntries() {
+    Collection<ModuleEntry> result = new LinkedHashSet<>();
+    for (ClassDef cdefitems : dexfile.getClasses()) {
+      result.add(new DexModuleEntry(cdefitems, this));
+    }
+    return result;
+  }
+
   /** @return The DexFile associated to this module. */
   public DexFile getDexFile() {
     return dexfile;
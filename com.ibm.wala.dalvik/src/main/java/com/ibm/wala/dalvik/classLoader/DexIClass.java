@@ -380,4 +380,17 @@ public class DexIClass extends BytecodeClass<IClassLoader> {
   public DexFileModule getContainer() {
     return dexModuleEntry.getContainer();
   }
+
+  /**
+   * Drop the decoded instructions of all methods of this class.
+   *
+   * @see DexIMethod#clearCaches()
+   */
+  public void clearSoftCaches() {
+    if (methods != null) {
+      for (IMethod m : methods) {
+        ((DexIMethod) m).clearCaches();
+      }
+    }
+  }
 }
@@ -107,6 +107,7 @@ import com.ibm.wala.types.Selector;
 import com.ibm.wala.types.TypeName;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.types.annotations.Annotation;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -117,6 +118,7 @@ import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jf.dexlib2.DebugItemType;
 import org.jf.dexlib2.Opcode;
 import org.jf.dexlib2.analysis.ClassPath;
@@ -181,9 +183,18 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 
   private ExceptionHandler[][] handlers;
 
+  /** The instructions being decoded by {@link #parseBytecode()}; null at all other times. */
   protected InstructionArray instructions;
 
-  private static int totalInsts = 0;
+  /**
+   * The decoded instructions. They are held softly, like the IR in the SSACache, so that the
+   * decoded code of methods that are no longer analyzed can be reclaimed; they are decoded again
+   * from {@link #eMethod} when needed.
+   */
+  private SoftReference<InstructionArray> decoded;
+
+  /** Number of dex instructions decoded so far, by all methods. */
+  private static final AtomicInteger totalInsts = new AtomicInteger();
 
   public DexIMethod(Method encodedMethod, DexIClass klass) {
     eMethod = encodedMethod;
@@ -191,7 +202,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
   }
 
   public static int getTotalInsts() {
-    return totalInsts;
+    return totalInsts.get();
   }
 
   // ------------------------------------------
@@ -739,9 +750,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
 
   @Override
   public Instruction[] getInstructions() {
-    if (instructions == null) parseBytecode();
-
-    return instructions.toArray(new Instruction[0]);
+    return instructions().toArray(new Instruction[0]);
   }
 
   private boolean odexMethod() {
@@ -907,7 +916,6 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
     // int pc = 0;
     int currentCodeAddress = 0;
     for (org.jf.dexlib2.iface.instruction.Instruction inst : instrucs) {
-      totalInsts++;
       instCounter++;
       //          instLoc = pc - instCounter;
       instLoc = currentCodeAddress;
@@ -3540,6 +3548,7 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
       }
       currentCodeAddress += inst.getCodeUnits();
     }
+    totalInsts.addAndGet(instCounter + 1);
 
     //// comment out start
     ////        Instruction[] iinstructions = new Instruction[instrucs.length];
@@ -4547,9 +4556,39 @@ public class DexIMethod implements IBytecodeMethod<Instruction> {
     return instructions().toArray(new Instruction[0]);
   }
 
-  protected InstructionArray instructions() {
-    if (instructions == null) parseBytecode();
-    return instructions;
+  /**
+   * Get the decoded instructions of this method, decoding them if they have not been decoded yet or
+   * have been reclaimed since.
+   */
+  protected synchronized InstructionArray instructions() {
+    if (instructions != null) {
+      // called back from parseBytecode
+      return instructions;
+    }
+    InstructionArray result = decoded == null ? null : decoded.get();
+    if (result == null) {
+      try {
+        parseBytecode();
+        result = instructions;
+      } finally {
+        instructions = null;
+      }
+      decoded = new SoftReference<>(result);
+    }
+    return result;
+  }
+
+  /**
+   * Drop the decoded instructions; they will be decoded again when needed.
+   *
+   * <p>The decoded instructions are held softly, so the garbage collector reclaims them under
+   * memory pressure without any help. {@link com.ibm.wala.core.util.ref.ReferenceCleanser} does not
+   * know about Dex classes, so nothing calls this method implicitly: it is meant for {@link
+   * DexIClass#clearSoftCaches()}, for tools that measure decoding (e.g. {@code DexIRBenchmark}),
+   * and for clients that want to release the memory of methods they are done with eagerly.
+   */
+  public synchronized void clearCaches() {
+    decoded = null;
   }
 
   public int getAddressFromIndex(int index) {
@@ -71,9 +71,14 @@ import com.ibm.wala.types.FieldReference;
 import com.ibm.wala.types.MethodReference;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Pair;
+import java.lang.ref.SoftReference;
 import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * An {@link SSAContextInterpreter} that redirects functions that start Android-Components.
@@ -86,6 +91,11 @@ import java.util.Set;
  * <p>Methods are replacement by generating a adapted Intermediate Representation of this function
  * on every occurrence of a call to it.
  *
+ * <p>The models are built once per resolved target and the wrappers once per target, replaced
+ * function and caller, so all nodes starting the same target share them. The IR of each node is
+ * kept as well, as it is asked for repeatedly during the call graph construction; it is only softly
+ * referenced, and rebuilt from the wrapper if the garbage collector dropped it.
+ *
  * @see com.ibm.wala.dalvik.ipa.callgraph.propagation.cfa.IntentContextSelector
  * @see com.ibm.wala.dalvik.ipa.callgraph.propagation.cfa.IntentStarters
  * @see com.ibm.wala.dalvik.ipa.callgraph.androidModel.MicroModel
@@ -99,6 +109,17 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
   private final AnalysisOptions options;
   private final IAnalysisCacheView cache;
 
+  /** The model of each target, keyed by the IntentType and the action or component. */
+  private final Map<Pair<Intent.IntentType, Object>, AndroidModel> models = HashMapFactory.make();
+
+  /** The wrappers of each model, keyed by the model, the replaced function and the caller. */
+  private final Map<
+          Pair<Pair<Intent.IntentType, Object>, Pair<MethodReference, TypeReference>>,
+          SummarizedMethod>
+      stubs = HashMapFactory.make();
+
+  private final Map<CGNode, SoftReference<IR>> irs = HashMapFactory.make();
+
   public IntentContextInterpreter(
       IClassHierarchy cha, final AnalysisOptions options, final IAnalysisCacheView cache) {
     this.cha = cha;
@@ -150,7 +171,40 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
   }
 
   /**
-   * Generates an adapted IR of the managed functions on each call.
+   * Get the wrapper of the model for a target, building model and wrapper if not done before.
+   *
+   * @param type the IntentType the model is selected by
+   * @param target the action or component the model is built for
+   * @param newModel creates the model if there is none for type and target yet
+   */
+  private SummarizedMethod getStub(
+      final Intent.IntentType type,
+      final Object target,
+      final Supplier<AndroidModel> newModel,
+      final MethodReference asMethod,
+      final TypeReference callingClass,
+      final IntentStarters.StartInfo info,
+      final CGNode node)
+      throws CancelException {
+    final Pair<Intent.IntentType, Object> modelKey = Pair.make(type, target);
+    final Pair<Pair<Intent.IntentType, Object>, Pair<MethodReference, TypeReference>> stubKey =
+        Pair.make(modelKey, Pair.make(asMethod, callingClass));
+    SummarizedMethod stub = stubs.get(stubKey);
+    if (stub != null) {
+      return stub;
+    }
+    AndroidModel model = models.get(modelKey);
+    if (model == null) {
+      model = newModel.get();
+      models.put(modelKey, model);
+    }
+    stub = model.getMethodAs(asMethod, callingClass, info, node);
+    stubs.put(stubKey, stub);
+    return stub;
+  }
+
+  /**
+   * Generates an adapted IR of the managed functions, once per node.
    *
    * @param node The function to create the IR of
    * @throws IllegalArgumentException on a node of null
@@ -161,8 +215,19 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
       throw new IllegalArgumentException("node is null");
     }
     assert understands(node); // Should already have been checked before
+    final SoftReference<IR> cached = irs.get(node);
+    IR ir = cached == null ? null : cached.get();
+    if (ir == null) {
+      ir = makeIR(node);
+      if (ir != null) {
+        irs.put(node, new SoftReference<>(ir));
+      }
+    }
+    return ir;
+  }
+
+  private IR makeIR(CGNode node) {
     {
-      // TODO: CACHE!
       final Context ctx = node.getContext();
       final TypeReference callingClass = getCaller(ctx, node);
 
@@ -173,7 +238,8 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
               AndroidEntryPointManager.MANAGER.getIntent(inIntent); // Apply overrides
           final IMethod method = node.getMethod();
 
-          final AndroidModel model;
+          final Object target;
+          final Supplier<AndroidModel> model;
           final IntentStarters.StartInfo info;
           Intent.IntentType type = intent.getType();
           if (intent.getAction().equals(Intent.UNBOUND)) {
@@ -184,7 +250,9 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
               case INTERNAL_TARGET:
                 info = intentStarters.getInfo(method.getReference());
 
-                model = new MicroModel(this.cha, this.options, this.cache, intent.getAction());
+                target = intent.getAction();
+                model =
+                    () -> new MicroModel(this.cha, this.options, this.cache, intent.getAction());
 
                 break;
               case SYSTEM_SERVICE:
@@ -195,16 +263,20 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
                         EnumSet.of(AndroidComponent.SERVICE),
                         new int[] {1});
 
+                target = intent.getAction();
                 model =
-                    new SystemServiceModel(this.cha, this.options, this.cache, intent.getAction());
+                    () ->
+                        new SystemServiceModel(
+                            this.cha, this.options, this.cache, intent.getAction());
 
                 break;
               case EXTERNAL_TARGET:
                 info = intentStarters.getInfo(method.getReference());
 
+                final AndroidComponent externalComponent = fetchTargetComponent(intent, method);
+                target = externalComponent;
                 model =
-                    new ExternalModel(
-                        this.cha, this.options, this.cache, fetchTargetComponent(intent, method));
+                    () -> new ExternalModel(this.cha, this.options, this.cache, externalComponent);
 
                 break;
               case STANDARD_ACTION:
@@ -214,9 +286,12 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
               case UNKNOWN_TARGET:
                 info = intentStarters.getInfo(method.getReference());
 
+                final AndroidComponent unknownComponent = fetchTargetComponent(intent, method);
+                target = unknownComponent;
                 model =
-                    new UnknownTargetModel(
-                        this.cha, this.options, this.cache, fetchTargetComponent(intent, method));
+                    () ->
+                        new UnknownTargetModel(
+                            this.cha, this.options, this.cache, unknownComponent);
 
                 break;
               case IGNORE:
@@ -233,7 +308,7 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
           } // of model and info
 
           final SummarizedMethod override =
-              model.getMethodAs(method.getReference(), callingClass, info, node);
+              getStub(type, target, model, method.getReference(), callingClass, info, node);
           return override.makeIR(ctx, this.options.getSSAOptions());
         } catch (CancelException e) {
           throw new IllegalStateException("The operation was canceled.", e);
@@ -250,10 +325,11 @@ public class IntentContextInterpreter implements SSAContextInterpreter {
         final AndroidComponent targetComponent = fetchTargetComponent(intent, method);
 
         try {
-          final UnknownTargetModel model =
-              new UnknownTargetModel(this.cha, this.options, this.cache, targetComponent);
           final SummarizedMethod override =
-              model.getMethodAs(
+              getStub(
+                  Intent.IntentType.UNKNOWN_TARGET,
+                  targetComponent,
+                  () -> new UnknownTargetModel(this.cha, this.options, this.cache, targetComponent),
                   method.getReference(),
                   callingClass,
                   intentStarters.getInfo(method.getReference()),
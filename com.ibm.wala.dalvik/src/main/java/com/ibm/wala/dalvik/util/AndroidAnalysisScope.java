@@ -53,6 +53,23 @@ public class AndroidAnalysisScope {
   public static AnalysisScope setUpAndroidAnalysisScope(
       URI codeFileName, int apiLevel, String exclusions, ClassLoader loader, URI... androidLib)
       throws IOException {
+    AnalysisScope scope = setUpFrameworkScope(exclusions, loader, androidLib);
+    addApplicationToScope(scope, new File(codeFileName), apiLevel);
+    return scope;
+  }
+
+  /**
+   * Creates an Analysis Scope containing only the Android framework, i.e. everything {@link
+   * #setUpAndroidAnalysisScope(URI, int, String, ClassLoader, URI...)} adds besides the
+   * application.
+   *
+   * @param exclusions the name of the exclusions file (nullable)
+   * @param loader the classloader to use
+   * @param androidLib an array of libraries (e.g. the Android SDK jar) to add to the scope
+   * @return a {@link AnalysisScope}
+   */
+  public static AnalysisScope setUpFrameworkScope(
+      String exclusions, ClassLoader loader, URI... androidLib) throws IOException {
     AnalysisScope scope;
     File exclusionsFile = exclusions != null ? new File(exclusions) : null;
 
@@ -88,11 +105,22 @@ public class AndroidAnalysisScope {
     scope.setLoaderImpl(
         ClassLoaderReference.Application, "com.ibm.wala.dalvik.classLoader.WDexClassLoaderImpl");
 
-    File codeFile = new File(codeFileName);
-    boolean isContainerFile =
-        codeFile.getName().endsWith(".oat") || codeFile.getName().endsWith(".apk");
+    return scope;
+  }
 
-    if (isContainerFile) {
+  /**
+   * Add the code of an application to the Application loader of scope.
+   *
+   * @param codeFile a .oat|.apk|.dex file
+   * @param apiLevel the api level wanted, or {@link DexFileModule#AUTO_INFER_API_LEVEL}
+   */
+  public static void addApplicationToScope(AnalysisScope scope, File codeFile, int apiLevel)
+      throws IOException {
+    if (codeFile.getName().endsWith(".apk")) {
+      for (DexFileModule dexModule : DexFileModule.makeAll(codeFile, apiLevel)) {
+        scope.addToScope(ClassLoaderReference.Application, dexModule);
+      }
+    } else if (codeFile.getName().endsWith(".oat")) {
       MultiDexContainer<? extends DexBackedDexFile> multiDex =
           DexFileFactory.loadDexContainer(
               codeFile,
@@ -105,8 +133,6 @@ public class AndroidAnalysisScope {
     } else {
       scope.addToScope(ClassLoaderReference.Application, DexFileModule.make(codeFile, apiLevel));
     }
-
-    return scope;
   }
 
   /** Handle .apk file. */
@@ -0,0 +1,318 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.dalvik.util;
+
+import com.ibm.wala.classLoader.ClassLoaderFactoryImpl;
+import com.ibm.wala.classLoader.IClassLoader;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.dalvik.classLoader.DexFileModule;
+import com.ibm.wala.dalvik.classLoader.DexIRFactory;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.DefUse;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.IRFactory;
+import com.ibm.wala.types.ClassLoaderReference;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analyzes many applications against one Android framework.
+ *
+ * <p>The framework (the Primordial and Extension loaders of {@link
+ * AndroidAnalysisScope#setUpFrameworkScope}) is loaded once, into a ClassHierarchy of its own. The
+ * ClassHierarchy of each application reuses these loaders instead of reading android.jar again, and
+ * the IR of framework methods is kept in a cache shared by all applications. Everything of an
+ * application - its scope, ClassHierarchy, synthetic classes and IR - is dropped once its analysis
+ * is done.
+ *
+ * <p>Applications are analyzed one after the other. The framework classes compute some of their
+ * state (e.g. the decoded instructions of a method) lazily and without synchronization, and
+ * settings such as {@link AndroidEntryPointManager#MANAGER} are kept in static state, so neither
+ * may be used by two analyses at once. An instance must therefore only be used by one thread at a
+ * time.
+ */
+public class AndroidBatchAnalysis {
+
+  /** The analysis to run on each application. */
+  public interface AppAnalysis<T> {
+    /**
+     * @param scope the scope of the application, including the framework
+     * @param cha the ClassHierarchy of the application, including the framework
+     * @param cache an IR cache sharing the IR of framework methods with the other applications
+     */
+    T analyze(AnalysisScope scope, IClassHierarchy cha, IAnalysisCacheView cache) throws Exception;
+  }
+
+  /** The outcome of analyzing one application. */
+  public static final class Result<T> {
+    private final File app;
+    private final T value;
+    private final Throwable failure;
+    private final long millis;
+    private final long allocatedBytes;
+
+    private Result(File app, T value, Throwable failure, long millis, long allocatedBytes) {
+      this.app = app;
+      this.value = value;
+      this.failure = failure;
+      this.millis = millis;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    public File getApp() {
+      return app;
+    }
+
+    /** @return the value returned by the analysis, or null if it failed */
+    public T getValue() {
+      return value;
+    }
+
+    /** @return the exception the analysis failed with, or null if it succeeded */
+    public Throwable getFailure() {
+      return failure;
+    }
+
+    /** @return the wall-clock time of the analysis, including building its ClassHierarchy */
+    public long getMillis() {
+      return millis;
+    }
+
+    /**
+     * @return the bytes allocated while analyzing the application (including the IR it added to the
+     *     shared framework cache), or -1 if the JVM does not measure them
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return app
+          + ": "
+          + (failure == null ? "ok" : failure.toString())
+          + ", "
+          + millis
+          + "ms, "
+          + allocatedBytes
+          + " bytes allocated";
+    }
+  }
+
+  private final int apiLevel;
+
+  private final AnalysisScope frameworkScope;
+
+  private final IClassHierarchy framework;
+
+  private final IRFactory<IMethod> irFactory = new DexIRFactory();
+
+  /** IR of framework methods, shared by all applications */
+  private final AnalysisCacheImpl frameworkIR = new AnalysisCacheImpl(irFactory);
+
+  /**
+   * Load the framework.
+   *
+   * @param apiLevel the api level wanted, or {@link DexFileModule#AUTO_INFER_API_LEVEL}
+   * @param exclusions the name of the exclusions file (nullable)
+   * @param androidLib an array of libraries (e.g. the Android SDK jar) making up the framework
+   */
+  public AndroidBatchAnalysis(int apiLevel, String exclusions, URI... androidLib)
+      throws IOException, ClassHierarchyException {
+    this.apiLevel = apiLevel;
+    this.frameworkScope =
+        AndroidAnalysisScope.setUpFrameworkScope(
+            exclusions, AndroidBatchAnalysis.class.getClassLoader(), androidLib);
+    this.framework = ClassHierarchyFactory.make(frameworkScope);
+  }
+
+  /** @return the ClassHierarchy containing only the framework */
+  public IClassHierarchy getFrameworkHierarchy() {
+    return framework;
+  }
+
+  /** Create the scope of an application, sharing the framework modules. */
+  public AnalysisScope makeScope(File app) throws IOException {
+    AnalysisScope scope = AnalysisScope.createJavaAnalysisScope();
+    scope.setExclusions(frameworkScope.getExclusions());
+    for (ClassLoaderReference ref : frameworkScope.getLoaders()) {
+      String impl = frameworkScope.getLoaderImpl(ref);
+      if (impl != null) {
+        scope.setLoaderImpl(ref, impl);
+      }
+      for (Module m : frameworkScope.getModules(ref)) {
+        scope.addToScope(ref, m);
+      }
+    }
+    AndroidAnalysisScope.addApplicationToScope(scope, app, apiLevel);
+    return scope;
+  }
+
+  /** Create the ClassHierarchy of an application, sharing the framework loaders. */
+  public IClassHierarchy makeClassHierarchy(AnalysisScope scope) throws ClassHierarchyException {
+    return ClassHierarchyFactory.make(scope, new SharedFrameworkLoaderFactory(scope));
+  }
+
+  /** Create an IR cache for an application, sharing the IR of framework methods. */
+  public IAnalysisCacheView makeCache() {
+    return new SharedFrameworkCache(new AnalysisCacheImpl(irFactory));
+  }
+
+  /** Analyze a single application. */
+  public <T> Result<T> analyze(File app, AppAnalysis<T> analysis) {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    final long thread = Thread.currentThread().getId();
+    final long allocatedBefore = allocatedBytes(threads, thread);
+    final long start = System.nanoTime();
+    T value = null;
+    Throwable failure = null;
+    try {
+      AnalysisScope scope = makeScope(app);
+      value = analysis.analyze(scope, makeClassHierarchy(scope), makeCache());
+    } catch (Exception | OutOfMemoryError | StackOverflowError e) {
+      failure = e;
+    }
+    final long millis = (System.nanoTime() - start) / 1000000;
+    final long allocatedAfter = allocatedBytes(threads, thread);
+    return new Result<>(
+        app,
+        value,
+        failure,
+        millis,
+        (allocatedBefore < 0 || allocatedAfter < 0) ? -1 : allocatedAfter - allocatedBefore);
+  }
+
+  /**
+   * Analyze applications one after the other.
+   *
+   * @return the results, in the order of apps
+   */
+  public <T> List<Result<T>> analyzeAll(List<File> apps, AppAnalysis<T> analysis) {
+    final List<Result<T>> results = new ArrayList<>(apps.size());
+    for (File app : apps) {
+      results.add(analyze(app, analysis));
+    }
+    return results;
+  }
+
+  private static long allocatedBytes(ThreadMXBean threads, long thread) {
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+      if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled()) {
+        return t.getThreadAllocatedBytes(thread);
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isFrameworkLoader(ClassLoaderReference ref) {
+    return ref.equals(ClassLoaderReference.Primordial)
+        || ref.equals(ClassLoaderReference.Extension);
+  }
+
+  /** Hands out the loaders of the framework ClassHierarchy instead of creating new ones. */
+  private final class SharedFrameworkLoaderFactory extends ClassLoaderFactoryImpl {
+    SharedFrameworkLoaderFactory(AnalysisScope scope) {
+      super(scope.getExclusions());
+    }
+
+    @Override
+    protected IClassLoader makeNewClassLoader(
+        ClassLoaderReference classLoaderReference,
+        IClassHierarchy cha,
+        IClassLoader parent,
+        AnalysisScope scope)
+        throws IOException {
+      if (isFrameworkLoader(classLoaderReference)) {
+        return framework.getLoader(classLoaderReference);
+      }
+      return super.makeNewClassLoader(classLoaderReference, cha, parent, scope);
+    }
+  }
+
+  /**
+   * Keeps the context-independent IR of framework methods in the shared cache, and everything else
+   * in a cache of the application.
+   */
+  private final class SharedFrameworkCache implements IAnalysisCacheView {
+    private final IAnalysisCacheView app;
+
+    SharedFrameworkCache(IAnalysisCacheView app) {
+      this.app = app;
+    }
+
+    /** @return the shared cache for method, or null if it belongs to the application */
+    private AnalysisCacheImpl shared(IMethod method, Context context) {
+      // the application ClassHierarchy differs from the framework one, but the framework loaders,
+      // and so the classes they define, are the same objects
+      IClassLoader loader = method.getDeclaringClass().getClassLoader();
+      if (!isFrameworkLoader(loader.getReference())
+          || framework.getLoader(loader.getReference()) != loader) {
+        return null;
+      }
+      if (!Everywhere.EVERYWHERE.equals(context) && !irFactory.contextIsIrrelevant(method)) {
+        return null;
+      }
+      return frameworkIR;
+    }
+
+    @Override
+    public void invalidate(IMethod method, Context C) {
+      AnalysisCacheImpl shared = shared(method, C);
+      if (shared == null) {
+        app.invalidate(method, C);
+      }
+    }
+
+    @Override
+    public IRFactory<IMethod> getIRFactory() {
+      return irFactory;
+    }
+
+    @Override
+    public IR getIR(IMethod method) {
+      return getIR(method, Everywhere.EVERYWHERE);
+    }
+
+    @Override
+    public IR getIR(IMethod method, Context context) {
+      AnalysisCacheImpl shared = shared(method, context);
+      if (shared == null) {
+        return app.getIR(method, context);
+      }
+      return shared.getIR(method, Everywhere.EVERYWHERE);
+    }
+
+    @Override
+    public DefUse getDefUse(IR ir) {
+      AnalysisCacheImpl shared = shared(ir.getMethod(), Everywhere.EVERYWHERE);
+      if (shared == null) {
+        return app.getDefUse(ir);
+      }
+      return shared.getDefUse(ir);
+    }
+
+    /** Clears the IR of the application only. */
+    @Override
+    public void clear() {
+      app.clear();
+    }
+  }
+}
@@ -109,6 +109,7 @@ public final class AndroidEntryPointLocator {
 
   private static final List<AndroidPossibleEntryPoint> possibleEntryPoints = new ArrayList<>();
   private final Set<LocatorFlags> flags;
+  private FrameworkEntryPointCache frameworkCache;
 
   private static Set<LocatorFlags> defaultFlags() {
     Set<LocatorFlags> flags = HashSetFactory.make();
@@ -129,10 +130,24 @@ public final class AndroidEntryPointLocator {
       this.flags = flags;
     }
     this.mon = AndroidEntryPointManager.MANAGER.getProgressMonitor();
+    this.frameworkCache = AndroidEntryPointManager.MANAGER.getFrameworkEntryPointCache();
 
     populatePossibleEntryPoints();
   }
 
+  /**
+   * Reuse the EntryPoints found in the framework across runs. By default the cache of {@link
+   * AndroidEntryPointManager#getFrameworkEntryPointCache()} is used.
+   *
+   * <p>This only has an effect with {@link LocatorFlags#WITH_ANDROID}: without it, the framework
+   * classes are not scanned at all, so there is nothing to cache.
+   *
+   * @param cache where to look up and store them, or null to always scan the framework
+   */
+  public void setFrameworkCache(final FrameworkEntryPointCache cache) {
+    this.frameworkCache = cache;
+  }
+
   /**
    * Searches a ClassHierarchy for EntryPoints by their method-signature (optionally with
    * heuristics).
@@ -152,35 +167,31 @@ public final class AndroidEntryPointLocator {
 
     mon.beginTask("Locating Entrypoints", IProgressMonitor.UNKNOWN);
     int dummy = 0; // for the progress monitor
-    for (IClass cls : cha) {
-      mon.worked(dummy++);
-      if (cls.getName().toString().contains("MainActivity")) {
-        System.err.println("got here");
-      }
-      if (isExcluded(cls)) continue;
-      if (!cls.isInterface()
-          && !cls.isAbstract()
-          && !(cls.getClassLoader().getName().equals(AnalysisScope.PRIMORDIAL)
-              || cls.getClassLoader().getName().equals(AnalysisScope.EXTENSION))) {
-        nextMethod:
-        for (final IMethod m : cls.getDeclaredMethods()) {
-          if (cls.getName().toString().contains("MainActivity")) {
-            System.err.println("got here: " + m);
-          }
-          // If there is a Method signature in the possible entry points use thatone
-          for (AndroidPossibleEntryPoint e : possibleEntryPoints) {
-            if (e.name.equals(m.getName().toString())) {
-              if (this.flags.contains(LocatorFlags.WITH_ANDROID)) {
-                entryPoints.add(new AndroidEntryPoint(e, m, cha));
-              } else if (!isAPIComponent(m)) {
-                entryPoints.add(new AndroidEntryPoint(e, m, cha));
+    for (final IClassLoader loader : cha.getLoaders()) {
+      // Classes of the framework are never matched, so don't iterate them
+      if (isFrameworkLoader(loader)) continue;
+      for (final Iterator<IClass> it = loader.iterateAllClasses(); it.hasNext(); ) {
+        final IClass cls = it.next();
+        mon.worked(dummy++);
+        if (isExcluded(cls)) continue;
+        if (!cls.isInterface() && !cls.isAbstract()) {
+          nextMethod:
+          for (final IMethod m : cls.getDeclaredMethods()) {
+            // If there is a Method signature in the possible entry points use thatone
+            for (AndroidPossibleEntryPoint e : possibleEntryPoints) {
+              if (e.name.equals(m.getName().toString())) {
+                if (this.flags.contains(LocatorFlags.WITH_ANDROID)) {
+                  entryPoints.add(new AndroidEntryPoint(e, m, cha));
+                } else if (!isAPIComponent(m)) {
+                  entryPoints.add(new AndroidEntryPoint(e, m, cha));
+                }
+                continue nextMethod;
               }
-              continue nextMethod;
             }
-          }
-        } // for IMethod m
-      }
-    } // for IClass : cha
+          } // for IMethod m
+        }
+      } // for IClass cls
+    } // for IClassLoader loader
 
     if (this.flags.contains(LocatorFlags.EP_HEURISTIC)
         || this.flags.contains(LocatorFlags.CB_HEURISTIC)) {
@@ -209,7 +220,10 @@ public final class AndroidEntryPointLocator {
           bases.add(AndroidTypes.BroadcastReceiver);
         }
 
-        heuristicScan(bases, entryPoints, cha);
+        heuristicScan(bases, entryPoints, cha, false);
+        if (this.flags.contains(LocatorFlags.WITH_ANDROID)) {
+          heuristicScanFramework(bases, entryPoints, cha);
+        }
       }
       if (this.flags.contains(LocatorFlags.CB_HEURISTIC)) {
         heuristicAnyAndroid(entryPoints, cha);
@@ -230,11 +244,13 @@ public final class AndroidEntryPointLocator {
    * @param bases classes to search
    * @param eps The set of detected entrypoints to add to
    * @param cha The ClassHierarchy to search
+   * @param framework whether to search the classes of the framework instead of the others
    */
   private void heuristicScan(
       Collection<? extends TypeReference> bases,
       Set<? super AndroidEntryPoint> eps,
-      IClassHierarchy cha) {
+      IClassHierarchy cha,
+      boolean framework) {
     for (final TypeReference base : bases) {
       final IClass baseClass = cha.lookupClass(base);
       this.mon.subTask("Heuristic scan in " + base);
@@ -246,6 +262,7 @@ public final class AndroidEntryPointLocator {
         continue;
       }
       for (final IClass candid : candids) {
+        if (isFrameworkLoader(candid.getClassLoader()) != framework) continue;
         if (isExcluded(candid)) continue;
         if ((!this.flags.contains(LocatorFlags.WITH_ANDROID)) && (isAPIComponent(candid))) {
           // Don't consider internal overrides
@@ -271,6 +288,44 @@ public final class AndroidEntryPointLocator {
     }
   }
 
+  /**
+   * Like heuristicScan on the classes of the framework.
+   *
+   * <p>The result only depends on the framework, the exclusions and the flags, so if a {@link
+   * FrameworkEntryPointCache} is set it is looked up there first, and stored there otherwise.
+   */
+  private void heuristicScanFramework(
+      Collection<? extends TypeReference> bases,
+      Set<? super AndroidEntryPoint> eps,
+      IClassHierarchy cha) {
+    final String key =
+        (this.frameworkCache == null)
+            ? null
+            : FrameworkEntryPointCache.keyFor(cha, "heuristicScan " + flagsAsSet());
+    if (key != null) {
+      final List<AndroidEntryPoint> cached = this.frameworkCache.lookup(key, cha);
+      if (cached != null) {
+        logger.debug("Using {} cached framework EntryPoints", cached.size());
+        eps.addAll(cached);
+        return;
+      }
+    }
+
+    final Set<AndroidEntryPoint> found = new HashSet<>();
+    heuristicScan(bases, found, cha, true);
+    if (key != null) {
+      this.frameworkCache.store(key, found);
+    }
+    eps.addAll(found);
+  }
+
+  /** The flags in a stable order, to be used in cache keys. */
+  private Set<LocatorFlags> flagsAsSet() {
+    final Set<LocatorFlags> ret = EnumSet.noneOf(LocatorFlags.class);
+    ret.addAll(this.flags);
+    return ret;
+  }
+
   //    private boolean isInnerClass(final TypeReference test) {
   //        return test.getName().toString().contains("$"); // PRETTY!
   //    }
@@ -434,6 +489,11 @@ public final class AndroidEntryPointLocator {
     }
   }
 
+  private static boolean isFrameworkLoader(final IClassLoader loader) {
+    return loader.getName().equals(AnalysisScope.PRIMORDIAL)
+        || loader.getName().equals(AnalysisScope.EXTENSION);
+  }
+
   private static boolean isExcluded(final IClass cls) {
     final SetOfClasses set = cls.getClassHierarchy().getScope().getExclusions();
     if (set == null) {
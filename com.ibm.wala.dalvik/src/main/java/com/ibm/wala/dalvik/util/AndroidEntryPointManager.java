@@ -62,6 +62,7 @@ import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -213,6 +214,29 @@ public final /* singleton */ class AndroidEntryPointManager implements Serializa
     return prev;
   }
 
+  private transient FrameworkEntryPointCache frameworkEntryPointCache = null;
+
+  /**
+   * Where the {@link AndroidEntryPointLocator} keeps the EntryPoints it finds in the framework.
+   *
+   * @return the cache set before, or null if the framework is scanned each time
+   */
+  public FrameworkEntryPointCache getFrameworkEntryPointCache() {
+    return this.frameworkEntryPointCache;
+  }
+
+  /**
+   * Set the cache returned by {@link #getFrameworkEntryPointCache()}. Locators created afterwards
+   * use it.
+   *
+   * @return the previous cache
+   */
+  public FrameworkEntryPointCache setFrameworkEntryPointCache(FrameworkEntryPointCache cache) {
+    FrameworkEntryPointCache prev = this.frameworkEntryPointCache;
+    this.frameworkEntryPointCache = cache;
+    return prev;
+  }
+
   private boolean doBootSequence = true;
   /**
    * Whether to generate a global android environment.
@@ -417,8 +441,51 @@ public final /* singleton */ class AndroidEntryPointManager implements Serializa
    *
    * @see com.ibm.wala.dalvik.ipa.callgraph.propagation.cfa.Intent
    * @see com.ibm.wala.dalvik.ipa.callgraph.propagation.cfa.IntentContextInterpreter
+   * @see #registerIntent
+   * @see #setOverride
+   */
+  private final Map<Intent, Intent> overrideIntents = HashMapFactory.make();
+
+  /**
+   * Results of {@link #getIntent} for the current overrideIntents.
+   *
+   * <p>The IntentContextSelector and IntentContextInterpreter resolve the same Intents over and
+   * over during the call graph construction. Intents without overrides are not cached, they are
+   * returned as they are. The cache is dropped whenever an Intent is registered or overridden.
+   */
+  private final transient Map<Intent, Intent> resolvedIntents = HashMapFactory.make();
+
+  /** The actions of all keys and values of overrideIntents, for {@link #existsIntentFor}. */
+  private transient Set<String> knownActions = null;
+
+  private transient int resolveHits = 0;
+  private transient int resolveMisses = 0;
+
+  private void intentsChanged() {
+    resolvedIntents.clear();
+    knownActions = null;
+  }
+
+  /**
+   * Get the registered Intents and overrides.
+   *
+   * <p>Use {@link #registerIntent} or {@link #setOverride} to change them.
+   *
+   * @return a read-only view of the overrides, keyed by the overridden Intent
    */
-  public final Map<Intent, Intent> overrideIntents = HashMapFactory.make();
+  public Map<Intent, Intent> getOverrideIntents() {
+    return Collections.unmodifiableMap(overrideIntents);
+  }
+
+  /** @return how often {@link #getIntent} was answered from the cache */
+  public int getIntentResolutionHits() {
+    return resolveHits;
+  }
+
+  /** @return how often {@link #getIntent} had to follow the overrides */
+  public int getIntentResolutionMisses() {
+    return resolveMisses;
+  }
 
   /**
    * Set more information to an Intent.
@@ -480,6 +547,7 @@ public final /* singleton */ class AndroidEntryPointManager implements Serializa
     logger.info("Register Intent {}", intent);
     // Looks a bit weired but works as Intents are only matched based on their action and uri
     overrideIntents.put(intent, intent);
+    intentsChanged();
   }
 
   /**
@@ -612,6 +680,7 @@ public final /* singleton */ class AndroidEntryPointManager implements Serializa
 
     logger.info("Override Intent {} to {}", from, to);
     overrideIntents.put(from, to);
+    intentsChanged();
   }
 
   /**
@@ -626,6 +695,21 @@ public final /* singleton */ class AndroidEntryPointManager implements Serializa
    *     <p>TODO: TODO: Malicious Intent-Table could cause endless loops
    */
   public Intent getIntent(Intent intent) {
+    final Intent resolved = resolvedIntents.get(intent);
+    if (resolved != null) {
+      resolveHits++;
+      return resolved;
+    }
+    resolveMisses++;
+    final Intent ret = resolveIntent(intent);
+    if (ret != intent) {
+      // Intents may still change, so remember a copy
+      resolvedIntents.put(intent.clone(), ret);
+    }
+    return ret;
+  }
+
+  private Intent resolveIntent(Intent intent) {
     if (overrideIntents.containsKey(intent)) {
       Intent ret = overrideIntents.get(intent);
       while (!(ret.equals(intent))) {
@@ -650,8 +734,10 @@ public final /* singleton */ class AndroidEntryPointManager implements Serializa
       return ret;
     } else {
       logger.info("No information on {} hash: {}", intent, intent.hashCode());
-      for (Intent known : overrideIntents.keySet()) {
-        logger.debug("Known Intents: {} hash: {}", known, known.hashCode());
+      if (logger.isDebugEnabled()) {
+        for (Intent known : overrideIntents.keySet()) {
+          logger.debug("Known Intents: {} hash: {}", known, known.hashCode());
+        }
       }
       return intent;
     }
@@ -663,19 +749,16 @@ public final /* singleton */ class AndroidEntryPointManager implements Serializa
    * @return the intent is registered or there exists an override.
    */
   public boolean existsIntentFor(TypeName clazz) {
-    for (Intent i : overrideIntents.keySet()) {
-      if (i.getAction().toString().equals(clazz.toString())) { // XXX toString-Matches are shitty
-        return true;
+    if (knownActions == null) {
+      knownActions = new HashSet<>();
+      for (Intent i : overrideIntents.keySet()) {
+        knownActions.add(i.getAction().toString()); // XXX toString-Matches are shitty
       }
-    }
-
-    for (Intent i : overrideIntents.values()) {
-      if (i.getAction().toString().equals(clazz.toString())) {
-        return true;
+      for (Intent i : overrideIntents.values()) {
+        knownActions.add(i.getAction().toString());
       }
     }
-
-    return false;
+    return knownActions.contains(clazz.toString());
   }
 
   private final transient Map<CallSiteReference, Intent> seenIntentCalls = HashMapFactory.make();
@@ -40,11 +40,13 @@
 */
 package com.ibm.wala.dalvik.util;
 
+import com.google.common.io.ByteStreams;
 import com.ibm.wala.dalvik.ipa.callgraph.propagation.cfa.Intent;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -53,6 +55,9 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.function.IntFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
 import org.slf4j.Logger;
@@ -63,10 +68,12 @@ import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
- * Read in an extracted AndroidManifest.xml.
+ * Read in an AndroidManifest.xml.
  *
- * <p>The file has to be in the extracted (human readable) XML-Format. You can extract it using the
- * program `apktool`.
+ * <p>The manifest may be given in the extracted (human readable) XML-Format, as extracted by the
+ * program `apktool`, or in the binary format it has inside an APK. Given an .apk file the manifest
+ * is read from it directly, resolving references to resources with its resources.arsc; see {@link
+ * BinaryXMLReader}.
  *
  * <p>Tags and Attributes not known by the Parser are skipped over.
  *
@@ -94,18 +101,26 @@ public class AndroidManifestXMLReader {
    */
   private static final Logger logger = LoggerFactory.getLogger(AndroidSettingFactory.class);
 
+  /** @param xmlFile an AndroidManifest.xml in text or binary format, or an .apk file */
   public AndroidManifestXMLReader(File xmlFile) {
     if (xmlFile == null) {
       throw new IllegalArgumentException("xmlFile may not be null");
     }
-    try (final FileInputStream in = new FileInputStream(xmlFile)) {
-      readXML(in);
+    try {
+      if (xmlFile.getName().endsWith(".apk")) {
+        readAPK(xmlFile);
+      } else {
+        try (final FileInputStream in = new FileInputStream(xmlFile)) {
+          readXML(in);
+        }
+      }
     } catch (Exception e) {
       e.printStackTrace();
       throw new IllegalStateException("Exception was thrown");
     }
   }
 
+  /** @param xmlFile an AndroidManifest.xml in text or binary format */
   public AndroidManifestXMLReader(InputStream xmlFile) {
     if (xmlFile == null) {
       throw new IllegalArgumentException("xmlFile may not be null");
@@ -122,9 +137,65 @@ public class AndroidManifestXMLReader {
       throws SAXException, IOException, ParserConfigurationException {
     assert (xml != null) : "xmlFile may not be null";
 
-    final SAXHandler handler = new SAXHandler();
-    final SAXParserFactory factory = SAXParserFactory.newInstance();
-    factory.newSAXParser().parse(new InputSource(xml), handler);
+    final PushbackInputStream in = new PushbackInputStream(xml, 4);
+    final byte[] head = new byte[4];
+    final int n = ByteStreams.read(in, head, 0, head.length);
+    in.unread(head, 0, n);
+
+    if (BinaryXMLReader.isBinaryXML(head)) {
+      readBinaryXML(ByteStreams.toByteArray(in), null);
+    } else {
+      final SAXParserFactory factory = SAXParserFactory.newInstance();
+      synchronized (AndroidManifestXMLReader.class) {
+        factory.newSAXParser().parse(new InputSource(in), new SAXHandler());
+      }
+    }
+  }
+
+  /** Read the binary manifest of an APK, without extracting it first. */
+  private static void readAPK(File apk) throws SAXException, IOException {
+    try (final ZipFile zip = new ZipFile(apk)) {
+      final ZipEntry manifest = zip.getEntry("AndroidManifest.xml");
+      if (manifest == null) {
+        throw new IllegalArgumentException(apk + " contains no AndroidManifest.xml");
+      }
+      final byte[] axml;
+      try (final InputStream in = zip.getInputStream(manifest)) {
+        axml = ByteStreams.toByteArray(in);
+      }
+
+      // The resource table can be large, so only read it if the manifest refers to a resource
+      final IntFunction<String> resources =
+          new IntFunction<String>() {
+            private BinaryXMLReader.ResourceTable table = null;
+
+            @Override
+            public String apply(int id) {
+              if (table == null) {
+                final ZipEntry arsc = zip.getEntry("resources.arsc");
+                if (arsc == null) {
+                  return null;
+                }
+                try (final InputStream in = zip.getInputStream(arsc)) {
+                  table = new BinaryXMLReader.ResourceTable(ByteStreams.toByteArray(in));
+                } catch (IOException | IllegalArgumentException e) {
+                  logger.warn("Unable to read the resources of {}", apk, e);
+                  return null;
+                }
+              }
+              return table.apply(id);
+            }
+          };
+      readBinaryXML(axml, resources);
+    }
+  }
+
+  private static void readBinaryXML(byte[] axml, IntFunction<String> resources)
+      throws SAXException {
+    // The parser state is static
+    synchronized (AndroidManifestXMLReader.class) {
+      BinaryXMLReader.parse(axml, resources, new SAXHandler());
+    }
   }
 
   //  Needed to delay initialization
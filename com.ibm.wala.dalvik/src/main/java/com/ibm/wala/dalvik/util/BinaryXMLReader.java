@@ -0,0 +1,409 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.dalvik.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the binary XML format ("AXML") the Android build tools compile AndroidManifest.xml and the
+ * XML resources of an APK into, so they can be read without decoding the APK with external tools
+ * first.
+ *
+ * <p>The document is reported to a SAX {@link DefaultHandler} as if it had been parsed from text:
+ * elements by their name, attributes by their qualified name (e.g. "android:name") and typed values
+ * converted to the strings aapt would have been given. References to resources ("@...") are
+ * resolved by an optional resolver, for example a {@link ResourceTable} read from the
+ * resources.arsc of the same APK.
+ *
+ * <p>Strings of the string pool are only decoded when they are used.
+ */
+public final class BinaryXMLReader {
+  // Chunk types, see ResourceTypes.h of the Android framework
+  private static final int RES_STRING_POOL_TYPE = 0x0001;
+  private static final int RES_TABLE_TYPE = 0x0002;
+  private static final int RES_XML_TYPE = 0x0003;
+  private static final int RES_XML_START_NAMESPACE_TYPE = 0x0100;
+  private static final int RES_XML_END_NAMESPACE_TYPE = 0x0101;
+  private static final int RES_XML_START_ELEMENT_TYPE = 0x0102;
+  private static final int RES_XML_END_ELEMENT_TYPE = 0x0103;
+  private static final int RES_XML_RESOURCE_MAP_TYPE = 0x0180;
+  private static final int RES_TABLE_PACKAGE_TYPE = 0x0200;
+  private static final int RES_TABLE_TYPE_TYPE = 0x0201;
+
+  // Types of Res_value
+  private static final int TYPE_NULL = 0x00;
+  private static final int TYPE_REFERENCE = 0x01;
+  private static final int TYPE_ATTRIBUTE = 0x02;
+  private static final int TYPE_STRING = 0x03;
+  private static final int TYPE_FLOAT = 0x04;
+  private static final int TYPE_INT_DEC = 0x10;
+  private static final int TYPE_INT_HEX = 0x11;
+  private static final int TYPE_INT_BOOLEAN = 0x12;
+
+  private static final int NO_INDEX = 0xFFFFFFFF;
+
+  /**
+   * Names of the framework attributes the manifest parser evaluates, by resource id. Obfuscated
+   * APKs may strip attribute names from the string pool, leaving only these ids.
+   */
+  private static final Map<Integer, String> frameworkAttributes = new HashMap<>();
+
+  static {
+    frameworkAttributes.put(0x01010003, "name");
+    frameworkAttributes.put(0x0101000e, "enabled");
+    frameworkAttributes.put(0x01010011, "process");
+    frameworkAttributes.put(0x0101001a, "initOrder");
+    frameworkAttributes.put(0x01010026, "mimeType");
+    frameworkAttributes.put(0x01010027, "scheme");
+    frameworkAttributes.put(0x01010028, "host");
+    frameworkAttributes.put(0x0101002a, "path");
+    frameworkAttributes.put(0x01010202, "targetActivity");
+  }
+
+  private BinaryXMLReader() {}
+
+  /** @return whether the document starts like a binary XML document */
+  public static boolean isBinaryXML(byte[] head) {
+    return head.length >= 4
+        && head[0] == RES_XML_TYPE
+        && head[1] == 0
+        && head[2] == 8 // the size of the header
+        && head[3] == 0;
+  }
+
+  /**
+   * Report the binary XML document axml to handler.
+   *
+   * @param resources resolves resource ids to their values; may be null
+   * @throws SAXException if the handler throws it, or if axml is malformed
+   */
+  public static void parse(byte[] axml, IntFunction<String> resources, DefaultHandler handler)
+      throws SAXException {
+    final ByteBuffer buf = ByteBuffer.wrap(axml).order(ByteOrder.LITTLE_ENDIAN);
+    if (buf.remaining() < 8 || buf.getShort(0) != RES_XML_TYPE) {
+      throw new SAXException("Not a binary XML document");
+    }
+
+    StringPool strings = null;
+    int[] resourceIds = new int[0];
+    // prefixes of namespace URIs, by string pool index
+    final Map<Integer, String> prefixes = new HashMap<>();
+
+    handler.startDocument();
+    try {
+      int pos = buf.getShort(2) & 0xFFFF;
+      final int end = Math.min(buf.getInt(4), buf.limit());
+      while (pos + 8 <= end) {
+        final int type = buf.getShort(pos) & 0xFFFF;
+        final int headerSize = buf.getShort(pos + 2) & 0xFFFF;
+        final int size = buf.getInt(pos + 4);
+        if (size < 8 || pos + size > end) {
+          throw new SAXException("Malformed chunk at offset " + pos);
+        }
+        final int ext = pos + headerSize;
+
+        switch (type) {
+          case RES_STRING_POOL_TYPE:
+            strings = new StringPool(buf, pos);
+            break;
+          case RES_XML_RESOURCE_MAP_TYPE:
+            resourceIds = new int[(size - headerSize) / 4];
+            for (int i = 0; i < resourceIds.length; i++) {
+              resourceIds[i] = buf.getInt(ext + 4 * i);
+            }
+            break;
+          case RES_XML_START_NAMESPACE_TYPE:
+            prefixes.put(buf.getInt(ext + 4), string(strings, buf.getInt(ext)));
+            break;
+          case RES_XML_END_NAMESPACE_TYPE:
+            break;
+          case RES_XML_START_ELEMENT_TYPE:
+            {
+              final String name = string(strings, buf.getInt(ext + 4));
+              final int attributeStart = buf.getShort(ext + 8) & 0xFFFF;
+              final int attributeSize = buf.getShort(ext + 10) & 0xFFFF;
+              final int attributeCount = buf.getShort(ext + 12) & 0xFFFF;
+              final AttributesImpl attrs = new AttributesImpl();
+              for (int i = 0; i < attributeCount; i++) {
+                final int a = ext + attributeStart + i * attributeSize;
+                final int ns = buf.getInt(a);
+                final int nameIndex = buf.getInt(a + 4);
+                String local = string(strings, nameIndex);
+                if (local.isEmpty() && nameIndex >= 0 && nameIndex < resourceIds.length) {
+                  local = frameworkAttributes.getOrDefault(resourceIds[nameIndex], "");
+                }
+                final String uri = (ns == NO_INDEX) ? "" : string(strings, ns);
+                final String prefix = (ns == NO_INDEX) ? null : prefixes.get(ns);
+                final String qName = (prefix == null) ? local : prefix + ':' + local;
+                final int raw = buf.getInt(a + 8);
+                final String value =
+                    (raw != NO_INDEX)
+                        ? string(strings, raw)
+                        : value(strings, resources, buf.get(a + 15) & 0xFF, buf.getInt(a + 16));
+                attrs.addAttribute(uri, local, qName, "CDATA", value);
+              }
+              handler.startElement("", name, name, attrs);
+              break;
+            }
+          case RES_XML_END_ELEMENT_TYPE:
+            {
+              final String name = string(strings, buf.getInt(ext + 4));
+              handler.endElement("", name, name);
+              break;
+            }
+          default:
+            // CDATA and unknown chunks are not needed
+            break;
+        }
+        pos += size;
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new SAXException("Truncated binary XML document", e);
+    }
+    handler.endDocument();
+  }
+
+  private static String string(StringPool strings, int index) throws SAXException {
+    if (index == NO_INDEX) {
+      return "";
+    }
+    if (strings == null) {
+      throw new SAXException("String used before the string pool");
+    }
+    return strings.get(index);
+  }
+
+  /** Convert a typed value to the text it was compiled from. */
+  private static String value(StringPool strings, IntFunction<String> resources, int type, int data)
+      throws SAXException {
+    switch (type) {
+      case TYPE_NULL:
+        return "";
+      case TYPE_REFERENCE:
+      case TYPE_ATTRIBUTE:
+        {
+          final String resolved = (resources == null) ? null : resources.apply(data);
+          if (resolved != null) {
+            return resolved;
+          }
+          return (type == TYPE_REFERENCE ? "@" : "?") + String.format("0x%08x", data);
+        }
+      case TYPE_STRING:
+        return string(strings, data);
+      case TYPE_FLOAT:
+        return Float.toString(Float.intBitsToFloat(data));
+      case TYPE_INT_HEX:
+        return String.format("0x%08x", data);
+      case TYPE_INT_BOOLEAN:
+        return data != 0 ? "true" : "false";
+      case TYPE_INT_DEC:
+      default:
+        // dimensions, fractions and colors are not needed as text
+        return Integer.toString(data);
+    }
+  }
+
+  /** A ResStringPool chunk, decoding its strings on demand. */
+  private static final class StringPool {
+    private static final int UTF8_FLAG = 1 << 8;
+
+    private final ByteBuffer buf;
+    private final int offsets;
+    private final int strings;
+    private final boolean utf8;
+    private final String[] decoded;
+
+    StringPool(ByteBuffer buf, int chunk) {
+      this.buf = buf;
+      final int headerSize = buf.getShort(chunk + 2) & 0xFFFF;
+      final int count = buf.getInt(chunk + 8);
+      this.utf8 = (buf.getInt(chunk + 16) & UTF8_FLAG) != 0;
+      this.strings = chunk + buf.getInt(chunk + 20);
+      this.offsets = chunk + headerSize;
+      this.decoded = new String[count];
+    }
+
+    String get(int index) {
+      if (index < 0 || index >= decoded.length) {
+        return "";
+      }
+      String s = decoded[index];
+      if (s == null) {
+        s = decode(strings + buf.getInt(offsets + 4 * index));
+        decoded[index] = s;
+      }
+      return s;
+    }
+
+    private String decode(int pos) {
+      if (utf8) {
+        // the length in UTF-16 units, then the length in bytes
+        pos += ((buf.get(pos) & 0x80) != 0) ? 2 : 1;
+        int length = buf.get(pos) & 0xFF;
+        if ((length & 0x80) != 0) {
+          length = ((length & 0x7F) << 8) | (buf.get(pos + 1) & 0xFF);
+          pos += 2;
+        } else {
+          pos += 1;
+        }
+        return new String(buf.array(), buf.arrayOffset() + pos, length, StandardCharsets.UTF_8);
+      } else {
+        int length = buf.getShort(pos) & 0xFFFF;
+        if ((length & 0x8000) != 0) {
+          length = ((length & 0x7FFF) << 16) | (buf.getShort(pos + 2) & 0xFFFF);
+          pos += 4;
+        } else {
+          pos += 2;
+        }
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+          chars[i] = buf.getChar(pos + 2 * i);
+        }
+        return new String(chars);
+      }
+    }
+  }
+
+  /**
+   * The simple values of a resources.arsc file, by resource id.
+   *
+   * <p>Only values of the default configuration (or, if a resource has none, of the first
+   * configuration it appears in) are kept. Bags such as styles and arrays are skipped.
+   */
+  public static final class ResourceTable implements IntFunction<String> {
+    private static final int FLAG_COMPLEX = 0x0001;
+    private static final int FLAG_SPARSE = 0x01;
+
+    private final Map<Integer, String> values = new HashMap<>();
+
+    /** @throws IllegalArgumentException if arsc is not a resource table */
+    public ResourceTable(byte[] arsc) {
+      final ByteBuffer buf = ByteBuffer.wrap(arsc).order(ByteOrder.LITTLE_ENDIAN);
+      if (buf.remaining() < 12 || buf.getShort(0) != RES_TABLE_TYPE) {
+        throw new IllegalArgumentException("Not a resource table");
+      }
+      final Map<Integer, Boolean> fromDefault = new HashMap<>();
+      StringPool globalStrings = null;
+      int pos = buf.getShort(2) & 0xFFFF;
+      final int end = Math.min(buf.getInt(4), buf.limit());
+      try {
+        while (pos + 8 <= end) {
+          final int type = buf.getShort(pos) & 0xFFFF;
+          final int size = buf.getInt(pos + 4);
+          if (size < 8) {
+            break;
+          }
+          if (type == RES_STRING_POOL_TYPE) {
+            globalStrings = new StringPool(buf, pos);
+          } else if (type == RES_TABLE_PACKAGE_TYPE && globalStrings != null) {
+            readPackage(buf, pos, globalStrings, fromDefault);
+          }
+          pos += size;
+        }
+      } catch (IndexOutOfBoundsException e) {
+        throw new IllegalArgumentException("Truncated resource table", e);
+      }
+    }
+
+    private void readPackage(
+        ByteBuffer buf, int chunk, StringPool strings, Map<Integer, Boolean> fromDefault) {
+      final int packageId = buf.getInt(chunk + 8);
+      final int end = chunk + buf.getInt(chunk + 4);
+      int pos = chunk + (buf.getShort(chunk + 2) & 0xFFFF);
+      while (pos + 8 <= end) {
+        final int type = buf.getShort(pos) & 0xFFFF;
+        final int size = buf.getInt(pos + 4);
+        if (size < 8) {
+          break;
+        }
+        if (type == RES_TABLE_TYPE_TYPE) {
+          readType(buf, pos, packageId, strings, fromDefault);
+        }
+        pos += size;
+      }
+    }
+
+    private void readType(
+        ByteBuffer buf,
+        int chunk,
+        int packageId,
+        StringPool strings,
+        Map<Integer, Boolean> fromDefault) {
+      final int headerSize = buf.getShort(chunk + 2) & 0xFFFF;
+      final int typeId = buf.get(chunk + 8) & 0xFF;
+      final int flags = buf.get(chunk + 9) & 0xFF;
+      final int entryCount = buf.getInt(chunk + 12);
+      final int entriesStart = chunk + buf.getInt(chunk + 16);
+      final boolean isDefault = isDefaultConfig(buf, chunk + 20);
+      final int offsets = chunk + headerSize;
+
+      for (int i = 0; i < entryCount; i++) {
+        final int index;
+        final int offset;
+        if ((flags & FLAG_SPARSE) != 0) {
+          index = buf.getShort(offsets + 4 * i) & 0xFFFF;
+          offset = (buf.getShort(offsets + 4 * i + 2) & 0xFFFF) * 4;
+        } else {
+          index = i;
+          offset = buf.getInt(offsets + 4 * i);
+          if (offset == NO_INDEX) {
+            continue;
+          }
+        }
+        final int entry = entriesStart + offset;
+        final int entrySize = buf.getShort(entry) & 0xFFFF;
+        final int entryFlags = buf.getShort(entry + 2) & 0xFFFF;
+        if ((entryFlags & FLAG_COMPLEX) != 0) {
+          continue;
+        }
+        final int id = (packageId << 24) | (typeId << 16) | index;
+        final Boolean seenDefault = fromDefault.get(id);
+        if (seenDefault != null && (seenDefault || !isDefault)) {
+          continue;
+        }
+        final int value = entry + entrySize;
+        final int dataType = buf.get(value + 3) & 0xFF;
+        final int data = buf.getInt(value + 4);
+        if (dataType == TYPE_REFERENCE || dataType == TYPE_ATTRIBUTE) {
+          // not followed: the reader of the document resolves one level only
+          continue;
+        }
+        try {
+          values.put(id, value(strings, null, dataType, data));
+          fromDefault.put(id, isDefault);
+        } catch (SAXException e) {
+          // a string without a pool; cannot happen as the pool is not null
+        }
+      }
+    }
+
+    /** The default configuration has only zeroes after its size. */
+    private static boolean isDefaultConfig(ByteBuffer buf, int config) {
+      final int size = buf.getInt(config);
+      for (int i = 4; i < size; i++) {
+        if (buf.get(config + i) != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** @return the value of the resource id, or null if it is unknown or not a simple value */
+    @Override
+    public String apply(int id) {
+      return values.get(id);
+    }
+  }
+}
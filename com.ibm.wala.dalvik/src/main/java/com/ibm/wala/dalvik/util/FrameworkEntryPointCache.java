@@ -0,0 +1,259 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.dalvik.util;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.JarFileModule;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.dalvik.classLoader.DexFileModule;
+import com.ibm.wala.dalvik.ipa.callgraph.impl.AndroidEntryPoint;
+import com.ibm.wala.dalvik.ipa.callgraph.impl.AndroidEntryPoint.ExecutionOrder;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.config.FileOfClasses;
+import com.ibm.wala.util.config.SetOfClasses;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the EntryPoints the {@link AndroidEntryPointLocator} finds in the Android framework
+ * itself.
+ *
+ * <p>With {@link AndroidEntryPointLocator.LocatorFlags#WITH_ANDROID} the locator also selects
+ * methods of the framework classes. These only depend on the framework and the flags, so they are
+ * computed once and written to a directory, keyed by a digest of the path, size and modification
+ * time of the framework modules (the android.jar of an API level), the exclusions of the analysis
+ * scope and the flags. Later runs against the same framework, in this or another JVM, read them
+ * back instead of scanning the framework again. A framework file replaced by one of the same size
+ * and modification time is not noticed.
+ *
+ * <p>Only frameworks given as jar or dex files are cached; for other modules {@link #keyFor}
+ * returns null and the locator scans the framework as before.
+ *
+ * <p>The locator uses the cache set with {@link
+ * AndroidEntryPointManager#setFrameworkEntryPointCache}, unless another one is given with {@link
+ * AndroidEntryPointLocator#setFrameworkCache}.
+ */
+public class FrameworkEntryPointCache {
+  private static final Logger logger = LoggerFactory.getLogger(FrameworkEntryPointCache.class);
+
+  /** One framework EntryPoint, independent of the ClassHierarchy it was found in. */
+  private static final class Entry {
+    final String loader;
+    final String type;
+    final String selector;
+    final int order;
+    final AndroidComponent component;
+
+    Entry(String loader, String type, String selector, int order, AndroidComponent component) {
+      this.loader = loader;
+      this.type = type;
+      this.selector = selector;
+      this.order = order;
+      this.component = component;
+    }
+  }
+
+  private static final ClassLoaderReference[] FRAMEWORK_LOADERS = {
+    ClassLoaderReference.Primordial, ClassLoaderReference.Extension
+  };
+
+  private final File directory;
+
+  /** Entries already read or computed in this JVM. */
+  private final ConcurrentHashMap<String, List<Entry>> loaded = new ConcurrentHashMap<>();
+
+  /** @param directory where the entries are stored; it is created if needed */
+  public FrameworkEntryPointCache(File directory) {
+    if (directory == null) {
+      throw new IllegalArgumentException("directory is null");
+    }
+    this.directory = directory;
+  }
+
+  /**
+   * Compute the key of the framework in cha's scope for the given settings. The key covers the
+   * exclusions of the scope, as excluded framework classes are not scanned. The framework modules
+   * are not read, only their path, size and modification time are.
+   *
+   * @param settings a description of everything besides the framework the entries depend on
+   * @return the key, or null if a framework module or the exclusions cannot be digested
+   */
+  public static String keyFor(final IClassHierarchy cha, final String settings) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+    final AnalysisScope scope = cha.getScope();
+    for (final ClassLoaderReference loader : FRAMEWORK_LOADERS) {
+      for (final Module module : scope.getModules(loader)) {
+        final File file;
+        if (module instanceof JarFileModule) {
+          file = new File(((JarFileModule) module).getAbsolutePath());
+        } else if (module instanceof DexFileModule) {
+          file = ((DexFileModule) module).getFile();
+        } else {
+          logger.debug("Not caching framework EntryPoints: cannot digest {}", module);
+          return null;
+        }
+        if (!file.isFile()) {
+          logger.warn("Not caching framework EntryPoints: {} is not a file", file);
+          return null;
+        }
+        final String stamp =
+            loader.getName()
+                + "\t"
+                + file.getAbsolutePath()
+                + '\t'
+                + file.length()
+                + '\t'
+                + file.lastModified()
+                + '\n';
+        digest.update(stamp.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    final SetOfClasses exclusions = scope.getExclusions();
+    if (exclusions != null && !(exclusions instanceof FileOfClasses)) {
+      logger.debug("Not caching framework EntryPoints: cannot digest {}", exclusions);
+      return null;
+    }
+    digest.update(String.valueOf(exclusions).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(settings.getBytes(StandardCharsets.UTF_8));
+
+    final StringBuilder key = new StringBuilder();
+    for (final byte b : digest.digest()) {
+      key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return key.toString();
+  }
+
+  /**
+   * Get the EntryPoints stored under key, resolved against cha.
+   *
+   * @return the EntryPoints, or null if there are none stored or they do not match cha
+   */
+  public List<AndroidEntryPoint> lookup(final String key, final IClassHierarchy cha) {
+    List<Entry> entries = loaded.get(key);
+    if (entries == null) {
+      entries = read(fileFor(key));
+      if (entries == null) {
+        return null;
+      }
+      loaded.putIfAbsent(key, entries);
+    }
+
+    final List<AndroidEntryPoint> ret = new ArrayList<>(entries.size());
+    for (final Entry e : entries) {
+      final ClassLoaderReference loader = frameworkLoader(e.loader);
+      final IClass cls =
+          (loader == null) ? null : cha.lookupClass(TypeReference.findOrCreate(loader, e.type));
+      final IMethod method = (cls == null) ? null : cls.getMethod(Selector.make(e.selector));
+      if (method == null) {
+        logger.warn("Stale framework EntryPoint {}.{} - ignoring the cache", e.type, e.selector);
+        return null;
+      }
+      ret.add(new AndroidEntryPoint(new ExecutionOrder(e.order), method, cha, e.component));
+    }
+    return ret;
+  }
+
+  /** Remember eps under key, and write them to the cache directory. */
+  public void store(final String key, final Collection<? extends AndroidEntryPoint> eps) {
+    final List<Entry> entries = new ArrayList<>(eps.size());
+    for (final AndroidEntryPoint ep : eps) {
+      final IMethod method = ep.getMethod();
+      entries.add(
+          new Entry(
+              method.getDeclaringClass().getClassLoader().getReference().getName().toString(),
+              method.getDeclaringClass().getName().toString(),
+              method.getSelector().toString(),
+              ep.getOrderValue(),
+              ep.getComponent()));
+    }
+    loaded.put(key, Collections.unmodifiableList(entries));
+
+    try {
+      Files.createDirectories(directory.toPath());
+      // Write to a temporary file first, concurrent runs may store the same key
+      final Path tmp = Files.createTempFile(directory.toPath(), key, ".tmp");
+      try (final BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        for (final Entry e : entries) {
+          w.write(
+              e.loader + '\t' + e.type + '\t' + e.selector + '\t' + e.order + '\t' + e.component);
+          w.newLine();
+        }
+      }
+      Files.move(tmp, fileFor(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.warn("Unable to store framework EntryPoints in {}", directory, e);
+    }
+  }
+
+  /** @return the framework loader called name, or null if there is none */
+  private static ClassLoaderReference frameworkLoader(final String name) {
+    for (final ClassLoaderReference loader : FRAMEWORK_LOADERS) {
+      if (loader.getName().toString().equals(name)) {
+        return loader;
+      }
+    }
+    return null;
+  }
+
+  private File fileFor(final String key) {
+    return new File(directory, key + ".eps");
+  }
+
+  private static List<Entry> read(final File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    final List<Entry> entries = new ArrayList<>();
+    try (final BufferedReader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = r.readLine()) != null) {
+        final String[] fields = line.split("\t");
+        if (fields.length != 5) {
+          logger.warn("Malformed line in {}: {}", file, line);
+          return null;
+        }
+        entries.add(
+            new Entry(
+                fields[0],
+                fields[1],
+                fields[2],
+                Integer.parseInt(fields[3]),
+                fields[4].equals("null") ? null : AndroidComponent.valueOf(fields[4])));
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      logger.warn("Unable to read framework EntryPoints from {}", file, e);
+      return null;
+    }
+    return Collections.unmodifiableList(entries);
+  }
+}
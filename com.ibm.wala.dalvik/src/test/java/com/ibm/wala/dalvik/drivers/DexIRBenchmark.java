@@ -0,0 +1,211 @@
+package com.ibm.wala.dalvik.drivers;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.dalvik.classLoader.DexFileModule;
+import com.ibm.wala.dalvik.classLoader.DexIMethod;
+import com.ibm.wala.dalvik.classLoader.DexIRFactory;
+import com.ibm.wala.dalvik.test.util.Util;
+import com.ibm.wala.dalvik.util.AndroidAnalysisScope;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.io.FileUtil;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures where the time goes when building the IR of Android code.
+ *
+ * <p>For every .apk and .dex file under the given path the IR of every application method is built
+ * in separate phases, each of which is timed on its own:
+ *
+ * <ul>
+ *   <li>parse: reading the dex files with dexlib2
+ *   <li>cha: building the class hierarchy, including the framework
+ *   <li>decode: converting the dexlib2 instructions of each method (DexIMethod)
+ *   <li>cfg: building the DexCFG of each method
+ *   <li>ssa: building the IR of each method (DexSSABuilder), not counting its CFG
+ * </ul>
+ *
+ * <p>The method phases are repeated with the decoded instructions dropped in between. For each
+ * phase the time, the bytes allocated by this thread (where the JVM supports measuring it) and the
+ * number of instructions processed are printed.
+ *
+ * <p>Run it as: java com.ibm.wala.dalvik.drivers.DexIRBenchmark &lt;path&gt; [iterations]
+ */
+public class DexIRBenchmark {
+
+  private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  /** Time, allocation and work done in one phase. */
+  private static final class Phase {
+    final String name;
+    long nanos;
+    long bytes;
+    long items;
+
+    private long startNanos;
+    private long startBytes;
+
+    Phase(String name) {
+      this.name = name;
+    }
+
+    void start() {
+      startBytes = allocatedBytes();
+      startNanos = System.nanoTime();
+    }
+
+    void stop(long work) {
+      nanos += System.nanoTime() - startNanos;
+      bytes += allocatedBytes() - startBytes;
+      items += work;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%-8s %10.1f ms %12s %10d items",
+          name, nanos / 1e6, allocatedBytes() < 0 ? "n/a" : (bytes / 1024) + " KB", items);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("usage: DexIRBenchmark <apk, dex or directory> [iterations]");
+      System.exit(1);
+    }
+    final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    final File androidLib = Util.androidJavaLib();
+
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+      if (t.isThreadAllocatedMemorySupported()) {
+        t.setThreadAllocatedMemoryEnabled(true);
+      }
+    }
+
+    FileUtil.recurseFiles(
+        file -> {
+          try {
+            benchmark(file, androidLib, iterations);
+          } catch (Exception e) {
+            System.err.println("Failed on " + file);
+            e.printStackTrace(System.err);
+          }
+        },
+        file -> file.getName().endsWith(".apk") || file.getName().endsWith(".dex"),
+        new File(args[0]));
+  }
+
+  private static void benchmark(File file, File androidLib, int iterations) throws Exception {
+    System.out.println(file);
+
+    final Phase parse = new Phase("parse");
+    parse.start();
+    final Collection<DexFileModule> modules =
+        file.getName().endsWith(".apk")
+            ? DexFileModule.makeAll(file, DexFileModule.AUTO_INFER_API_LEVEL)
+            : Collections.singleton(DexFileModule.make(file));
+    parse.stop(modules.size());
+    System.out.println("  " + parse);
+
+    final AnalysisScope scope =
+        AndroidAnalysisScope.setUpFrameworkScope(
+            null, DexIRBenchmark.class.getClassLoader(), androidLib.toURI());
+    for (DexFileModule module : modules) {
+      scope.addToScope(ClassLoaderReference.Application, module);
+    }
+
+    final Phase cha = new Phase("cha");
+    cha.start();
+    final IClassHierarchy hierarchy = ClassHierarchyFactory.make(scope);
+    final List<DexIMethod> methods = new ArrayList<>();
+    for (IClass cls : hierarchy) {
+      if (!cls.getClassLoader().getReference().equals(ClassLoaderReference.Application)) {
+        continue;
+      }
+      for (IMethod m : cls.getDeclaredMethods()) {
+        if (m instanceof DexIMethod && !m.isAbstract() && !m.isNative()) {
+          methods.add((DexIMethod) m);
+        }
+      }
+    }
+    cha.stop(methods.size());
+    System.out.println("  " + cha);
+
+    final DexIRFactory factory = new DexIRFactory();
+    final SSAOptions options = SSAOptions.defaultOptions();
+    for (int i = 1; i <= iterations; i++) {
+      final Phase decode = new Phase("decode");
+      final Phase cfg = new Phase("cfg");
+      final Phase ssa = new Phase("ssa");
+      final int totalInstsBefore = DexIMethod.getTotalInsts();
+
+      for (DexIMethod m : methods) {
+        m.clearCaches();
+      }
+      for (DexIMethod m : methods) {
+        decode.start();
+        final int n = m.getDexInstructions().length;
+        decode.stop(n);
+
+        final long cfgNanos = cfg.nanos;
+        final long cfgBytes = cfg.bytes;
+        cfg.start();
+        factory.makeCFG(m, Everywhere.EVERYWHERE);
+        cfg.stop(n);
+
+        // makeIR builds the CFG again; do not count it twice
+        ssa.start();
+        final IR ir = factory.makeIR(m, Everywhere.EVERYWHERE, options);
+        ssa.stop(countInstructions(ir));
+        ssa.nanos -= cfg.nanos - cfgNanos;
+        ssa.bytes -= cfg.bytes - cfgBytes;
+      }
+
+      System.out.println(
+          "  iteration "
+              + i
+              + ": "
+              + methods.size()
+              + " methods, "
+              + (DexIMethod.getTotalInsts() - totalInstsBefore)
+              + " dex instructions");
+      System.out.println("    " + decode);
+      System.out.println("    " + cfg);
+      System.out.println("    " + ssa);
+    }
+  }
+
+  private static int countInstructions(IR ir) {
+    int count = 0;
+    for (SSAInstruction inst : ir.getInstructions()) {
+      if (inst != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static long allocatedBytes() {
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+      if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled()) {
+        return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.dalvik.test.callGraph;
+
+import static com.ibm.wala.dalvik.test.util.Util.androidJavaLib;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.dalvik.classLoader.DexIRFactory;
+import com.ibm.wala.dalvik.ipa.callgraph.propagation.cfa.Intent;
+import com.ibm.wala.dalvik.ipa.callgraph.propagation.cfa.IntentContext;
+import com.ibm.wala.dalvik.ipa.callgraph.propagation.cfa.IntentContextInterpreter;
+import com.ibm.wala.dalvik.util.AndroidEntryPointLocator;
+import com.ibm.wala.dalvik.util.AndroidEntryPointManager;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.callgraph.impl.ExplicitCallGraph;
+import com.ibm.wala.ipa.callgraph.impl.FakeRootClass;
+import com.ibm.wala.ipa.callgraph.impl.FakeRootMethod;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** The IR of each node and the wrappers of each target are built only once. */
+public class IntentContextInterpreterTest {
+
+  private static final MethodReference startActivity =
+      MethodReference.findOrCreate(
+          TypeReference.findOrCreate(
+              ClassLoaderReference.Primordial, "Landroid/content/ContextWrapper"),
+          Selector.make("startActivity(Landroid/content/Intent;)V"));
+
+  private IntentContextInterpreter interpreter;
+
+  private ExplicitCallGraph cg;
+
+  private IMethod starter;
+
+  @Before
+  public void setUp() throws IOException, ClassHierarchyException, CancelException {
+    AndroidEntryPointManager.reset();
+    AnalysisScope scope =
+        DalvikCallGraphTestBase.makeDalvikScope(null, androidJavaLib(), "models/ActivityModel.apk");
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AndroidEntryPointManager.ENTRIES = new AndroidEntryPointLocator().getEntryPoints(cha);
+    // intents to classes outside this package leave the application
+    AndroidEntryPointManager.MANAGER.setPackage("activity.model");
+
+    AnalysisOptions options = new AnalysisOptions(scope, AndroidEntryPointManager.ENTRIES);
+    IAnalysisCacheView cache = new AnalysisCacheImpl(new DexIRFactory());
+    cg =
+        new ExplicitCallGraph(
+            new FakeRootMethod(
+                new FakeRootClass(ClassLoaderReference.Primordial, cha), options, cache),
+            options,
+            cache);
+    cg.init();
+
+    starter = cha.resolveMethod(startActivity);
+    Assert.assertNotNull(starter);
+    interpreter = new IntentContextInterpreter(cha, options, cache);
+  }
+
+  @After
+  public void tearDown() {
+    AndroidEntryPointManager.reset();
+  }
+
+  private CGNode node(String action) throws CancelException {
+    CGNode node = cg.findOrCreateNode(starter, new IntentContext(new Intent(action)));
+    Assert.assertTrue(interpreter.understands(node));
+    return node;
+  }
+
+  @Test
+  public void testIRIsKept() throws CancelException {
+    CGNode node = node("Lactivity/model/ActivityModelActivity");
+    IR ir = interpreter.getIR(node);
+    Assert.assertNotNull(ir);
+    Assert.assertSame(ir, interpreter.getIR(node));
+    Assert.assertSame(ir, interpreter.getIRView(node));
+  }
+
+  @Test
+  public void testWrapperIsShared() throws CancelException {
+    // two intents leaving the application, so both are answered by the model of an external
+    // activity
+    CGNode first = node("Lcom/example/First");
+    CGNode second = node("Lcom/example/Second");
+    Assert.assertNotSame(first, second);
+
+    IR firstIR = interpreter.getIR(first);
+    IR secondIR = interpreter.getIR(second);
+    Assert.assertNotSame(firstIR, secondIR);
+    Assert.assertSame(firstIR.getMethod(), secondIR.getMethod());
+
+    // an intent to the application itself has a model of its own
+    IR internalIR = interpreter.getIR(node("Lactivity/model/ActivityModelActivity"));
+    Assert.assertNotSame(firstIR.getMethod(), internalIR.getMethod());
+  }
+}
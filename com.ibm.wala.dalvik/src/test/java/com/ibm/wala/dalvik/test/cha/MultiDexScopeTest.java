@@ -2,25 +2,35 @@ package com.ibm.wala.dalvik.test.cha;
 
 import static org.junit.Assume.assumeFalse;
 
+import com.google.common.io.ByteStreams;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.core.util.config.AnalysisScopeReader;
 import com.ibm.wala.dalvik.classLoader.DexFileModule;
 import com.ibm.wala.dalvik.test.callGraph.DalvikCallGraphTestBase;
 import com.ibm.wala.dalvik.test.callGraph.DroidBenchCGTest;
+import com.ibm.wala.dalvik.util.AndroidBatchAnalysis;
 import com.ibm.wala.ipa.callgraph.AnalysisScope;
 import com.ibm.wala.ipa.cha.ClassHierarchy;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ssa.IR;
 import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.PlatformUtil;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 import org.jf.dexlib2.DexFileFactory;
 import org.jf.dexlib2.Opcodes;
 import org.jf.dexlib2.dexbacked.DexBackedDexFile;
@@ -130,6 +140,106 @@ public class MultiDexScopeTest {
         Integer.valueOf(getNumberOfAppClasses(cha)), Integer.valueOf(getNumberOfAppClasses(cha2)));
   }
 
+  @Test
+  public void testMultiDexWithoutExtraction() throws ClassHierarchyException, IOException {
+    String multidexApk = "src/test/resources/multidex-test.apk";
+
+    List<DexFileModule> modules = DexFileModule.makeAll(new File(multidexApk), 24);
+    Assert.assertEquals(2, modules.size());
+
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.readJavaScope(
+            "primordial.txt", new File(""), MultiDexScopeTest.class.getClassLoader());
+    scope.setLoaderImpl(
+        ClassLoaderReference.Application, "com.ibm.wala.dalvik.classLoader.WDexClassLoaderImpl");
+    for (DexFileModule module : modules) {
+      scope.addToScope(ClassLoaderReference.Application, module);
+    }
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    Assert.assertEquals(Integer.valueOf(5), Integer.valueOf(getNumberOfAppClasses(cha)));
+  }
+
+  @Test
+  public void testMultiDexNestedEntry() throws ClassHierarchyException, IOException {
+    // move the second dex file of the APK to a non-standard location, as some packers do
+    File apk = File.createTempFile("multidex-nested", ".apk");
+    apk.deleteOnExit();
+    try (ZipInputStream zis =
+            new ZipInputStream(new FileInputStream("src/test/resources/multidex-test.apk"));
+        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(apk))) {
+      ZipEntry entry;
+      while ((entry = zis.getNextEntry()) != null) {
+        String name =
+            entry.getName().equals("classes2.dex") ? "assets/secondary.dex" : entry.getName();
+        zos.putNextEntry(new ZipEntry(name));
+        ByteStreams.copy(zis, zos);
+        zos.closeEntry();
+      }
+    }
+
+    // the same dex files as dexlib2 finds in the container
+    List<DexFileModule> modules = DexFileModule.makeAll(apk, 24);
+    Assert.assertEquals(
+        DexFileFactory.loadDexContainer(apk, Opcodes.forApi(24)).getDexEntryNames().size(),
+        modules.size());
+    Assert.assertEquals(2, modules.size());
+
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.readJavaScope(
+            "primordial.txt", new File(""), MultiDexScopeTest.class.getClassLoader());
+    scope.setLoaderImpl(
+        ClassLoaderReference.Application, "com.ibm.wala.dalvik.classLoader.WDexClassLoaderImpl");
+    for (DexFileModule module : modules) {
+      scope.addToScope(ClassLoaderReference.Application, module);
+    }
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    Assert.assertEquals(Integer.valueOf(5), Integer.valueOf(getNumberOfAppClasses(cha)));
+  }
+
+  @Test
+  public void testMultiDexBatch() throws ClassHierarchyException, IOException {
+    File multidexApk = new File("src/test/resources/multidex-test.apk");
+
+    AndroidBatchAnalysis batch = new AndroidBatchAnalysis(24, null, (URI[]) null);
+    List<AndroidBatchAnalysis.Result<ClassHierarchy>> results =
+        batch.analyzeAll(
+            Arrays.asList(multidexApk, multidexApk), (scope, cha, cache) -> (ClassHierarchy) cha);
+
+    for (AndroidBatchAnalysis.Result<ClassHierarchy> result : results) {
+      Assert.assertNull(result.getFailure());
+      Assert.assertEquals(
+          Integer.valueOf(5), Integer.valueOf(getNumberOfAppClasses(result.getValue())));
+      // the framework is loaded only once
+      Assert.assertSame(
+          batch.getFrameworkHierarchy().getLoader(ClassLoaderReference.Primordial),
+          result.getValue().getLoader(ClassLoaderReference.Primordial));
+    }
+    Assert.assertNotSame(results.get(0).getValue(), results.get(1).getValue());
+  }
+
+  @Test
+  public void testMultiDexBatchSharesFrameworkIR() throws ClassHierarchyException, IOException {
+    File multidexApk = new File("src/test/resources/multidex-test.apk");
+    MethodReference valueOf =
+        MethodReference.findOrCreate(
+            TypeReference.JavaLangString,
+            Selector.make("valueOf(Ljava/lang/Object;)Ljava/lang/String;"));
+
+    AndroidBatchAnalysis batch = new AndroidBatchAnalysis(24, null, (URI[]) null);
+    List<AndroidBatchAnalysis.Result<IR>> results =
+        batch.analyzeAll(
+            Arrays.asList(multidexApk, multidexApk),
+            (scope, cha, cache) -> cache.getIR(cha.resolveMethod(valueOf)));
+
+    for (AndroidBatchAnalysis.Result<IR> result : results) {
+      Assert.assertNull(result.getFailure());
+      Assert.assertNotNull(result.getValue());
+    }
+    Assert.assertSame(results.get(0).getValue(), results.get(1).getValue());
+  }
+
   private static void extractDexFiles(String apkFileName, File outDir) throws IOException {
     try (ZipInputStream zis = new ZipInputStream(new FileInputStream(apkFileName))) {
       ZipEntry entry;
@@ -0,0 +1,148 @@
+package com.ibm.wala.dalvik.test.ir;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.dalvik.classLoader.DexFileModule;
+import com.ibm.wala.dalvik.classLoader.DexIClass;
+import com.ibm.wala.dalvik.classLoader.DexIMethod;
+import com.ibm.wala.dalvik.dex.instructions.Instruction;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.ClassLoaderReference;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import org.jf.dexlib2.DexFileFactory;
+import org.jf.dexlib2.Opcodes;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests the cache of decoded instructions of {@link DexIMethod}. */
+public class DexInstructionCacheTest {
+
+  private static final String APK = "src/test/resources/multidex-test.apk";
+
+  private static IClassHierarchy cha;
+
+  @BeforeClass
+  public static void makeCHA() throws IOException, ClassHierarchyException {
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.readJavaScope(
+            "primordial.txt", new File(""), DexInstructionCacheTest.class.getClassLoader());
+    scope.setLoaderImpl(
+        ClassLoaderReference.Application, "com.ibm.wala.dalvik.classLoader.WDexClassLoaderImpl");
+    File apk = new File(APK);
+    for (String dexEntry :
+        DexFileFactory.loadDexContainer(apk, Opcodes.forApi(24)).getDexEntryNames()) {
+      scope.addToScope(ClassLoaderReference.Application, new DexFileModule(apk, dexEntry, 24));
+    }
+    cha = ClassHierarchyFactory.make(scope);
+  }
+
+  private static List<DexIClass> appClasses() {
+    List<DexIClass> classes = new ArrayList<>();
+    cha.getLoader(ClassLoaderReference.Application)
+        .iterateAllClasses()
+        .forEachRemaining(c -> classes.add((DexIClass) c));
+    return classes;
+  }
+
+  private static List<DexIMethod> methodsWithCode() {
+    List<DexIMethod> methods = new ArrayList<>();
+    for (IClass klass : appClasses()) {
+      for (IMethod m : klass.getDeclaredMethods()) {
+        if (!m.isAbstract() && !m.isNative()) {
+          methods.add((DexIMethod) m);
+        }
+      }
+    }
+    Assert.assertFalse("no methods in " + APK, methods.isEmpty());
+    return methods;
+  }
+
+  /** Assert that two instructions, or two of their operands, were decoded the same way. */
+  private static void assertSameDecoding(String where, Object expected, Object actual)
+      throws IllegalAccessException {
+    if (expected == null || actual == null) {
+      Assert.assertSame(where, expected, actual);
+      return;
+    }
+    Assert.assertEquals(where, expected.getClass(), actual.getClass());
+    if (expected.getClass().isArray()) {
+      Assert.assertEquals(where, Array.getLength(expected), Array.getLength(actual));
+      for (int i = 0; i < Array.getLength(expected); i++) {
+        assertSameDecoding(where + '[' + i + ']', Array.get(expected, i), Array.get(actual, i));
+      }
+    } else if (expected instanceof DexIMethod) {
+      Assert.assertSame(where, expected, actual);
+    } else if (!(expected instanceof Enum)
+        && expected.getClass().getName().startsWith("com.ibm.wala.dalvik.")) {
+      // instructions and their operands (e.g. literals and switch tables) do not define equals
+      for (Class<?> c = expected.getClass(); c != Object.class; c = c.getSuperclass()) {
+        for (Field f : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(f.getModifiers())) {
+            f.setAccessible(true);
+            assertSameDecoding(where + '.' + f.getName(), f.get(expected), f.get(actual));
+          }
+        }
+      }
+    } else {
+      Assert.assertEquals(where, expected, actual);
+    }
+  }
+
+  @Test
+  public void testDecodedOnce() {
+    for (DexIMethod m : methodsWithCode()) {
+      Instruction[] first = m.getDexInstructions();
+      Instruction[] second = m.getDexInstructions();
+      Assert.assertEquals(m.toString(), first.length, second.length);
+      for (int i = 0; i < first.length; i++) {
+        Assert.assertSame(m + "[" + i + ']', first[i], second[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testClearCaches() throws IllegalAccessException {
+    for (DexIMethod m : methodsWithCode()) {
+      Instruction[] before = m.getDexInstructions();
+      m.clearCaches();
+      Instruction[] after = m.getDexInstructions();
+      Assert.assertEquals(m.toString(), before.length, after.length);
+      for (int i = 0; i < before.length; i++) {
+        Assert.assertNotSame(m + "[" + i + ']', before[i], after[i]);
+        assertSameDecoding(m + "[" + i + ']', before[i], after[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testClearSoftCaches() throws IllegalAccessException {
+    List<DexIMethod> methods = methodsWithCode();
+    List<Instruction[]> before = new ArrayList<>();
+    for (DexIMethod m : methods) {
+      before.add(m.getDexInstructions());
+    }
+    for (DexIClass klass : appClasses()) {
+      klass.clearSoftCaches();
+    }
+    for (int i = 0; i < methods.size(); i++) {
+      DexIMethod m = methods.get(i);
+      Instruction[] after = m.getDexInstructions();
+      Assert.assertEquals(m.toString(), before.get(i).length, after.length);
+      for (int j = 0; j < after.length; j++) {
+        Assert.assertNotSame(m + "[" + j + ']', before.get(i)[j], after[j]);
+        assertSameDecoding(m + "[" + j + ']', before.get(i)[j], after[j]);
+      }
+    }
+  }
+}
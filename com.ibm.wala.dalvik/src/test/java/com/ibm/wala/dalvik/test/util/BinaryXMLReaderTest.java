@@ -0,0 +1,159 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.dalvik.test.util;
+
+import com.google.common.io.ByteStreams;
+import com.ibm.wala.dalvik.util.AndroidEntryPointManager;
+import com.ibm.wala.dalvik.util.AndroidManifestXMLReader;
+import com.ibm.wala.dalvik.util.BinaryXMLReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/** Reads the binary manifests of the APKs that come with the tests. */
+public class BinaryXMLReaderTest {
+
+  private static final File ACTIVITY_MODEL = new File("models/ActivityModel.apk");
+
+  private static final File STRING_TEST = new File("StringTest.apk");
+
+  private static final File MULTIDEX = new File("src/test/resources/multidex-test.apk");
+
+  /** Remembers the package, the activities and their labels, and the actions of a manifest. */
+  private static final class ManifestHandler extends DefaultHandler {
+    String pack;
+    final List<String> activities = new ArrayList<>();
+    final List<String> labels = new ArrayList<>();
+    final List<String> actions = new ArrayList<>();
+    int depth = 0;
+    int maxDepth = 0;
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      maxDepth = Math.max(maxDepth, ++depth);
+      switch (qName) {
+        case "manifest":
+          pack = attributes.getValue("package");
+          break;
+        case "activity":
+          activities.add(attributes.getValue("android:name"));
+          labels.add(attributes.getValue("android:label"));
+          break;
+        case "action":
+          actions.add(attributes.getValue("android:name"));
+          break;
+        default:
+          break;
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+      depth--;
+    }
+  }
+
+  private static byte[] entry(ZipFile apk, String name) throws IOException {
+    ZipEntry entry = apk.getEntry(name);
+    Assert.assertNotNull(apk.getName() + " has no " + name, entry);
+    try (InputStream in = apk.getInputStream(entry)) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+
+  private static ManifestHandler read(File file) throws IOException, SAXException {
+    try (ZipFile apk = new ZipFile(file)) {
+      byte[] manifest = entry(apk, "AndroidManifest.xml");
+      Assert.assertTrue(BinaryXMLReader.isBinaryXML(manifest));
+      BinaryXMLReader.ResourceTable resources =
+          new BinaryXMLReader.ResourceTable(entry(apk, "resources.arsc"));
+      ManifestHandler handler = new ManifestHandler();
+      BinaryXMLReader.parse(manifest, resources, handler);
+      Assert.assertEquals(0, handler.depth);
+      return handler;
+    }
+  }
+
+  @After
+  public void resetManager() {
+    AndroidEntryPointManager.reset();
+  }
+
+  @Test
+  public void testActivityModel() throws IOException, SAXException {
+    ManifestHandler manifest = read(ACTIVITY_MODEL);
+    Assert.assertEquals("activity.model", manifest.pack);
+    Assert.assertEquals(Arrays.asList(".ActivityModelActivity"), manifest.activities);
+    // a reference to a string resource
+    Assert.assertEquals(Arrays.asList("ActivityModel"), manifest.labels);
+    Assert.assertEquals(Arrays.asList("android.intent.action.MAIN"), manifest.actions);
+    Assert.assertEquals(5, manifest.maxDepth);
+  }
+
+  @Test
+  public void testStringTest() throws IOException, SAXException {
+    ManifestHandler manifest = read(STRING_TEST);
+    Assert.assertEquals("com.example.stringtest", manifest.pack);
+    Assert.assertEquals(Arrays.asList("com.example.stringtest.MainActivity"), manifest.activities);
+    Assert.assertEquals(Arrays.asList("StringTest"), manifest.labels);
+    Assert.assertEquals(Arrays.asList("android.intent.action.MAIN"), manifest.actions);
+  }
+
+  /** the manifest reader takes the APK itself */
+  @Test
+  public void testManifestReaderReadsAPK() {
+    new AndroidManifestXMLReader(ACTIVITY_MODEL);
+    Assert.assertEquals("Lactivity/model", AndroidEntryPointManager.MANAGER.getPackage());
+  }
+
+  /** multidex-test.apk is only a container of dex files and has no manifest */
+  @Test
+  public void testMultidexHasNoManifest() throws IOException {
+    try (ZipFile apk = new ZipFile(MULTIDEX)) {
+      Assert.assertNull(apk.getEntry("AndroidManifest.xml"));
+    }
+    try {
+      new AndroidManifestXMLReader(MULTIDEX);
+      Assert.fail("read a manifest from " + MULTIDEX);
+    } catch (IllegalStateException e) {
+      Assert.assertNull(AndroidEntryPointManager.MANAGER.getPackage());
+    }
+  }
+
+  @Test
+  public void testTextIsNotBinary() {
+    byte[] text = "<?xml version=\"1.0\"?><manifest/>".getBytes(StandardCharsets.UTF_8);
+    Assert.assertFalse(BinaryXMLReader.isBinaryXML(text));
+    try {
+      BinaryXMLReader.parse(text, null, new ManifestHandler());
+      Assert.fail("parsed a text document");
+    } catch (SAXException e) {
+      // expected
+    }
+  }
+
+  @Test(expected = SAXException.class)
+  public void testTruncated() throws IOException, SAXException {
+    try (ZipFile apk = new ZipFile(ACTIVITY_MODEL)) {
+      byte[] manifest = entry(apk, "AndroidManifest.xml");
+      // keep the header, which announces the full size, and cut off the rest
+      BinaryXMLReader.parse(Arrays.copyOf(manifest, 64), null, new ManifestHandler());
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package com.ibm.wala.dalvik.test.util;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.dalvik.ipa.callgraph.impl.AndroidEntryPoint;
+import com.ibm.wala.dalvik.ipa.callgraph.impl.AndroidEntryPoint.ExecutionOrder;
+import com.ibm.wala.dalvik.util.AndroidComponent;
+import com.ibm.wala.dalvik.util.FrameworkEntryPointCache;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.config.FileOfClasses;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrameworkEntryPointCacheTest {
+
+  private static FileOfClasses exclusions(String regex) throws IOException {
+    return new FileOfClasses(new ByteArrayInputStream(regex.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static void delete(File dir) {
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    dir.delete();
+  }
+
+  /** @return a jar holding the class file of this test */
+  private static File jarOfThisClass(File dir) throws IOException {
+    String name = FrameworkEntryPointCacheTest.class.getName().replace('.', '/') + ".class";
+    File jar = new File(dir, "extension.jar");
+    try (InputStream in =
+            FrameworkEntryPointCacheTest.class.getClassLoader().getResourceAsStream(name);
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+      out.putNextEntry(new JarEntry(name));
+      in.transferTo(out);
+      out.closeEntry();
+    }
+    return jar;
+  }
+
+  @Test
+  public void testStoreLookup() throws ClassHierarchyException, IOException {
+    File dir = Files.createTempDirectory("framework-eps").toFile();
+    try {
+      AnalysisScope scope =
+          AnalysisScopeReader.instance.readJavaScope(
+              "primordial.txt", null, FrameworkEntryPointCacheTest.class.getClassLoader());
+      File extension = jarOfThisClass(dir);
+      scope.addToScope(ClassLoaderReference.Extension, new JarFile(extension));
+      IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+      IMethod toString =
+          cha.lookupClass(TypeReference.JavaLangObject)
+              .getMethod(Selector.make("toString()Ljava/lang/String;"));
+      IClass thisClass =
+          cha.lookupClass(
+              TypeReference.findOrCreate(
+                  ClassLoaderReference.Extension,
+                  "L" + FrameworkEntryPointCacheTest.class.getName().replace('.', '/')));
+      Assert.assertNotNull(thisClass);
+      IMethod test = thisClass.getMethod(Selector.make("testStoreLookup()V"));
+      List<AndroidEntryPoint> eps =
+          Arrays.asList(
+              new AndroidEntryPoint(
+                  ExecutionOrder.AT_FIRST, toString, cha, AndroidComponent.ACTIVITY),
+              new AndroidEntryPoint(ExecutionOrder.AFTER_LOOP, test, cha, null));
+
+      String key = FrameworkEntryPointCache.keyFor(cha, "settings");
+      Assert.assertNotNull(key);
+      new FrameworkEntryPointCache(dir).store(key, eps);
+
+      // a new cache reads the entries back from the directory
+      List<AndroidEntryPoint> read = new FrameworkEntryPointCache(dir).lookup(key, cha);
+      Assert.assertNotNull(read);
+      Assert.assertEquals(eps.size(), read.size());
+      for (int i = 0; i < eps.size(); i++) {
+        Assert.assertEquals(eps.get(i).getMethod(), read.get(i).getMethod());
+        Assert.assertEquals(eps.get(i).getOrderValue(), read.get(i).getOrderValue());
+        Assert.assertEquals(eps.get(i).getComponent(), read.get(i).getComponent());
+      }
+      Assert.assertEquals(
+          ClassLoaderReference.Extension,
+          read.get(1).getMethod().getDeclaringClass().getClassLoader().getReference());
+
+      // a framework module with another modification time gets another key
+      Assert.assertTrue(extension.setLastModified(extension.lastModified() - 60 * 1000));
+      Assert.assertNotEquals(key, FrameworkEntryPointCache.keyFor(cha, "settings"));
+    } finally {
+      delete(dir);
+    }
+  }
+
+  @Test
+  public void testExclusionsChangeKey() throws ClassHierarchyException, IOException {
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.readJavaScope(
+            "primordial.txt", null, FrameworkEntryPointCacheTest.class.getClassLoader());
+    scope.setExclusions(exclusions("java\\/awt\\/.*"));
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    String key = FrameworkEntryPointCache.keyFor(cha, "settings");
+    Assert.assertNotNull(key);
+    Assert.assertEquals(key, FrameworkEntryPointCache.keyFor(cha, "settings"));
+
+    File dir = Files.createTempDirectory("framework-eps").toFile();
+    try {
+      new FrameworkEntryPointCache(dir).store(key, Collections.emptyList());
+      Assert.assertNotNull(new FrameworkEntryPointCache(dir).lookup(key, cha));
+
+      // a later run with other exclusions must not see the stored entries
+      scope.setExclusions(exclusions("java\\/awt\\/.*\njavax\\/swing\\/.*"));
+      String otherKey = FrameworkEntryPointCache.keyFor(cha, "settings");
+      Assert.assertNotNull(otherKey);
+      Assert.assertNotEquals(key, otherKey);
+      Assert.assertNull(new FrameworkEntryPointCache(dir).lookup(otherKey, cha));
+
+      scope.setExclusions(null);
+      Assert.assertNotEquals(key, FrameworkEntryPointCache.keyFor(cha, "settings"));
+    } finally {
+      delete(dir);
+    }
+  }
+}
@@ -54,13 +54,22 @@ import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
 import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
 import com.ibm.wala.ipa.cfg.BasicBlockInContext;
+import com.ibm.wala.ssa.IR;
 import com.ibm.wala.ssa.ISSABasicBlock;
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.scandroid.domain.CodeElement;
 import org.scandroid.domain.DomainElement;
 import org.scandroid.domain.IFDSTaintDomain;
@@ -70,6 +79,175 @@ import org.scandroid.util.CGAnalysisContext;
 
 public class FlowAnalysis {
 
+  /**
+   * A good number of sources for {@link #analyzeParallel} to solve as one IFDS problem. Each
+   * problem propagates the zero fact through the whole supergraph again, so a problem per source
+   * only pays off with few, expensive sources.
+   */
+  public static final int DEFAULT_SOURCES_PER_PROBLEM = 16;
+
+  /**
+   * Solve the taint problem for groups of sources in parallel, and collect the flows to the sinks
+   * of outflow.
+   *
+   * @see #analyzeParallel(CGAnalysisContext, Map, OutflowAnalysis, int, int, IFlowReporter)
+   * @return the flows from each source to its sinks
+   */
+  public static Map<FlowType<IExplodedBasicBlock>, Set<FlowType<IExplodedBasicBlock>>>
+      analyzeParallel(
+          final CGAnalysisContext<IExplodedBasicBlock> analysisContext,
+          Map<
+                  BasicBlockInContext<IExplodedBasicBlock>,
+                  Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>>>
+              initialTaints,
+          final OutflowAnalysis outflow,
+          int parallelism,
+          int sourcesPerProblem)
+          throws CancelRuntimeException {
+    final Map<FlowType<IExplodedBasicBlock>, Set<FlowType<IExplodedBasicBlock>>> flows =
+        HashMapFactory.make();
+    analyzeParallel(
+        analysisContext,
+        initialTaints,
+        outflow,
+        parallelism,
+        sourcesPerProblem,
+        (source, sink) -> {
+          synchronized (flows) {
+            flows.computeIfAbsent(source, k -> new HashSet<>()).add(sink);
+          }
+        });
+    return flows;
+  }
+
+  /**
+   * Solve the taint problem for groups of sources in parallel, and report the flows to the sinks of
+   * outflow as each group is done.
+   *
+   * <p>The sources of the initial taints are split into groups of sourcesPerProblem. Each group is
+   * solved as a separate IFDS problem, with its own domain and flow functions, by a pool of
+   * parallelism threads. Taints of different sources do not interact, so the reported flows are
+   * those of a single problem over all sources. The result of a group is dropped as soon as its
+   * flows are reported, so at most parallelism results are held at a time.
+   *
+   * <p>The supergraph and the IRs of the call graph are built before the problems are started, so
+   * the workers only read the shared analysisContext.
+   *
+   * @param parallelism the number of threads solving problems
+   * @param sourcesPerProblem how many sources to solve as one IFDS problem, e.g. {@link
+   *     #DEFAULT_SOURCES_PER_PROBLEM}
+   * @param reporter receives the flows, from the worker threads
+   */
+  public static void analyzeParallel(
+      final CGAnalysisContext<IExplodedBasicBlock> analysisContext,
+      Map<
+              BasicBlockInContext<IExplodedBasicBlock>,
+              Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>>>
+          initialTaints,
+      final OutflowAnalysis outflow,
+      int parallelism,
+      int sourcesPerProblem,
+      final IFlowReporter reporter)
+      throws CancelRuntimeException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    }
+    if (sourcesPerProblem < 1) {
+      throw new IllegalArgumentException(
+          "sourcesPerProblem must be positive: " + sourcesPerProblem);
+    }
+
+    // A source may taint several blocks, so its taints are collected before grouping
+    final Map<
+            FlowType<IExplodedBasicBlock>,
+            Map<BasicBlockInContext<IExplodedBasicBlock>, Set<CodeElement>>>
+        bySource = new LinkedHashMap<>();
+    for (Map.Entry<
+            BasicBlockInContext<IExplodedBasicBlock>,
+            Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>>>
+        bbEntry : initialTaints.entrySet()) {
+      for (Map.Entry<FlowType<IExplodedBasicBlock>, Set<CodeElement>> flowEntry :
+          bbEntry.getValue().entrySet()) {
+        bySource
+            .computeIfAbsent(flowEntry.getKey(), k -> new LinkedHashMap<>())
+            .put(bbEntry.getKey(), flowEntry.getValue());
+      }
+    }
+
+    final List<
+            Map<
+                BasicBlockInContext<IExplodedBasicBlock>,
+                Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>>>>
+        groups = new ArrayList<>();
+    Map<
+            BasicBlockInContext<IExplodedBasicBlock>,
+            Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>>>
+        current = null;
+    int sourcesInGroup = 0;
+    for (Map.Entry<
+            FlowType<IExplodedBasicBlock>,
+            Map<BasicBlockInContext<IExplodedBasicBlock>, Set<CodeElement>>>
+        sourceEntry : bySource.entrySet()) {
+      if (current == null || sourcesInGroup == sourcesPerProblem) {
+        current = HashMapFactory.make();
+        groups.add(current);
+        sourcesInGroup = 0;
+      }
+      for (Map.Entry<BasicBlockInContext<IExplodedBasicBlock>, Set<CodeElement>> bbEntry :
+          sourceEntry.getValue().entrySet()) {
+        current
+            .computeIfAbsent(bbEntry.getKey(), k -> HashMapFactory.make())
+            .put(sourceEntry.getKey(), bbEntry.getValue());
+      }
+      sourcesInGroup++;
+    }
+    if (groups.isEmpty()) {
+      return;
+    }
+
+    // Build everything the workers would otherwise build lazily. The IRs stay reachable until
+    // the problems are solved, so they are not evicted and recomputed concurrently.
+    analysisContext.graph.getNumberOfNodes();
+    final List<IR> irs = new ArrayList<>();
+    for (CGNode node : analysisContext.cg) {
+      final IR ir = node.getIR();
+      if (ir != null) {
+        irs.add(ir);
+        node.getDU();
+      }
+    }
+
+    final ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, groups.size()));
+    try {
+      final List<Future<?>> futures = new ArrayList<>(groups.size());
+      for (final Map<
+              BasicBlockInContext<IExplodedBasicBlock>,
+              Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>>>
+          group : groups) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  final IFDSTaintDomain<IExplodedBasicBlock> domain = new IFDSTaintDomain<>();
+                  outflow.analyze(analyze(analysisContext, group, domain), domain, reporter);
+                }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancelRuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+      irs.clear();
+    }
+  }
+
   public static <E extends ISSABasicBlock>
       TabulationResult<BasicBlockInContext<E>, CGNode, DomainElement> analyze(
           final CGAnalysisContext<E> analysisContext,
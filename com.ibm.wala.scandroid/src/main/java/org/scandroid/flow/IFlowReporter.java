@@ -0,0 +1,23 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package org.scandroid.flow;
+
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import org.scandroid.flow.types.FlowType;
+
+/**
+ * Receives the flows from sources to sinks as the {@link OutflowAnalysis} finds them.
+ *
+ * <p>A flow is reported once for each sink spec matching its sink. Flows are reported after the
+ * IFDS problem holding their source is solved; {@link FlowAnalysis#analyzeParallel} solves each
+ * source in exactly one of its problems, so it reports no flow twice, and smaller problems report
+ * earlier. Reporters given to it are called from several threads.
+ */
+public interface IFlowReporter {
+
+  public void reportFlow(FlowType<IExplodedBasicBlock> source, FlowType<IExplodedBasicBlock> sink);
+}
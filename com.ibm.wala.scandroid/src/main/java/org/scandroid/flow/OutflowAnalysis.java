@@ -361,19 +361,7 @@ public class OutflowAnalysis {
     Map<FlowType<IExplodedBasicBlock>, Set<FlowType<IExplodedBasicBlock>>> taintFlow =
         HashMapFactory.make();
 
-    SinkSpec[] ss = s.getSinkSpecs();
-
-    for (SinkSpec element : ss) {
-      if (element instanceof EntryArgSinkSpec)
-        processSinkSpec(flowResult, domain, taintFlow, element);
-      else if (element instanceof CallArgSinkSpec)
-        processSinkSpec(flowResult, domain, taintFlow, element);
-      else if (element instanceof EntryRetSinkSpec)
-        processSinkSpec(flowResult, domain, taintFlow, element);
-      else if (element instanceof StaticFieldSinkSpec)
-        processSinkSpec(flowResult, domain, taintFlow, element);
-      else throw new UnsupportedOperationException("SinkSpec not yet Implemented");
-    }
+    analyze(flowResult, domain, s, (source, sink) -> addEdge(taintFlow, source, sink));
 
     /* TODO: re-enable this soon! */
     /*
@@ -401,17 +389,48 @@ public class OutflowAnalysis {
     return taintFlow;
   }
 
+  /**
+   * Hand the flows to the sinks of the specs to reporter as they are found, instead of collecting
+   * them.
+   */
+  public void analyze(
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, DomainElement> flowResult,
+      IFDSTaintDomain<IExplodedBasicBlock> domain,
+      IFlowReporter reporter) {
+    analyze(flowResult, domain, specs, reporter);
+  }
+
+  public void analyze(
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, DomainElement> flowResult,
+      IFDSTaintDomain<IExplodedBasicBlock> domain,
+      ISpecs s,
+      IFlowReporter reporter) {
+    SinkSpec[] ss = s.getSinkSpecs();
+
+    for (SinkSpec element : ss) {
+      if (element instanceof EntryArgSinkSpec)
+        processSinkSpec(flowResult, domain, reporter, element);
+      else if (element instanceof CallArgSinkSpec)
+        processSinkSpec(flowResult, domain, reporter, element);
+      else if (element instanceof EntryRetSinkSpec)
+        processSinkSpec(flowResult, domain, reporter, element);
+      else if (element instanceof StaticFieldSinkSpec)
+        processSinkSpec(flowResult, domain, reporter, element);
+      else throw new UnsupportedOperationException("SinkSpec not yet Implemented");
+    }
+  }
+
   private void processSinkSpec(
       TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, DomainElement> flowResult,
       IFDSTaintDomain<IExplodedBasicBlock> domain,
-      Map<FlowType<IExplodedBasicBlock>, Set<FlowType<IExplodedBasicBlock>>> flowGraph,
+      IFlowReporter reporter,
       SinkSpec ss) {
     Set<ISinkPoint> sinkPoints = calculateSinkPoints(ss);
     if (!(ss instanceof StaticFieldSinkSpec)) {}
 
     for (ISinkPoint sinkPoint : sinkPoints) {
       for (FlowType<IExplodedBasicBlock> source : sinkPoint.findSources(ctx, flowResult, domain)) {
-        addEdge(flowGraph, source, sinkPoint.getFlow());
+        reporter.reportFlow(source, sinkPoint.getFlow());
       }
     }
   }
@@ -0,0 +1,65 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package org.scandroid.flow;
+
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import org.scandroid.flow.types.FlowType;
+
+/**
+ * Writes each flow as soon as it is reported, one line per flow:
+ *
+ * <pre>
+ * source-method source-desc -&gt; sink-method sink-desc
+ * </pre>
+ *
+ * <p>The methods are those containing the source and the sink. Nothing but the writer and a count
+ * is kept, so memory does not grow with the number of flows; duplicates are written as reported.
+ */
+public class StreamingFlowReporter implements IFlowReporter {
+
+  private final Writer out;
+
+  private int flows;
+
+  public StreamingFlowReporter(Writer out) {
+    if (out == null) {
+      throw new IllegalArgumentException("out is null");
+    }
+    this.out = out;
+  }
+
+  /** @throws UncheckedIOException if the flow cannot be written */
+  @Override
+  public synchronized void reportFlow(
+      FlowType<IExplodedBasicBlock> source, FlowType<IExplodedBasicBlock> sink) {
+    try {
+      out.write(describe(source));
+      out.write(" -> ");
+      out.write(describe(sink));
+      out.write('\n');
+      out.flush();
+      flows++;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** @return how many flows were written */
+  public synchronized int getNumberOfFlows() {
+    return flows;
+  }
+
+  private static String describe(FlowType<IExplodedBasicBlock> flow) {
+    if (flow.getBlock() == null) {
+      return flow.descString();
+    }
+    return flow.getBlock().getMethod().getSignature() + ' ' + flow.descString();
+  }
+}
@@ -206,7 +206,7 @@ public class PrefixTransferGraph implements Graph<InstanceKeySite> {
 
   @Override
   public boolean containsNode(InstanceKeySite n) {
-    return nodes.contains(n);
+    return successors.containsKey(n);
   }
 
   @Override
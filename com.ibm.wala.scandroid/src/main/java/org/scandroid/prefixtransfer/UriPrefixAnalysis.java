@@ -0,0 +1,96 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package org.scandroid.prefixtransfer;
+
+import com.ibm.wala.dataflow.graph.BasicFramework;
+import com.ibm.wala.dataflow.graph.DataflowSolver;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.GraphSlicer;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.traverse.DFS;
+import java.util.Set;
+
+/**
+ * Computes the known prefixes of the strings and Uris built by the application.
+ *
+ * <p>The {@link UriPrefixTransferGraph} has a node for every string constant and modeled Uri
+ * operation, including those the framework only uses for itself. Only the part of the graph the
+ * {@link UriPrefixTransferGraph#applicationSites} depend on is solved.
+ */
+public class UriPrefixAnalysis {
+
+  private final UriPrefixTransferGraph graph;
+
+  private final Set<InstanceKeySite> relevant;
+
+  private final DataflowSolver<InstanceKeySite, PrefixVariable> solver;
+
+  public UriPrefixAnalysis(PointerAnalysis<InstanceKey> pa) throws CancelException {
+    this(new UriPrefixTransferGraph(pa));
+  }
+
+  public UriPrefixAnalysis(UriPrefixTransferGraph graph) throws CancelException {
+    this.graph = graph;
+    this.relevant = DFS.getReachableNodes(GraphInverter.invert(graph), graph.applicationSites);
+
+    final Graph<InstanceKeySite> pruned = GraphSlicer.prune(graph, relevant::contains);
+    this.solver =
+        new DataflowSolver<InstanceKeySite, PrefixVariable>(
+            new BasicFramework<>(pruned, new PrefixTransferFunctionProvider())) {
+          @Override
+          protected PrefixVariable makeNodeVariable(InstanceKeySite n, boolean IN) {
+            return new PrefixVariable();
+          }
+
+          @Override
+          protected PrefixVariable makeEdgeVariable(InstanceKeySite src, InstanceKeySite dst) {
+            return new PrefixVariable();
+          }
+
+          @Override
+          protected PrefixVariable[] makeStmtRHS(int size) {
+            return new PrefixVariable[size];
+          }
+        };
+    solver.solve(null);
+  }
+
+  /** @return the known prefix of the string or Uri ik, or null if nothing is known about it */
+  public String getPrefix(InstanceKey ik) {
+    final InstanceKeySite site = graph.nodeMap.get(ik);
+    if (site == null || !relevant.contains(site)) {
+      return null;
+    }
+    return solver.getOut(site).getPrefix(site.instanceID());
+  }
+
+  /** @return if the value of the string or Uri ik is completely known */
+  public boolean isFullyKnown(InstanceKey ik) {
+    final InstanceKeySite site = graph.nodeMap.get(ik);
+    if (site == null || !relevant.contains(site)) {
+      return false;
+    }
+    return solver.getOut(site).fullPrefixKnown.contains(site.instanceID());
+  }
+
+  public UriPrefixTransferGraph getGraph() {
+    return graph;
+  }
+
+  /** @return how many nodes of the graph were solved */
+  public int getNumberOfSolvedSites() {
+    return relevant.size();
+  }
+
+  /** @return how many nodes of the graph were skipped as no application site depends on them */
+  public int getNumberOfSkippedSites() {
+    return graph.getNumberOfNodes() - relevant.size();
+  }
+}
@@ -99,7 +99,9 @@ public class UriPrefixContextSelector extends DefaultContextSelector {
       //            System.out.println("Adding context to "+callee.getSignature());
       //            for (int i = 0; i < receivers.length; i++)
       //            	System.out.println("\t#"+i+" "+receivers[i]);
-      if (receivers[0] instanceof NormalAllocationInNode) {
+      if (receivers != null
+          && receivers.length > 0
+          && receivers[0] instanceof NormalAllocationInNode) {
         //                System.out.println("\t\tNormalAllocationInNode "+callee.getSignature());
         if (((NormalAllocationInNode) receivers[0])
             .getSite()
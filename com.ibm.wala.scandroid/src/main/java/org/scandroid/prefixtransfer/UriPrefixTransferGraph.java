@@ -48,7 +48,6 @@
 
 package org.scandroid.prefixtransfer;
 
-import com.ibm.wala.analysis.reflection.InstanceKeyWithNode;
 import com.ibm.wala.classLoader.CallSiteReference;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.CGNode;
@@ -64,6 +63,8 @@ import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
 import com.ibm.wala.ssa.SSAInvokeInstruction;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeName;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.intset.OrdinalSet;
@@ -86,9 +87,21 @@ import org.scandroid.prefixtransfer.modeledAllocations.UriParseString;
 
 public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
 
+  private static final TypeName STRING = TypeName.string2TypeName("Ljava/lang/String");
+  private static final TypeName STRING_BUILDER =
+      TypeName.string2TypeName("Ljava/lang/StringBuilder");
+  private static final TypeName URI = TypeName.string2TypeName("Landroid/net/Uri");
+  private static final Selector TO_STRING = Selector.make("toString()Ljava/lang/String;");
+  private static final Selector PARSE = Selector.make("parse(Ljava/lang/String;)Landroid/net/Uri;");
+  private static final Selector WITH_APPENDED_PATH =
+      Selector.make("withAppendedPath(Landroid/net/Uri;Ljava/lang/String;)Landroid/net/Uri;");
+
   public final Map<InstanceKey, InstanceKeySite> nodeMap = new HashMap<>();
   public final Map<InstanceKey, StringBuilderUseAnalysis> sbuaMap = new HashMap<>();
 
+  /** The nodes for strings and Uris built by application code. */
+  public final Set<InstanceKeySite> applicationSites = new HashSet<>();
+
   private final List<InstanceKeySite> nodes = new ArrayList<>();
   private final Map<InstanceKeySite, Set<InstanceKeySite>> successors = new HashMap<>();
   private final Map<InstanceKeySite, Set<InstanceKeySite>> predecessors = new HashMap<>();
@@ -135,7 +148,7 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
       final InstanceKey ik,
       final OrdinalSetMapping<InstanceKey> mapping,
       final Map<InstanceKeySite, Set<InstanceKey>> unresolvedDependencies) {
-    if (isOfType(ik, "Ljava/lang/String")) {
+    if (isOfType(ik, STRING)) {
       if (ik instanceof ConstantKey) {
         final String value = (String) ((ConstantKey<?>) ik).getValue();
         final InstanceKeySite node = new ConstantString(mapping.getMappedIndex(ik), value);
@@ -150,7 +163,7 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
 
   private void handleStringBuilder(final InstanceKey ik, final PointerAnalysis<InstanceKey> pa) {
 
-    if (isOfType(ik, "Ljava/lang/StringBuilder")) {
+    if (isOfType(ik, STRING_BUILDER)) {
       if (ik instanceof AllocationSiteInNode) {
         final AllocationSiteInNode as = (AllocationSiteInNode) ik;
         if (isApplicationCode(as.getSite().getDeclaredType())) {
@@ -172,7 +185,7 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
       final NormalAllocationInNode nain,
       final OrdinalSetMapping<InstanceKey> mapping,
       final Map<InstanceKeySite, Set<InstanceKey>> unresolvedDependencies) {
-    if (hasSignature(nain, "java.lang.StringBuilder.toString()Ljava/lang/String;")) {
+    if (isMethod(nain.getNode().getMethod(), STRING_BUILDER, TO_STRING)) {
       final Context context = nain.getNode().getContext();
       final CGNode caller = (CGNode) context.get(ContextKey.CALLER);
 
@@ -186,6 +199,7 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
           if (node != null) {
             addNode(node);
             nodeMap.put(nain, node);
+            applicationSites.add(node);
 
             final StringBuilderToStringInstanceKeySite s2si =
                 (StringBuilderToStringInstanceKeySite) node;
@@ -214,11 +228,9 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
     final Context context = lpk.getNode().getContext();
     final CGNode caller = (CGNode) context.get(ContextKey.CALLER);
 
-    if (caller != null
-        && isApplicationCode(caller.getMethod())
-        && hasSignature(
-            lpk,
-            "android.net.Uri.withAppendedPath(Landroid/net/Uri;Ljava/lang/String;)Landroid/net/Uri;")) {
+    if (isMethod(lpk.getNode().getMethod(), URI, WITH_APPENDED_PATH)
+        && caller != null
+        && isApplicationCode(caller.getMethod())) {
       final CallSiteReference csr = (CallSiteReference) context.get(ContextKey.CALLSITE);
       final SSAInvokeInstruction invoke =
           (SSAInvokeInstruction) caller.getIR().getBasicBlocksForCall(csr)[0].getLastInstruction();
@@ -246,6 +258,7 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
             if (!nodeMap.containsKey(returnIK)) {
               addNode(node);
               nodeMap.put(returnIK, node);
+              applicationSites.add(node);
               final HashSet<InstanceKey> iks = new HashSet<>();
               iks.add(uriKey);
               iks.add(stringKey);
@@ -266,9 +279,7 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
     final Context context = allocNode.getContext();
     final CGNode caller = (CGNode) context.get(ContextKey.CALLER);
 
-    if (hasSignature(
-        allocNode,
-        "android.net.Uri.withAppendedPath(Landroid/net/Uri;Ljava/lang/String;)Landroid/net/Uri;")) {
+    if (isMethod(allocNode.getMethod(), URI, WITH_APPENDED_PATH)) {
       // Doesn't seem to be entering this else with the current android jar -- reimplemented above
       // using LocalPointerKey
       final CallSiteReference csr = (CallSiteReference) context.get(ContextKey.CALLSITE);
@@ -292,6 +303,9 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
 
           addNode(node);
           nodeMap.put(ik, node);
+          if (isApplicationCode(caller.getMethod())) {
+            applicationSites.add(node);
+          }
           final HashSet<InstanceKey> iks = new HashSet<>();
           iks.add(uriKey);
           iks.add(stringKey);
@@ -310,7 +324,7 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
     final Context context = allocNode.getContext();
     final CGNode caller = (CGNode) context.get(ContextKey.CALLER);
 
-    if (hasSignature(allocNode, "android.net.Uri.parse(Ljava/lang/String;)Landroid/net/Uri;")) {
+    if (isMethod(allocNode.getMethod(), URI, PARSE)) {
       final CallSiteReference csr = (CallSiteReference) context.get(ContextKey.CALLSITE);
       final SSAInvokeInstruction invoke =
           (SSAInvokeInstruction) caller.getIR().getBasicBlocksForCall(csr)[0].getLastInstruction();
@@ -325,6 +339,9 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
 
         addNode(node);
         nodeMap.put(ik, node);
+        if (isApplicationCode(caller.getMethod())) {
+          applicationSites.add(node);
+        }
         final Set<InstanceKey> iks = Collections.singleton(stringKey);
         unresolvedDependencies.put(node, iks);
       }
@@ -345,7 +362,7 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
 
   @Override
   public boolean containsNode(final InstanceKeySite n) {
-    return nodes.contains(n);
+    return successors.containsKey(n);
   }
 
   @Override
@@ -435,23 +452,15 @@ public class UriPrefixTransferGraph implements Graph<InstanceKeySite> {
     return tref.getClassLoader().equals(ClassLoaderReference.Application);
   }
 
-  private static boolean isOfType(final InstanceKey ik, final String typeName) {
-    return typeName.equals(ik.getConcreteType().getName().toString());
-  }
-
-  private static boolean hasSignature(final CGNode n, final String signature) {
-    return hasSignature(n.getMethod(), signature);
-  }
-
-  private static boolean hasSignature(final IMethod im, final String signature) {
-    return signature.equals(im.getSignature());
-  }
-
-  private static boolean hasSignature(final LocalPointerKey pk, final String signature) {
-    return hasSignature(pk.getNode(), signature);
+  private static boolean isOfType(final InstanceKey ik, final TypeName typeName) {
+    return typeName.equals(ik.getConcreteType().getName());
   }
 
-  private static boolean hasSignature(final InstanceKeyWithNode ik, final String signature) {
-    return hasSignature(ik.getNode(), signature);
+  /**
+   * Compare against the interned names instead of {@link IMethod#getSignature()}, which builds a
+   * new string for each of the many pointer and instance keys.
+   */
+  private static boolean isMethod(final IMethod im, final TypeName type, final Selector selector) {
+    return selector.equals(im.getSelector()) && type.equals(im.getDeclaringClass().getName());
   }
 }
@@ -199,6 +199,38 @@ public class AndroidAnalysisContext {
       SSAContextInterpreter customInterpreter,
       Collection<InputStream> summariesStreams,
       MethodSummary extraSummary) {
+    return makeZeroCFABuilder(
+        options,
+        cache,
+        cha,
+        scope,
+        customSelector,
+        customInterpreter,
+        summariesStreams,
+        extraSummary,
+        ZeroXInstanceKeys.NONE);
+  }
+
+  /**
+   * @param options options that govern call graph construction
+   * @param cha governing class hierarchy
+   * @param scope representation of the analysis scope
+   * @param customSelector user-defined context selector, or null if none
+   * @param customInterpreter user-defined context interpreter, or null if none
+   * @param instancePolicy the {@link ZeroXInstanceKeys} policy for the abstract objects
+   * @return a 0-CFA Call Graph Builder.
+   * @throws IllegalArgumentException if options is null
+   */
+  public static SSAPropagationCallGraphBuilder makeZeroCFABuilder(
+      AnalysisOptions options,
+      IAnalysisCacheView cache,
+      IClassHierarchy cha,
+      AnalysisScope scope,
+      ContextSelector customSelector,
+      SSAContextInterpreter customInterpreter,
+      Collection<InputStream> summariesStreams,
+      MethodSummary extraSummary,
+      int instancePolicy) {
 
     if (options == null) {
       throw new IllegalArgumentException("options is null");
@@ -209,13 +241,7 @@ public class AndroidAnalysisContext {
     }
 
     return ZeroXCFABuilder.make(
-        Language.JAVA,
-        cha,
-        options,
-        cache,
-        customSelector,
-        customInterpreter,
-        ZeroXInstanceKeys.NONE);
+        Language.JAVA, cha, options, cache, customSelector, customInterpreter, instancePolicy);
   }
 
   // public static void addBypassLogic(AnalysisOptions options, AnalysisScope
@@ -43,6 +43,7 @@ import com.google.common.collect.Queues;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IField;
 import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.util.CancelRuntimeException;
 import com.ibm.wala.core.util.warnings.Warnings;
 import com.ibm.wala.dalvik.classLoader.DexIRFactory;
 import com.ibm.wala.dataflow.IFDS.ICFGSupergraph;
@@ -62,11 +63,13 @@ import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
 import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
 import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
 import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.ZeroXInstanceKeys;
 import com.ibm.wala.ipa.cfg.BasicBlockInContext;
 import com.ibm.wala.ipa.cha.ClassHierarchy;
 import com.ibm.wala.ssa.ISSABasicBlock;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.GraphSlicer;
@@ -84,6 +87,8 @@ import java.util.Set;
 import org.scandroid.domain.CodeElement;
 import org.scandroid.domain.FieldElement;
 import org.scandroid.domain.InstanceKeyElement;
+import org.scandroid.prefixtransfer.UriPrefixAnalysis;
+import org.scandroid.prefixtransfer.UriPrefixContextSelector;
 
 /**
  * @author acfoltzer
@@ -105,6 +110,8 @@ public class CGAnalysisContext<E extends ISSABasicBlock> {
   public Graph<CGNode> systemToApkGraph;
   public Graph<CGNode> partialGraph;
 
+  private UriPrefixAnalysis uriPrefixAnalysis;
+
   public CGAnalysisContext(AndroidAnalysisContext analysisContext, IEntryPointSpecifier specifier)
       throws IOException {
     this(analysisContext, specifier, new ArrayList<>());
@@ -147,10 +154,15 @@ public class CGAnalysisContext<E extends ISSABasicBlock> {
             cache,
             cha,
             scope,
-            new DefaultContextSelector(analysisOptions, cha),
+            options.stringPrefixAnalysis()
+                ? new UriPrefixContextSelector(analysisOptions, cha)
+                : new DefaultContextSelector(analysisOptions, cha),
             null,
             extraSummaries,
-            null);
+            null,
+            options.stringPrefixAnalysis()
+                ? ZeroXInstanceKeys.ALLOCATIONS | ZeroXInstanceKeys.CONSTANT_SPECIFIC
+                : ZeroXInstanceKeys.NONE);
 
     /*
     if (analysisContext.getOptions().cgBuilderWarnings()) {
@@ -189,6 +201,13 @@ public class CGAnalysisContext<E extends ISSABasicBlock> {
     Warnings.clear();
 
     pa = cgb.getPointerAnalysis();
+    if (options.stringPrefixAnalysis()) {
+      try {
+        uriPrefixAnalysis = new UriPrefixAnalysis(pa);
+      } catch (CancelException e) {
+        throw new CancelRuntimeException(e);
+      }
+    }
     partialGraph =
         GraphSlicer.prune(
             cg,
@@ -412,6 +431,14 @@ public class CGAnalysisContext<E extends ISSABasicBlock> {
     return entrypoints;
   }
 
+  /**
+   * @return the prefixes of the strings and Uris built by the application, or null unless {@link
+   *     ISCanDroidOptions#stringPrefixAnalysis()} is set
+   */
+  public UriPrefixAnalysis getUriPrefixAnalysis() {
+    return uriPrefixAnalysis;
+  }
+
   public CGNode nodeForMethod(IMethod method) {
     return cg.getNode(method, Everywhere.EVERYWHERE);
   }
@@ -78,7 +78,10 @@ public interface ISCanDroidOptions {
   /** @return whether to use ServerThread.run as the entry point for analysis */
   public boolean useThreadRunMain();
 
-  /** @return whether to run string prefix analysis */
+  /**
+   * @return whether to run string prefix analysis; see {@link
+   *     CGAnalysisContext#getUriPrefixAnalysis()}
+   */
   public boolean stringPrefixAnalysis();
 
   /** @return whether to stop after generating the call graph */
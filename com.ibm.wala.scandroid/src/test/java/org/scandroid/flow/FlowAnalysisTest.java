@@ -0,0 +1,197 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package org.scandroid.flow;
+
+import com.ibm.wala.dataflow.IFDS.TabulationResult;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cfg.BasicBlockInContext;
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.util.PlatformUtil;
+import java.io.File;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.scandroid.domain.CodeElement;
+import org.scandroid.domain.DomainElement;
+import org.scandroid.domain.IFDSTaintDomain;
+import org.scandroid.flow.types.FlowType;
+import org.scandroid.spec.CallArgSinkSpec;
+import org.scandroid.spec.CallRetSourceSpec;
+import org.scandroid.spec.ISpecs;
+import org.scandroid.spec.MethodNamePattern;
+import org.scandroid.spec.SinkSpec;
+import org.scandroid.spec.SourceSpec;
+import org.scandroid.synthmethod.DefaultSCanDroidOptions;
+import org.scandroid.util.AndroidAnalysisContext;
+import org.scandroid.util.CGAnalysisContext;
+
+/**
+ * Flow analysis of flows.dex. Its flows.Main.main is
+ *
+ * <pre>
+ * String a1 = sourceA(), b1 = sourceB(), a2 = sourceA(), b2 = sourceB(), a3 = sourceA();
+ * sinkX(a1, pass(b1));
+ * sinkY(pass(a2), a3);
+ * </pre>
+ */
+public class FlowAnalysisTest {
+
+  private static final ISpecs SPECS =
+      new ISpecs() {
+        @Override
+        public MethodNamePattern[] getEntrypointSpecs() {
+          return new MethodNamePattern[] {};
+        }
+
+        @Override
+        public SourceSpec[] getSourceSpecs() {
+          return new SourceSpec[] {
+            new CallRetSourceSpec(new MethodNamePattern("Lflows/Main", "sourceA"), null),
+            new CallRetSourceSpec(new MethodNamePattern("Lflows/Main", "sourceB"), null)
+          };
+        }
+
+        @Override
+        public SinkSpec[] getSinkSpecs() {
+          return new SinkSpec[] {
+            new CallArgSinkSpec(new MethodNamePattern("Lflows/Main", "sinkX"), new int[] {0, 1}),
+            new CallArgSinkSpec(new MethodNamePattern("Lflows/Main", "sinkY"), new int[] {0, 1})
+          };
+        }
+      };
+
+  private static CGAnalysisContext<IExplodedBasicBlock> ctx;
+
+  private static Map<
+          BasicBlockInContext<IExplodedBasicBlock>,
+          Map<FlowType<IExplodedBasicBlock>, Set<CodeElement>>>
+      initialTaints;
+
+  private static Map<FlowType<IExplodedBasicBlock>, Set<FlowType<IExplodedBasicBlock>>> expected;
+
+  /** @return the module of the Java library holding java.lang.Object */
+  private static URI javaLibrary() {
+    for (String jar : PlatformUtil.getBootClassPathJars()) {
+      if (jar.endsWith("java.base.jmod") || jar.endsWith("rt.jar")) {
+        return new File(jar).toURI();
+      }
+    }
+    throw new IllegalStateException("no java.base.jmod or rt.jar found");
+  }
+
+  @BeforeClass
+  public static void analyzeSequentially() throws Exception {
+    final AndroidAnalysisContext analysisContext =
+        new AndroidAnalysisContext(
+            new DefaultSCanDroidOptions() {
+              @Override
+              public URI getClasspath() {
+                return new File("src/test/resources/flows.dex").toURI();
+              }
+
+              @Override
+              public URI getAndroidLibrary() {
+                return javaLibrary();
+              }
+
+              @Override
+              public URI getSummariesURI() {
+                return null;
+              }
+            });
+    ctx =
+        new CGAnalysisContext<>(
+            analysisContext,
+            context -> {
+              final List<Entrypoint> entrypoints = new ArrayList<>();
+              Util.makeMainEntrypoints(context.getClassHierarchy(), "Lflows/Main")
+                  .forEach(entrypoints::add);
+              return entrypoints;
+            });
+    initialTaints = InflowAnalysis.analyze(ctx, SPECS);
+
+    final IFDSTaintDomain<IExplodedBasicBlock> domain = new IFDSTaintDomain<>();
+    final TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, DomainElement> result =
+        FlowAnalysis.analyze(ctx, initialTaints, domain);
+    expected = new OutflowAnalysis(ctx, SPECS).analyze(result, domain);
+  }
+
+  @Test
+  public void testSequential() {
+    // three calls of sourceA and two of sourceB
+    Assert.assertEquals(5, initialTaints.values().stream().mapToInt(Map::size).sum());
+    // b2 reaches no sink, each of the others exactly one
+    Assert.assertEquals(4, expected.size());
+    Assert.assertEquals(4, expected.values().stream().mapToInt(Set::size).sum());
+  }
+
+  @Test
+  public void testParallelOneSourcePerProblem() {
+    Assert.assertEquals(
+        expected,
+        FlowAnalysis.analyzeParallel(ctx, initialTaints, new OutflowAnalysis(ctx, SPECS), 4, 1));
+  }
+
+  @Test
+  public void testParallelGroupedSources() {
+    Assert.assertEquals(
+        expected,
+        FlowAnalysis.analyzeParallel(ctx, initialTaints, new OutflowAnalysis(ctx, SPECS), 2, 2));
+  }
+
+  @Test
+  public void testParallelDefaultGroups() {
+    Assert.assertEquals(
+        expected,
+        FlowAnalysis.analyzeParallel(
+            ctx,
+            initialTaints,
+            new OutflowAnalysis(ctx, SPECS),
+            2,
+            FlowAnalysis.DEFAULT_SOURCES_PER_PROBLEM));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoSourcesPerProblem() {
+    FlowAnalysis.analyzeParallel(ctx, initialTaints, new OutflowAnalysis(ctx, SPECS), 2, 0);
+  }
+
+  @Test
+  public void testStreamingReporter() {
+    final StringWriter out = new StringWriter();
+    final StreamingFlowReporter streaming = new StreamingFlowReporter(out);
+    final Map<FlowType<IExplodedBasicBlock>, Set<FlowType<IExplodedBasicBlock>>> reported =
+        new HashMap<>();
+    FlowAnalysis.analyzeParallel(
+        ctx,
+        initialTaints,
+        new OutflowAnalysis(ctx, SPECS),
+        4,
+        1,
+        (source, sink) -> {
+          synchronized (reported) {
+            Assert.assertTrue(
+                "reported twice: " + source + " -> " + sink,
+                reported.computeIfAbsent(source, k -> new HashSet<>()).add(sink));
+          }
+          streaming.reportFlow(source, sink);
+        });
+    Assert.assertEquals(expected, reported);
+    Assert.assertEquals(4, streaming.getNumberOfFlows());
+    Assert.assertEquals(4, out.toString().split("\n").length);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ */
+package org.scandroid.prefixtransfer;
+
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.ConstantKey;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.util.PlatformUtil;
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.scandroid.synthmethod.DefaultSCanDroidOptions;
+import org.scandroid.util.AndroidAnalysisContext;
+import org.scandroid.util.CGAnalysisContext;
+
+/**
+ * Prefix analysis of uris.dex. It defines its own android.net.Uri, and its uris.Main.main is
+ *
+ * <pre>
+ * use(Uri.parse("content://uris/items"));
+ * use("unused");
+ * </pre>
+ */
+public class UriPrefixAnalysisTest {
+
+  /** @return the module of the Java library holding java.lang.Object */
+  private static URI javaLibrary() {
+    for (String jar : PlatformUtil.getBootClassPathJars()) {
+      if (jar.endsWith("java.base.jmod") || jar.endsWith("rt.jar")) {
+        return new File(jar).toURI();
+      }
+    }
+    throw new IllegalStateException("no java.base.jmod or rt.jar found");
+  }
+
+  private static CGAnalysisContext<IExplodedBasicBlock> analyze(boolean stringPrefixAnalysis)
+      throws Exception {
+    final AndroidAnalysisContext analysisContext =
+        new AndroidAnalysisContext(
+            new DefaultSCanDroidOptions() {
+              @Override
+              public URI getClasspath() {
+                return new File("src/test/resources/uris.dex").toURI();
+              }
+
+              @Override
+              public URI getAndroidLibrary() {
+                return javaLibrary();
+              }
+
+              @Override
+              public URI getSummariesURI() {
+                return null;
+              }
+
+              @Override
+              public boolean stringPrefixAnalysis() {
+                return stringPrefixAnalysis;
+              }
+            });
+    return new CGAnalysisContext<>(
+        analysisContext,
+        context -> {
+          final List<Entrypoint> entrypoints = new ArrayList<>();
+          Util.makeMainEntrypoints(context.getClassHierarchy(), "Luris/Main")
+              .forEach(entrypoints::add);
+          return entrypoints;
+        });
+  }
+
+  @Test
+  public void testParsedUriPrefix() throws Exception {
+    final CGAnalysisContext<IExplodedBasicBlock> ctx = analyze(true);
+    final UriPrefixAnalysis prefixes = ctx.getUriPrefixAnalysis();
+    Assert.assertNotNull(prefixes);
+
+    InstanceKey uri = null;
+    InstanceKey unused = null;
+    for (InstanceKey ik : ctx.pa.getInstanceKeys()) {
+      if (ik.getConcreteType().getName().toString().equals("Landroid/net/Uri")) {
+        Assert.assertNull("one Uri only", uri);
+        uri = ik;
+      } else if (ik instanceof ConstantKey && "unused".equals(((ConstantKey<?>) ik).getValue())) {
+        unused = ik;
+      }
+    }
+    Assert.assertNotNull(uri);
+    Assert.assertNotNull(unused);
+
+    Assert.assertEquals("content://uris/items", prefixes.getPrefix(uri));
+    Assert.assertTrue(prefixes.isFullyKnown(uri));
+
+    // no application Uri depends on the other string, so it is not solved
+    Assert.assertTrue(prefixes.getNumberOfSkippedSites() > 0);
+    Assert.assertNull(prefixes.getPrefix(unused));
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    Assert.assertNull(analyze(false).getUriPrefixAnalysis());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2002,2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.bench;
+
+import com.ibm.wala.shrike.shrikeBT.ConstantPoolReader;
+import com.ibm.wala.shrike.shrikeBT.Decoder;
+import com.ibm.wala.shrike.shrikeBT.IInstruction;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTDecoder;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.OfflineInstrumenter;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.CodeReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Measures the effect of {@link Decoder.InstructionPool}.
+ *
+ * <p>Class files are taken as input arguments (or if there are none, from standard input). Every
+ * method is decoded twice, once without and once with an instruction pool per class, and for each
+ * mode we print the decoding time and the number of distinct Instruction objects making up the
+ * decoded code, which approximates the number of instructions the decoder allocated.
+ *
+ * <p>In Unix, I run it like this: java -cp ~/dev/shrike/shrike
+ * com.ibm.wala.shrike.bench.DecoderBench test.jar
+ */
+public class DecoderBench {
+
+  public static void main(String[] args) throws Exception {
+    OfflineInstrumenter instrumenter = new OfflineInstrumenter();
+    instrumenter.parseStandardArgs(args);
+    instrumenter.beginTraversal();
+
+    List<ClassReader> classes = new ArrayList<>();
+    ClassInstrumenter ci;
+    while ((ci = instrumenter.nextClass()) != null) {
+      classes.add(ci.getReader());
+    }
+    instrumenter.close();
+
+    // the first pass only warms up the JIT
+    run(classes, false);
+    run(classes, true);
+    report("plain", run(classes, false));
+    report("pooled", run(classes, true));
+  }
+
+  private static void report(String mode, long[] result) {
+    System.out.println(
+        mode
+            + ": "
+            + result[0]
+            + " instructions, "
+            + result[1]
+            + " distinct instruction objects, "
+            + result[2] / 1000000
+            + "ms");
+  }
+
+  /** @return total instructions, distinct instruction objects, and elapsed nanoseconds */
+  private static long[] run(List<ClassReader> classes, boolean pooled) throws Exception {
+    long instructions = 0;
+    long distinct = 0;
+    long start = System.nanoTime();
+    for (ClassReader cr : classes) {
+      ConstantPoolReader cpr = CTDecoder.makeConstantPoolReader(cr);
+      Decoder.InstructionPool pool = pooled ? new Decoder.InstructionPool(cpr) : null;
+      Set<IInstruction> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (int m = 0; m < cr.getMethodCount(); m++) {
+        ClassReader.AttrIterator iter = new ClassReader.AttrIterator();
+        cr.initMethodAttributeIterator(m, iter);
+        for (; iter.isValid(); iter.advance()) {
+          if (iter.getName().equals("Code")) {
+            CodeReader code = new CodeReader(iter);
+            CTDecoder d = pooled ? new CTDecoder(code, pool) : new CTDecoder(code, cpr);
+            d.decode();
+            IInstruction[] instrs = d.getInstructions();
+            instructions += instrs.length;
+            Collections.addAll(seen, instrs);
+          }
+        }
+      }
+      distinct += seen.size();
+    }
+    return new long[] {instructions, distinct, System.nanoTime() - start};
+  }
+}
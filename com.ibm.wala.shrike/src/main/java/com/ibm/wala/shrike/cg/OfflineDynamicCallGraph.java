@@ -10,6 +10,7 @@
  */
 package com.ibm.wala.shrike.cg;
 
+import com.ibm.wala.shrike.instrumentation.ClassTransform;
 import com.ibm.wala.shrike.shrikeBT.ConstantInstruction;
 import com.ibm.wala.shrike.shrikeBT.Constants;
 import com.ibm.wala.shrike.shrikeBT.Disassembler;
@@ -30,6 +31,8 @@ import com.ibm.wala.shrike.shrikeBT.analysis.Verifier;
 import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTUtils;
 import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
 import com.ibm.wala.shrike.shrikeBT.shrikeCT.OfflineInstrumenter;
+import com.ibm.wala.shrike.shrikeBT.tools.MethodOptimizer;
+import com.ibm.wala.shrike.shrikeBT.tools.MethodOptimizer.UnoptimizableCodeException;
 import com.ibm.wala.shrike.shrikeCT.ClassReader;
 import com.ibm.wala.shrike.shrikeCT.ClassWriter;
 import com.ibm.wala.shrike.shrikeCT.ConstantPoolParser;
@@ -43,6 +46,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Map;
 
@@ -107,6 +111,7 @@ public class OfflineDynamicCallGraph {
   private static final boolean extractCalls = true;
   private static boolean extractDynamicCalls = false;
   private static boolean extractConstructors = true;
+  private static boolean optimize = false;
 
   private static Class<?> runtime = Runtime.class;
 
@@ -135,6 +140,8 @@ public class OfflineDynamicCallGraph {
           extractDynamicCalls = true;
         } else if ("--extract-constructors".equals(args[i])) {
           extractConstructors = true;
+        } else if ("--optimize".equals(args[i])) {
+          optimize = true;
         } else if ("--rt-jar".equals(args[i])) {
           System.err.println("using " + args[i + 1] + " as stdlib");
           OfflineInstrumenter libReader = new OfflineInstrumenter();
@@ -169,6 +176,51 @@ public class OfflineDynamicCallGraph {
     instrumenter.close();
   }
 
+  /**
+   * Applies {@link #doClass} at load time, e.g. through {@link
+   * com.ibm.wala.shrike.instrumentation.ShrikeAgent}, with the options currently set for this
+   * class.
+   */
+  public static class Transform implements ClassTransform {
+    /**
+     * print the disassembly of each instrumented class to System.err, in one piece so that classes
+     * loaded in parallel do not interleave
+     */
+    public static boolean disassemble = false;
+
+    @Override
+    public ClassWriter transform(ClassInstrumenter ci)
+        throws InvalidClassFileException, IOException, FailureException {
+      if (!disassemble) {
+        return doClass(ci, null);
+      }
+      StringWriter report = new StringWriter();
+      ClassWriter cw = doClass(ci, report);
+      System.err.print(report);
+      return cw;
+    }
+
+    @Override
+    public String getOptions() {
+      return "runtime="
+          + runtime.getName()
+          + " patchExits="
+          + patchExits
+          + " patchCalls="
+          + patchCalls
+          + " extractDynamicCalls="
+          + extractDynamicCalls
+          + " extractConstructors="
+          + extractConstructors
+          + " optimize="
+          + optimize
+          + " filter="
+          // the patterns of the exclusions file, so equal exclusions give equal options
+          + (filter == null ? "none" : filter.toString());
+    }
+  }
+
+  /** @param w where to write the disassembly of the class, or null for none */
   static ClassWriter doClass(final ClassInstrumenter ci, Writer w)
       throws InvalidClassFileException, IOException, FailureException {
     final String className = ci.getReader().getName();
@@ -176,7 +228,7 @@ public class OfflineDynamicCallGraph {
       return null;
     }
 
-    if (disasm) {
+    if (disasm && w != null) {
       w.write("Class: " + className + '\n');
       w.flush();
     }
@@ -194,7 +246,7 @@ public class OfflineDynamicCallGraph {
           return null;
         }
 
-        if (disasm) {
+        if (disasm && w != null) {
           w.write(
               "Instrumenting "
                   + ci.getReader().getMethodName(m)
@@ -418,7 +470,17 @@ public class OfflineDynamicCallGraph {
 
         me.endPass();
 
-        if (disasm) {
+        if (optimize) {
+          try {
+            new MethodOptimizer(me).optimize();
+          } catch (UnoptimizableCodeException e) {
+            if (w != null) {
+              w.write("Could not optimize: " + e.getMessage() + '\n');
+            }
+          }
+        }
+
+        if (disasm && w != null) {
           w.write("Final ShrikeBT code:\n");
           (new Disassembler(d)).disassembleTo(w);
           w.flush();
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2002,2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.instrumentation;
+
+import com.ibm.wala.shrike.shrikeBT.analysis.Analyzer.FailureException;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrike.shrikeCT.ClassWriter;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import java.io.IOException;
+
+/**
+ * A rewriting step applied to a single class by {@link ShrikeAgent}. This is the load-time
+ * counterpart of the loop over {@code OfflineInstrumenter.nextClass()} that offline tools such as
+ * MethodTracer run: implementations typically edit each method with a MethodEditor and then call
+ * {@link ClassInstrumenter#emitClass()}.
+ *
+ * <p>The agent may call a transform from several class-loading threads at once, so implementations
+ * must not keep per-class state in fields.
+ */
+public interface ClassTransform {
+
+  /**
+   * Rewrite one class.
+   *
+   * @param ci the instrumenter for the class being loaded; its class hierarchy is the one of the
+   *     defining class loader
+   * @return the writer holding the rewritten class, or null to leave the class unchanged
+   */
+  ClassWriter transform(ClassInstrumenter ci)
+      throws InvalidClassFileException, IOException, FailureException;
+
+  /**
+   * Describe the settings that affect what {@link #transform} produces. The agent only reuses a
+   * cached result for a class when the description is unchanged.
+   *
+   * @return a description of the options of this transform
+   */
+  default String getOptions() {
+    return "";
+  }
+}
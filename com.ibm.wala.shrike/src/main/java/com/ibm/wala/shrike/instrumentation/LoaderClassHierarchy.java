@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002,2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.instrumentation;
+
+import com.ibm.wala.shrike.shrikeBT.Constants;
+import com.ibm.wala.shrike.shrikeBT.analysis.ClassHierarchyProvider;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTDecoder;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A ClassHierarchyProvider for the classes visible from one class loader. Unlike {@link
+ * com.ibm.wala.shrike.shrikeBT.analysis.ClassHierarchyStore}, which must be filled in ahead of
+ * time, this provider reads the class file of a type the first time it is asked about it, using the
+ * loader's own resource lookup (and hence its delegation policy). Answers, including "not found",
+ * are cached.
+ *
+ * <p>This class is safe to use from several threads at once.
+ */
+public final class LoaderClassHierarchy implements ClassHierarchyProvider {
+  private static final String[] noClasses = new String[0];
+
+  private static final class ClassInfo {
+    final boolean isInterface;
+
+    final boolean isFinal;
+
+    final String superClass;
+
+    final String[] superInterfaces;
+
+    ClassInfo(boolean isInterface, boolean isFinal, String superClass, String[] superInterfaces) {
+      this.isInterface = isInterface;
+      this.isFinal = isFinal;
+      this.superClass = superClass;
+      this.superInterfaces = superInterfaces;
+    }
+  }
+
+  /** Marks types whose class file could not be found or parsed. */
+  private static final ClassInfo MISSING = new ClassInfo(false, false, null, null);
+
+  /** Held weakly, so that a cached provider does not keep its loader alive. */
+  private final WeakReference<ClassLoader> loader;
+
+  private final ConcurrentHashMap<String, ClassInfo> contents = new ConcurrentHashMap<>();
+
+  /** @param loader the loader to read class files from, or null for the system class loader */
+  public LoaderClassHierarchy(ClassLoader loader) {
+    this.loader = loader == null ? null : new WeakReference<>(loader);
+  }
+
+  /**
+   * Record the hierarchy information of a class whose bytes are already at hand, e.g. the class
+   * currently being loaded, so that it need not be read again.
+   */
+  public void addClass(ClassReader cr) throws InvalidClassFileException {
+    if (cr == null) {
+      throw new IllegalArgumentException("cr is null");
+    }
+    contents.put(CTDecoder.convertClassToType(cr.getName()), makeInfo(cr));
+  }
+
+  private static ClassInfo makeInfo(ClassReader cr) throws InvalidClassFileException {
+    String[] superInterfaces = new String[cr.getInterfaceCount()];
+    for (int i = 0; i < superInterfaces.length; i++) {
+      superInterfaces[i] = CTDecoder.convertClassToType(cr.getInterfaceName(i));
+    }
+    String superName = cr.getSuperName();
+    return new ClassInfo(
+        (cr.getAccessFlags() & Constants.ACC_INTERFACE) != 0,
+        (cr.getAccessFlags() & Constants.ACC_FINAL) != 0,
+        superName != null ? CTDecoder.convertClassToType(superName) : null,
+        superInterfaces);
+  }
+
+  private ClassInfo find(String cl) {
+    ClassInfo info = contents.get(cl);
+    if (info == null) {
+      info = read(cl);
+      ClassInfo old = contents.putIfAbsent(cl, info);
+      if (old != null) {
+        info = old;
+      }
+    }
+    return info == MISSING ? null : info;
+  }
+
+  private ClassInfo read(String cl) {
+    if (cl == null || !cl.startsWith("L") || !cl.endsWith(";")) {
+      return MISSING;
+    }
+    String resource = cl.substring(1, cl.length() - 1) + ".class";
+    ClassLoader l = loader == null ? null : loader.get();
+    if (loader != null && l == null) {
+      return MISSING;
+    }
+    try (InputStream s =
+        l == null
+            ? ClassLoader.getSystemResourceAsStream(resource)
+            : l.getResourceAsStream(resource)) {
+      if (s == null) {
+        return MISSING;
+      }
+      return makeInfo(new ClassReader(readAll(s)));
+    } catch (IOException | InvalidClassFileException e) {
+      return MISSING;
+    }
+  }
+
+  private static byte[] readAll(InputStream s) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[8192];
+    int n;
+    while ((n = s.read(buf)) > 0) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public String getSuperClass(String cl) {
+    ClassInfo info = find(cl);
+    return info == null ? null : info.superClass;
+  }
+
+  @Override
+  public String[] getSuperInterfaces(String cl) {
+    ClassInfo info = find(cl);
+    return info == null ? null : info.superInterfaces;
+  }
+
+  @Override
+  public String[] getSubClasses(String cl) {
+    ClassInfo info = find(cl);
+    return (info == null || !info.isFinal) ? null : noClasses;
+  }
+
+  @Override
+  public int isInterface(String cl) {
+    ClassInfo info = find(cl);
+    return info == null ? Constants.MAYBE : (info.isInterface ? Constants.YES : Constants.NO);
+  }
+}
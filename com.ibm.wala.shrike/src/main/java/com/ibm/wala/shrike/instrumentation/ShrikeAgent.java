@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2002,2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.instrumentation;
+
+import com.ibm.wala.shrike.shrikeBT.analysis.Analyzer.FailureException;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.ClassWriter;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.lang.instrument.Instrumentation;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProtectionDomain;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A java.lang.instrument agent that applies a {@link ClassTransform} to classes as they are loaded,
+ * so that Shrike instrumentation can be used without rewriting jars with OfflineInstrumenter first.
+ * Each class goes through ClassReader, a {@link ClassInstrumenter} and the ClassWriter returned by
+ * the transform.
+ *
+ * <p>The agent keeps one {@link LoaderClassHierarchy} per defining class loader, and remembers the
+ * results of the last few thousand transformations keyed by a digest of the options of the
+ * transform and of the original class bytes, so a class that is loaded again by another loader is
+ * not instrumented twice. The agent does not ask for retransformation, so classes loaded before it
+ * was installed are left alone. The JVM may call {@link #transform} concurrently; the agent
+ * synchronizes its own data structures, and the transform must be thread-safe as well.
+ *
+ * <p>To use it, build the agent jar with the agentJar task, which uses manifest.agent, and put it
+ * on the command line as
+ *
+ * <pre>
+ * -javaagent:com.ibm.wala.shrike-VERSION-agent.jar=my.pkg.MyTransform[,cache=N]
+ * </pre>
+ *
+ * where my.pkg.MyTransform implements {@link ClassTransform} and has a public no-argument
+ * constructor, and N is the number of transformation results to keep (default {@value
+ * #DEFAULT_MAX_CACHED_CLASSES}, 0 to disable the cache). The same argument works when attaching to
+ * a running JVM.
+ */
+public class ShrikeAgent implements ClassFileTransformer {
+
+  /** the number of transformation results an agent keeps unless told otherwise */
+  public static final int DEFAULT_MAX_CACHED_CLASSES = 4096;
+
+  private static final String CACHE_OPTION = "cache=";
+
+  /** Packages that are never instrumented: Shrike itself and the core of the JDK. */
+  private static final String[] excludedPrefixes = {
+    "com/ibm/wala/shrike/", "java/", "javax/", "jdk/", "sun/", "com/sun/"
+  };
+
+  private static final ThreadLocal<MessageDigest> digests =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+              throw new Error("SHA-256 is not available", e);
+            }
+          });
+
+  /** Stands for "transformed, but nothing changed" in {@link #cache}. */
+  private static final byte[] UNCHANGED = new byte[0];
+
+  private final ClassTransform transform;
+
+  private final int maxCachedClasses;
+
+  private final Map<ClassLoader, LoaderClassHierarchy> hierarchies =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final Map<ByteBuffer, byte[]> cache =
+      new LinkedHashMap<ByteBuffer, byte[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, byte[]> eldest) {
+          return size() > maxCachedClasses;
+        }
+      };
+
+  private final AtomicInteger cacheHits = new AtomicInteger();
+
+  public ShrikeAgent(ClassTransform transform) {
+    this(transform, DEFAULT_MAX_CACHED_CLASSES);
+  }
+
+  /** @param maxCachedClasses how many transformation results to keep; 0 disables the cache */
+  public ShrikeAgent(ClassTransform transform, int maxCachedClasses) {
+    if (transform == null) {
+      throw new IllegalArgumentException("transform is null");
+    }
+    if (maxCachedClasses < 0) {
+      throw new IllegalArgumentException("negative cache size " + maxCachedClasses);
+    }
+    this.transform = transform;
+    this.maxCachedClasses = maxCachedClasses;
+  }
+
+  /** @return the class hierarchy used for classes defined by the given loader */
+  public LoaderClassHierarchy getClassHierarchy(ClassLoader loader) {
+    synchronized (hierarchies) {
+      LoaderClassHierarchy cha = hierarchies.get(loader);
+      if (cha == null) {
+        cha = new LoaderClassHierarchy(loader);
+        hierarchies.put(loader, cha);
+      }
+      return cha;
+    }
+  }
+
+  /** @return how many classes were answered from the cache rather than transformed */
+  public int getCacheHits() {
+    return cacheHits.get();
+  }
+
+  private static boolean isExcluded(String className) {
+    if (className == null) {
+      // e.g. hidden or anonymous classes
+      return true;
+    }
+    for (String prefix : excludedPrefixes) {
+      if (className.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public byte[] transform(
+      ClassLoader loader,
+      String className,
+      Class<?> classBeingRedefined,
+      ProtectionDomain protectionDomain,
+      byte[] classfileBuffer)
+      throws IllegalClassFormatException {
+    if (isExcluded(className)) {
+      return null;
+    }
+
+    ByteBuffer key = cacheKey(classfileBuffer);
+    byte[] result;
+    synchronized (cache) {
+      result = cache.get(key);
+    }
+    if (result != null) {
+      cacheHits.incrementAndGet();
+    } else {
+      try {
+        result = instrument(loader, className, classfileBuffer);
+      } catch (InvalidClassFileException | IOException | FailureException | RuntimeException e) {
+        // an exception escaping a ClassFileTransformer is silently dropped by the JVM
+        System.err.println("Shrike agent could not transform " + className + ": " + e);
+        throw new IllegalClassFormatException(e.getMessage());
+      }
+      synchronized (cache) {
+        byte[] old = cache.putIfAbsent(key, result);
+        if (old != null) {
+          result = old;
+        }
+      }
+    }
+
+    return result == UNCHANGED ? null : result;
+  }
+
+  /** @return the digest of the options of the transform and of the bytes of a class */
+  private ByteBuffer cacheKey(byte[] classfileBuffer) {
+    MessageDigest digest = digests.get();
+    digest.update(transform.getClass().getName().getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(transform.getOptions().getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    return ByteBuffer.wrap(digest.digest(classfileBuffer));
+  }
+
+  private byte[] instrument(ClassLoader loader, String className, byte[] bytes)
+      throws InvalidClassFileException, IOException, FailureException {
+    LoaderClassHierarchy cha = getClassHierarchy(loader);
+    ClassReader cr = new ClassReader(bytes);
+    cha.addClass(cr);
+    ClassInstrumenter ci = new ClassInstrumenter(className, cr, cha);
+    ClassWriter cw = transform.transform(ci);
+    return cw == null ? UNCHANGED : cw.makeBytes();
+  }
+
+  /**
+   * @param agentArgs the agent argument, as described in the class comment
+   * @return an agent for the transform and cache size named by agentArgs
+   */
+  public static ShrikeAgent make(String agentArgs) {
+    if (agentArgs == null || agentArgs.trim().isEmpty()) {
+      throw new IllegalArgumentException(
+          "expected the name of a " + ClassTransform.class.getName() + " as agent argument");
+    }
+    String[] args = agentArgs.split(",");
+    int maxCachedClasses = DEFAULT_MAX_CACHED_CLASSES;
+    for (int i = 1; i < args.length; i++) {
+      String arg = args[i].trim();
+      if (!arg.startsWith(CACHE_OPTION)) {
+        throw new IllegalArgumentException("unknown agent option " + arg);
+      }
+      try {
+        maxCachedClasses = Integer.parseInt(arg.substring(CACHE_OPTION.length()));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("bad cache size in " + arg, e);
+      }
+    }
+    String transform = args[0].trim();
+    try {
+      return new ShrikeAgent(
+          (ClassTransform) Class.forName(transform).getConstructor().newInstance(),
+          maxCachedClasses);
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new IllegalArgumentException("cannot instantiate transform " + transform, e);
+    }
+  }
+
+  public static void premain(String agentArgs, Instrumentation inst) {
+    inst.addTransformer(make(agentArgs));
+  }
+
+  public static void agentmain(String agentArgs, Instrumentation inst) {
+    premain(agentArgs, inst);
+  }
+}
@@ -144,6 +144,68 @@ public abstract class Decoder implements Constants {
 
   private static final Instruction makeZero = ConstantInstruction.make(0);
 
+  /**
+   * A cache of the instructions that refer to the constant pool (ldc, field accesses, invokes, type
+   * tests and allocations), keyed by opcode and constant pool index. Instructions are immutable, so
+   * all decoders of the methods of one class can share one pool and hand out the same instruction
+   * object for, e.g., every call to the same method, rather than allocating a new one at every
+   * occurrence.
+   *
+   * <p>A pool must only be used with decoders reading the constant pool it was created for. It is
+   * safe to share between threads.
+   */
+  public static final class InstructionPool {
+    private final ConstantPoolReader constantPool;
+
+    private final Instruction[][] byOpcode = new Instruction[256][];
+
+    private int hits;
+
+    private int misses;
+
+    public InstructionPool(ConstantPoolReader cp) {
+      if (cp == null) {
+        throw new IllegalArgumentException("cp is null");
+      }
+      this.constantPool = cp;
+    }
+
+    public ConstantPoolReader getConstantPool() {
+      return constantPool;
+    }
+
+    synchronized Instruction get(int opcode, int index) {
+      Instruction[] table = byOpcode[opcode];
+      Instruction i = (table == null || index >= table.length) ? null : table[index];
+      if (i == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+      return i;
+    }
+
+    synchronized void put(int opcode, int index, Instruction i) {
+      Instruction[] table = byOpcode[opcode];
+      if (table == null) {
+        table = byOpcode[opcode] = new Instruction[Math.max(16, index + 1)];
+      } else if (index >= table.length) {
+        table = byOpcode[opcode] = Arrays.copyOf(table, Math.max(table.length * 2, index + 1));
+      }
+      table[index] = i;
+    }
+
+    /** @return how many constant pool instructions were found in the pool */
+    public synchronized int getHits() {
+      return hits;
+    }
+
+    /** @return how many constant pool instructions had to be created */
+    public synchronized int getMisses() {
+      return misses;
+    }
+  }
+
   // Holds the result of decoding
   private IInstruction[] instructions;
 
@@ -153,6 +215,8 @@ public abstract class Decoder implements Constants {
 
   private final ConstantPoolReader constantPool;
 
+  private final InstructionPool pool;
+
   // Holds the input to decode
   private final byte[] code;
 
@@ -171,6 +235,9 @@ public abstract class Decoder implements Constants {
 
   private RetInfo[] retInfo;
 
+  /** One object per raw handler entry, shared by all instructions of the main code it covers. */
+  private ExceptionHandler[] handlerObjects;
+
   /**
    * This constructor is only supposed to be used by subclasses.
    *
@@ -182,6 +249,26 @@ public abstract class Decoder implements Constants {
     this.code = code;
     this.rawHandlers = rawHandlers;
     this.constantPool = cp;
+    this.pool = null;
+  }
+
+  /**
+   * This constructor is only supposed to be used by subclasses. Instructions that refer to the
+   * constant pool are taken from, and added to, the given pool.
+   *
+   * @param code the bytecodes for a method as per JVM spec
+   * @param rawHandlers flattened array of (startPC, endPC, targetPC, classIndex) tuples defined as
+   *     per the JVM spec
+   * @param pool the instructions shared with other methods of the same class
+   */
+  protected Decoder(byte[] code, int[] rawHandlers, InstructionPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("pool is null");
+    }
+    this.code = code;
+    this.rawHandlers = rawHandlers;
+    this.constantPool = pool.getConstantPool();
+    this.pool = pool;
   }
 
   public ConstantPoolReader getConstantPool() {
@@ -204,6 +291,10 @@ public abstract class Decoder implements Constants {
   }
 
   private Instruction makeConstantPoolLoad(int index) throws InvalidBytecodeException {
+    Instruction cached = pooled(OP_ldc_w, index);
+    if (cached != null) {
+      return cached;
+    }
     ConstantInstruction ci = ConstantInstruction.make(constantPool, index);
     if (ci == null) {
       throw new InvalidBytecodeException(
@@ -213,7 +304,19 @@ public abstract class Decoder implements Constants {
               + constantPool.getConstantPoolItemType(index)
               + ") cannot be loaded");
     }
-    return ci;
+    return addToPool(OP_ldc_w, index, ci);
+  }
+
+  /** @return the pooled instruction for the given opcode and constant pool index, or null */
+  private Instruction pooled(int opcode, int index) {
+    return pool == null ? null : pool.get(opcode, index);
+  }
+
+  private Instruction addToPool(int opcode, int index, Instruction i) {
+    if (pool != null) {
+      pool.put(opcode, index, i);
+    }
+    return i;
   }
 
   private static int elemCount(byte[] stack, int stackPtr) throws InvalidBytecodeException {
@@ -659,7 +762,12 @@ public abstract class Decoder implements Constants {
         case OP_getfield:
           {
             int f = decodeUShort(index);
-            i = GetInstruction.make(constantPool, f, opcode == OP_getstatic);
+            i = pooled(opcode, f);
+            if (i == null) {
+              i =
+                  addToPool(
+                      opcode, f, GetInstruction.make(constantPool, f, opcode == OP_getstatic));
+            }
             index += 2;
             break;
           }
@@ -667,7 +775,12 @@ public abstract class Decoder implements Constants {
         case OP_putfield:
           {
             int f = decodeUShort(index);
-            i = PutInstruction.make(constantPool, f, opcode == OP_putstatic);
+            i = pooled(opcode, f);
+            if (i == null) {
+              i =
+                  addToPool(
+                      opcode, f, PutInstruction.make(constantPool, f, opcode == OP_putstatic));
+            }
             index += 2;
             break;
           }
@@ -676,48 +789,92 @@ public abstract class Decoder implements Constants {
         case OP_invokestatic:
           {
             int m = decodeUShort(index);
-            i = InvokeInstruction.make(constantPool, m, opcode);
+            i = pooled(opcode, m);
+            if (i == null) {
+              i = addToPool(opcode, m, InvokeInstruction.make(constantPool, m, opcode));
+            }
             index += 2;
             break;
           }
         case OP_invokeinterface:
           {
             int m = decodeUShort(index);
-            i = InvokeInstruction.make(constantPool, m, opcode);
+            i = pooled(opcode, m);
+            if (i == null) {
+              i = addToPool(opcode, m, InvokeInstruction.make(constantPool, m, opcode));
+            }
             index += 4;
             break;
           }
         case OP_invokedynamic:
           {
             int m = decodeUShort(index);
-            i = InvokeDynamicInstruction.make(constantPool, m, opcode);
+            i = pooled(opcode, m);
+            if (i == null) {
+              i = addToPool(opcode, m, InvokeDynamicInstruction.make(constantPool, m, opcode));
+            }
             index += 4;
             break;
           }
         case OP_new:
-          i = NewInstruction.make(constantPool.getConstantPoolClassType(decodeUShort(index)), 0);
-          index += 2;
-          break;
+          {
+            int t = decodeUShort(index);
+            i = pooled(opcode, t);
+            if (i == null) {
+              i =
+                  addToPool(
+                      opcode, t, NewInstruction.make(constantPool.getConstantPoolClassType(t), 0));
+            }
+            index += 2;
+            break;
+          }
         case OP_newarray:
           i = NewInstruction.make(Util.makeArray(getPrimitiveType(code[index])), 1);
           index++;
           break;
         case OP_anewarray:
-          i =
-              NewInstruction.make(
-                  Util.makeArray(constantPool.getConstantPoolClassType(decodeUShort(index))), 1);
-          index += 2;
-          break;
+          {
+            int t = decodeUShort(index);
+            i = pooled(opcode, t);
+            if (i == null) {
+              i =
+                  addToPool(
+                      opcode,
+                      t,
+                      NewInstruction.make(
+                          Util.makeArray(constantPool.getConstantPoolClassType(t)), 1));
+            }
+            index += 2;
+            break;
+          }
         case OP_checkcast:
-          i = CheckCastInstruction.make(constantPool.getConstantPoolClassType(decodeUShort(index)));
-          index += 2;
-          break;
+          {
+            int t = decodeUShort(index);
+            i = pooled(opcode, t);
+            if (i == null) {
+              i =
+                  addToPool(
+                      opcode,
+                      t,
+                      CheckCastInstruction.make(constantPool.getConstantPoolClassType(t)));
+            }
+            index += 2;
+            break;
+          }
         case OP_instanceof:
-          i =
-              InstanceofInstruction.make(
-                  constantPool.getConstantPoolClassType(decodeUShort(index)));
-          index += 2;
-          break;
+          {
+            int t = decodeUShort(index);
+            i = pooled(opcode, t);
+            if (i == null) {
+              i =
+                  addToPool(
+                      opcode,
+                      t,
+                      InstanceofInstruction.make(constantPool.getConstantPoolClassType(t)));
+            }
+            index += 2;
+            break;
+          }
         case OP_wide:
           wide = true;
           opcode = code[index] & 0xFF;
@@ -922,7 +1079,15 @@ public abstract class Decoder implements Constants {
           String catchClass =
               classIndex == 0 ? null : constantPool.getConstantPoolClassType(classIndex);
 
-          hs[numHandlers] = new ExceptionHandler(addrMap[rawHandlers[j + 2]], catchClass);
+          if (addrMap != decodedOffset) {
+            hs[numHandlers] = new ExceptionHandler(addrMap[rawHandlers[j + 2]], catchClass);
+          } else {
+            // handlers of the main code all use the same map, so one object per entry suffices
+            if (handlerObjects[j / 4] == null) {
+              handlerObjects[j / 4] = new ExceptionHandler(addrMap[rawHandlers[j + 2]], catchClass);
+            }
+            hs[numHandlers] = handlerObjects[j / 4];
+          }
           numHandlers++;
         }
       }
@@ -1075,6 +1240,7 @@ public abstract class Decoder implements Constants {
 
     // generate exception handlers
     if (rawHandlers.length > 0) {
+      handlerObjects = new ExceptionHandler[rawHandlers.length / 4];
       ExceptionHandler[] hs = null;
       int handlersValidBefore = -1;
 
@@ -1112,6 +1278,7 @@ public abstract class Decoder implements Constants {
     }
 
     decoded = null;
+    handlerObjects = null;
     decodedOffset = null;
     decodedSize = null;
     belongsToSub = null;
@@ -11,12 +11,15 @@
 package com.ibm.wala.shrike.shrikeBT.analysis;
 
 import com.ibm.wala.shrike.shrikeBT.Constants;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This implementation of ClassHierarchyProvider is a simple writable data structure representing a
  * class hierarchy. You call setClassInfo to record information about a class.
+ *
+ * <p>The store may be read and updated from several threads at once, e.g. by verifiers running in
+ * parallel.
  */
 public final class ClassHierarchyStore implements ClassHierarchyProvider {
   private static final String[] noClasses = new String[0];
@@ -38,7 +41,7 @@ public final class ClassHierarchyStore implements ClassHierarchyProvider {
     }
   }
 
-  private final HashMap<String, ClassInfo> contents = new HashMap<>();
+  private final ConcurrentHashMap<String, ClassInfo> contents = new ConcurrentHashMap<>();
 
   /** Create an empty store. */
   public ClassHierarchyStore() {}
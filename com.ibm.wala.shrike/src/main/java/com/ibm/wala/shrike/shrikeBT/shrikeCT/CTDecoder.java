@@ -40,6 +40,17 @@ public final class CTDecoder extends Decoder {
     super(r.getBytecode(), r.getRawHandlers(), cpr);
   }
 
+  /**
+   * Decode the code resource 'r', sharing constant pool instructions with the other decoders that
+   * use 'pool'. The pool must have been created for a constant pool reader of r's class (obtained
+   * by makeConstantPoolReader below).
+   *
+   * @throws NullPointerException if r is null
+   */
+  public CTDecoder(CodeReader r, Decoder.InstructionPool pool) throws NullPointerException {
+    super(r.getBytecode(), r.getRawHandlers(), pool);
+  }
+
   /**
    * Convert the internal JVM class name to a JVM type name (e.g., java/lang/Object to
    * Ljava/lang/Object;).
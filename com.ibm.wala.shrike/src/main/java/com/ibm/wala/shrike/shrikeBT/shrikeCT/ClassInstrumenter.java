@@ -12,6 +12,7 @@ package com.ibm.wala.shrike.shrikeBT.shrikeCT;
 
 import com.ibm.wala.shrike.shrikeBT.Compiler;
 import com.ibm.wala.shrike.shrikeBT.ConstantPoolReader;
+import com.ibm.wala.shrike.shrikeBT.Decoder;
 import com.ibm.wala.shrike.shrikeBT.Decoder.InvalidBytecodeException;
 import com.ibm.wala.shrike.shrikeBT.ExceptionHandler;
 import com.ibm.wala.shrike.shrikeBT.Instruction;
@@ -53,6 +54,8 @@ public final class ClassInstrumenter {
 
   private final ConstantPoolReader cpr;
 
+  private final Decoder.InstructionPool instructionPool;
+
   private boolean createFakeLineNumbers = false;
 
   private int fakeLineOffset;
@@ -95,6 +98,7 @@ public final class ClassInstrumenter {
     methods = new MethodData[cr.getMethodCount()];
     oldCode = new CodeReader[methods.length];
     cpr = CTDecoder.makeConstantPoolReader(cr);
+    instructionPool = new Decoder.InstructionPool(cpr);
     deletedMethods = new boolean[methods.length];
     this.inputName = inputName;
   }
@@ -119,7 +123,7 @@ public final class ClassInstrumenter {
       for (; iter.isValid(); iter.advance()) {
         if (iter.getName().equals("Code")) {
           CodeReader code = new CodeReader(iter);
-          CTDecoder d = new CTDecoder(code, cpr);
+          CTDecoder d = new CTDecoder(code, instructionPool);
           try {
             d.decode();
           } catch (InvalidBytecodeException e) {
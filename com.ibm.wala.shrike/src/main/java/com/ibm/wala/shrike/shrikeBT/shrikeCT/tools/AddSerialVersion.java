@@ -13,6 +13,7 @@ package com.ibm.wala.shrike.shrikeBT.shrikeCT.tools;
 import com.ibm.wala.shrike.shrikeBT.Util;
 import com.ibm.wala.shrike.shrikeCT.ClassConstants;
 import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.ClassRewriter;
 import com.ibm.wala.shrike.shrikeCT.ClassWriter;
 import com.ibm.wala.shrike.shrikeCT.ConstantValueWriter;
 import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
@@ -60,6 +61,22 @@ public class AddSerialVersion {
         new ClassWriter.Element[] {new ConstantValueWriter(w, UID)});
   }
 
+  /**
+   * Add a serialVersionUID to class r, if it does not have one already, without rebuilding the rest
+   * of the class: everything else is copied verbatim with a {@link ClassRewriter}.
+   *
+   * @return the bytes of the resulting class
+   * @throws IllegalArgumentException if r is null
+   */
+  public static byte[] addSerialVersionUID(ClassReader r) throws InvalidClassFileException {
+    if (r == null) {
+      throw new IllegalArgumentException("r is null");
+    }
+    ClassRewriter rewriter = new ClassRewriter(r);
+    addSerialVersionUID(r, rewriter.getWriter());
+    return rewriter.makeBytes();
+  }
+
   /** This class implements a stream that just discards everything written to it. */
   public static final class SinkOutputStream extends OutputStream {
     @Override
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2002,2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.shrikeBT.shrikeCT.tools;
+
+import com.ibm.wala.shrike.shrikeBT.Decoder;
+import com.ibm.wala.shrike.shrikeBT.Disassembler;
+import com.ibm.wala.shrike.shrikeBT.MethodData;
+import com.ibm.wala.shrike.shrikeBT.analysis.Analyzer.FailureException;
+import com.ibm.wala.shrike.shrikeBT.analysis.ClassHierarchyStore;
+import com.ibm.wala.shrike.shrikeBT.analysis.Verifier;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTDecoder;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.CTUtils;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.OfflineInstrumenter;
+import com.ibm.wala.shrike.shrikeCT.ClassReader;
+import com.ibm.wala.shrike.shrikeCT.CodeReader;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A parallel version of {@link BatchVerifier}.
+ *
+ * <p>Class files are taken as input arguments (or if there are none, from standard input). Every
+ * method is verified with the ShrikeBT {@link Verifier} against a class hierarchy built from all
+ * the input classes. Classes are decoded on the threads of a ForkJoinPool, and the methods of each
+ * class are then verified as separate tasks.
+ *
+ * <p>In Unix, I run it like this: java -cp ~/dev/shrike/shrike
+ * com.ibm.wala.shrike.shrikeBT.shrikeCT.tools.ParallelBatchVerifier test.jar -j 8
+ *
+ * <p>The failures, sorted by class and method, are written to the file "report" under the current
+ * directory; "-d" adds the disassembled code of each failing method. A summary with the number of
+ * methods verified per second is printed to standard error.
+ *
+ * <p>To verify classes from code, add them with {@link #addClass} and call {@link #verify}.
+ */
+public class ParallelBatchVerifier {
+  private final boolean disasm;
+
+  private final ClassHierarchyStore store = new ClassHierarchyStore();
+
+  private final List<ClassReader> classes = new ArrayList<>();
+
+  private final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger methodsVerified = new AtomicInteger();
+
+  /** A method that could not be decoded or verified. */
+  public static final class Failure implements Comparable<Failure> {
+    private final String method;
+
+    private final String report;
+
+    Failure(String method, String report) {
+      this.method = method;
+      this.report = report;
+    }
+
+    /**
+     * @return the class name, method name and type of the failing method, or the empty string if
+     *     the class file could not be read
+     */
+    public String getMethod() {
+      return method;
+    }
+
+    /** @return the report written for the failure */
+    public String getReport() {
+      return report;
+    }
+
+    @Override
+    public int compareTo(Failure o) {
+      return method.compareTo(o.method);
+    }
+  }
+
+  /** @param disasm whether the reports include the disassembled code of failing methods */
+  public ParallelBatchVerifier(boolean disasm) {
+    this.disasm = disasm;
+  }
+
+  /** Add a class to verify, and to the class hierarchy the methods are verified against. */
+  public void addClass(ClassReader cr) throws InvalidClassFileException {
+    CTUtils.addClassToHierarchy(store, cr);
+    classes.add(cr);
+  }
+
+  public int getClassCount() {
+    return classes.size();
+  }
+
+  /** @return how many methods have been verified so far */
+  public int getMethodsVerified() {
+    return methodsVerified.get();
+  }
+
+  /**
+   * Verify every method of the added classes.
+   *
+   * @param parallelism the number of threads to verify with
+   * @return the failures, sorted by method
+   */
+  public List<Failure> verify(int parallelism) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(
+          new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+              List<ClassTask> tasks = new ArrayList<>(classes.size());
+              for (ClassReader cr : classes) {
+                tasks.add(new ClassTask(cr));
+              }
+              ForkJoinTask.invokeAll(tasks);
+            }
+          });
+    } finally {
+      pool.shutdown();
+    }
+    List<Failure> sorted = new ArrayList<>(failures);
+    failures.clear();
+    sorted.sort(null);
+    return sorted;
+  }
+
+  public static void main(String[] args) throws Exception {
+    OfflineInstrumenter oi = new OfflineInstrumenter();
+    args = oi.parseStandardArgs(args);
+
+    boolean disasm = false;
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-d")) {
+        disasm = true;
+      } else if (args[i].equals("-j") && i + 1 < args.length) {
+        parallelism = Integer.parseInt(args[++i]);
+      }
+    }
+
+    ParallelBatchVerifier verifier = new ParallelBatchVerifier(disasm);
+    oi.beginTraversal();
+    ClassInstrumenter ci;
+    while ((ci = oi.nextClass()) != null) {
+      verifier.addClass(ci.getReader());
+    }
+    oi.close();
+
+    long start = System.nanoTime();
+    List<Failure> sorted = verifier.verify(parallelism);
+    long elapsed = Math.max(1, System.nanoTime() - start);
+
+    try (final PrintWriter w =
+        new PrintWriter(new BufferedWriter(new FileWriter("report", false)))) {
+      for (Failure f : sorted) {
+        w.write(f.report);
+      }
+    }
+
+    int methods = verifier.getMethodsVerified();
+    System.err.println(
+        "verified "
+            + methods
+            + " methods in "
+            + verifier.getClassCount()
+            + " classes with "
+            + parallelism
+            + " threads in "
+            + elapsed / 1000000
+            + "ms ("
+            + (long) (methods / (elapsed / 1e9))
+            + " methods/sec)");
+    if (!sorted.isEmpty()) {
+      System.err.println(sorted.size() + " error" + (sorted.size() > 1 ? "s" : "") + " detected");
+    }
+  }
+
+  /** Decodes the methods of one class, then verifies them in parallel. */
+  private final class ClassTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final ClassReader cr;
+
+    ClassTask(ClassReader cr) {
+      this.cr = cr;
+    }
+
+    @Override
+    protected void compute() {
+      List<MethodTask> methods = new ArrayList<>();
+      try {
+        Decoder.InstructionPool instructions =
+            new Decoder.InstructionPool(CTDecoder.makeConstantPoolReader(cr));
+        ClassReader.AttrIterator iter = new ClassReader.AttrIterator();
+        for (int i = 0; i < cr.getMethodCount(); i++) {
+          cr.initMethodAttributeIterator(i, iter);
+          for (; iter.isValid(); iter.advance()) {
+            if (iter.getName().equals("Code")) {
+              String name = cr.getName() + '.' + cr.getMethodName(i) + ' ' + cr.getMethodType(i);
+              CodeReader code = new CodeReader(iter);
+              CTDecoder d = new CTDecoder(code, instructions);
+              try {
+                d.decode();
+              } catch (Decoder.InvalidBytecodeException e) {
+                failures.add(
+                    new Failure(name, "Verifying " + name + ":\nERROR: " + e.getMessage() + '\n'));
+                break;
+              }
+              MethodData md =
+                  new MethodData(
+                      d,
+                      cr.getMethodAccessFlags(i),
+                      CTDecoder.convertClassToType(cr.getName()),
+                      cr.getMethodName(i),
+                      cr.getMethodType(i));
+              methods.add(new MethodTask(name, md));
+              break;
+            }
+          }
+        }
+      } catch (InvalidClassFileException e) {
+        failures.add(new Failure("", "ERROR: invalid class file: " + e.getMessage() + '\n'));
+      }
+      ForkJoinTask.invokeAll(methods);
+    }
+  }
+
+  private final class MethodTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private final MethodData md;
+
+    MethodTask(String name, MethodData md) {
+      this.name = name;
+      this.md = md;
+    }
+
+    @Override
+    protected void compute() {
+      Verifier v = new Verifier(md);
+      v.setClassHierarchy(store);
+      try {
+        v.verify();
+      } catch (FailureException e) {
+        StringWriter s = new StringWriter();
+        PrintWriter w = new PrintWriter(s);
+        w.println("Verifying " + name + ':');
+        try {
+          if (disasm) {
+            w.write("ShrikeBT code:\n");
+            new Disassembler(md).disassembleTo(w);
+          }
+          w.println("ERROR: VERIFICATION FAILED");
+          e.printStackTrace(w);
+          e.printPath(w);
+        } catch (IOException e1) {
+          assert false : e1;
+        }
+        w.flush();
+        failures.add(new Failure(name, s.toString()));
+      } finally {
+        methodsVerified.incrementAndGet();
+      }
+    }
+  }
+}
@@ -10,9 +10,14 @@
  */
 package com.ibm.wala.shrike.shrikeBT.tools;
 
+import com.ibm.wala.shrike.shrikeBT.ConditionalBranchInstruction;
+import com.ibm.wala.shrike.shrikeBT.ConstantInstruction;
+import com.ibm.wala.shrike.shrikeBT.Constants;
 import com.ibm.wala.shrike.shrikeBT.DupInstruction;
 import com.ibm.wala.shrike.shrikeBT.ExceptionHandler;
+import com.ibm.wala.shrike.shrikeBT.GotoInstruction;
 import com.ibm.wala.shrike.shrikeBT.IInstruction;
+import com.ibm.wala.shrike.shrikeBT.Instruction;
 import com.ibm.wala.shrike.shrikeBT.LoadInstruction;
 import com.ibm.wala.shrike.shrikeBT.MethodData;
 import com.ibm.wala.shrike.shrikeBT.MethodEditor;
@@ -20,14 +25,31 @@ import com.ibm.wala.shrike.shrikeBT.MethodEditor.Output;
 import com.ibm.wala.shrike.shrikeBT.PopInstruction;
 import com.ibm.wala.shrike.shrikeBT.StoreInstruction;
 import com.ibm.wala.shrike.shrikeBT.Util;
-import com.ibm.wala.shrike.shrikeBT.info.LocalAllocator;
 import java.util.Arrays;
 import java.util.BitSet;
 
-@Deprecated
+/**
+ * This class cleans up the code of a method after instrumentation. Patches applied with a
+ * MethodEditor often leave behind values that are stored to a local only to be loaded again right
+ * away, stores to locals that are never read, chains of gotos, and code that can no longer be
+ * reached. The optimizer runs a series of passes over the MethodEditor until none of them applies:
+ *
+ * <ul>
+ *   <li>unreachable code removal: instructions that cannot be reached from the method entry or any
+ *       reachable exception handler are deleted
+ *   <li>jump threading: branches to a goto are redirected to the final target, and branches to the
+ *       next instruction are deleted
+ *   <li>stack-local forwarding: "store v; load v" becomes "dup; store v", so the value need not go
+ *       through the local
+ *   <li>dead store elimination: a store to a local that is not live afterwards becomes a pop
+ *   <li>useless pushes: a load, constant or dup immediately followed by a pop is deleted
+ * </ul>
+ *
+ * Call {@link #optimize()} after the last MethodEditor.applyPatches()/endPass() of the
+ * instrumentation and before the method is compiled. Debugging information for locals whose stores
+ * are removed may become inaccurate.
+ */
 public final class MethodOptimizer {
-  private final MethodData data;
-
   private IInstruction[] instructions;
 
   private ExceptionHandler[][] handlers;
@@ -48,28 +70,39 @@ public final class MethodOptimizer {
   // or -1 if there is more than one such instruction.
   private int[] uniqueStackUseLocations;
 
+  // The stack size before each instruction, or -1 if the instruction is unreachable.
   private int[] stackSizes;
 
   private int[][] backEdges;
 
-  // The value at index i is the index of the only instruction which stores a
-  // value onto
-  // the stack which is popped by instruction i, or -2 if there is no such
-  // instruction
-  // or -1 if there is more than one such instruction.
+  // The instructions that are the target of a branch or an exception handler.
+  private BitSet targets;
+
+  // The instructions that have already been patched in the current pass.
+  private BitSet patched;
 
   static final int[] noEdges = new int[0];
 
-  public MethodOptimizer(MethodData d, MethodEditor e) {
-    if (d == null) {
-      throw new IllegalArgumentException("null d");
+  /**
+   * @param e the editor of the method, between passes; the optimizer runs passes of its own on it
+   */
+  public MethodOptimizer(MethodEditor e) {
+    if (e == null) {
+      throw new IllegalArgumentException("null e");
     }
-    this.data = d;
     this.editor = e;
   }
 
+  /**
+   * @deprecated the method data is that of the editor; use {@link #MethodOptimizer(MethodEditor)}
+   */
+  @Deprecated
+  public MethodOptimizer(MethodData d, MethodEditor e) {
+    this(e);
+  }
+
   public MethodOptimizer(MethodData d) {
-    this(d, new MethodEditor(d));
+    this(new MethodEditor(d));
   }
 
   public static class UnoptimizableCodeException extends Exception {
@@ -91,8 +124,16 @@ public final class MethodOptimizer {
     return uniqueStackDefLocations[instr][stack];
   }
 
-  public void optimize() throws UnoptimizableCodeException {
+  /**
+   * Optimize the method until no more changes can be made.
+   *
+   * @return true iff the code was changed
+   * @throws UnoptimizableCodeException if the code is not well formed; the code is left unchanged
+   *     if this happens in the first pass
+   */
+  public boolean optimize() throws UnoptimizableCodeException {
     boolean changed;
+    boolean everChanged = false;
     do {
       instructions = editor.getInstructions();
       handlers = editor.getHandlers();
@@ -100,25 +141,50 @@ public final class MethodOptimizer {
       buildBackEdges();
 
       editor.beginPass();
-      buildStackDefMap();
-      pushBackLocalStores();
-      forwardDups();
+      patched = new BitSet(instructions.length);
+      removeUnreachableCode();
+      threadJumps();
+      forwardStoresToLoads();
+      removeDeadStores(computeLiveLocals());
+      removeUselessPushes();
       changed = editor.applyPatches();
       editor.endPass();
+      everChanged |= changed;
     } while (changed);
+    return everChanged;
+  }
+
+  private boolean isReachable(int i) {
+    return stackSizes[i] >= 0;
+  }
+
+  private void replace(int i, MethodEditor.Patch p) {
+    editor.replaceWith(i, p);
+    patched.set(i);
+  }
+
+  private void delete(int i) {
+    replace(
+        i,
+        new MethodEditor.Patch() {
+          @Override
+          public void emitTo(Output w) {}
+        });
   }
 
   private void buildBackEdges() {
     int[] backEdgeCount = new int[instructions.length];
-
+    targets = new BitSet(instructions.length);
     for (int i = 0; i < instructions.length; i++) {
       int[] targets = instructions[i].getBranchTargets();
       for (int target : targets) {
         backEdgeCount[target]++;
+        this.targets.set(target);
       }
       ExceptionHandler[] hs = handlers[i];
       for (ExceptionHandler h : hs) {
         backEdgeCount[h.getHandler()]++;
+        this.targets.set(h.getHandler());
       }
     }
 
@@ -211,119 +277,164 @@ public final class MethodOptimizer {
     }
   }
 
-  private static boolean instructionKillsVar(IInstruction instr, int v) {
-    if (instr instanceof StoreInstruction) {
-      StoreInstruction st = (StoreInstruction) instr;
-      return st.getVarIndex() == v
-          || (Util.getWordSize(st.getType()) == 2 && st.getVarIndex() + 1 == v);
-    } else {
-      return false;
+  private void removeUnreachableCode() {
+    for (int i = 0; i < instructions.length; i++) {
+      if (!isReachable(i)) {
+        delete(i);
+      }
     }
   }
 
-  private void forwardDups() {
-    for (int i = 0; i < instructions.length; i++) {
-      IInstruction instr = instructions[i];
-      if (instr instanceof DupInstruction
-          && ((DupInstruction) instr).getDelta() == 0
-          && uniqueStackDefLocations[i][0] >= 0
-          && instructions[uniqueStackDefLocations[i][0]] instanceof LoadInstruction) {
-        int source = uniqueStackDefLocations[i][0];
-        final LoadInstruction li = (LoadInstruction) instructions[source];
-
-        for (int j = 0; j < instructions.length; j++) {
-          int[] locs = uniqueStackDefLocations[j];
-          if (locs[0] == i) {
-            // check to see if the variable is killed along any path from the
-            // dup
-            // to its use
-            BitSet path = getInstructionsOnPath(source, j);
-            boolean killed = false;
-            int v = li.getVarIndex();
-            for (int k = 0; j < instructions.length && !killed; k++) {
-              if (path.get(k)) {
-                if (instructionKillsVar(instructions[k], v)) {
-                  killed = true;
-                }
-              }
-            }
-
-            if (!killed) {
-              editor.insertBefore(
-                  j,
-                  new MethodEditor.Patch() {
-                    @Override
-                    public void emitTo(Output w) {
-                      w.emit(PopInstruction.make(1));
-                      w.emit(li);
-                    }
-                  });
-            }
-          }
-        }
+  /** @return the instruction that control reaches when branching to 'target' */
+  private int followGotos(int target) {
+    int t = target;
+    for (int steps = 0; steps < instructions.length; steps++) {
+      if (!(instructions[t] instanceof GotoInstruction)) {
+        return t;
       }
+      t = instructions[t].getBranchTargets()[0];
     }
+    // a cycle of gotos
+    return target;
   }
 
-  private void pushBackLocalStores() {
+  private void threadJumps() {
+    int[] finalTargets = new int[instructions.length];
+    Arrays.setAll(finalTargets, this::followGotos);
+
     for (int i = 0; i < instructions.length; i++) {
       IInstruction instr = instructions[i];
-      if (instr instanceof StoreInstruction
-          && uniqueStackDefLocations[i][0] >= 0
-          && uniqueStackDefLocations[i][0] != i - 1
-          && uniqueStackUseLocations[uniqueStackDefLocations[i][0]] == i) {
-        final StoreInstruction s = (StoreInstruction) instr;
-        int source = uniqueStackDefLocations[i][0];
-
-        // Check if the path from source to i contains anything killing the
-        // variable
-        BitSet path = getInstructionsOnPath(source, i);
-        boolean killed = false;
-        int v = s.getVarIndex();
-        for (int j = 0; j < instructions.length && !killed; j++) {
-          if (path.get(j)) {
-            if (instructionKillsVar(instructions[j], v)) {
-              killed = true;
-            }
+      int[] ts = instr.getBranchTargets();
+      if (!isReachable(i) || patched.get(i) || ts.length == 0) {
+        continue;
+      }
+
+      if (instr instanceof GotoInstruction && finalTargets[ts[0]] == i + 1) {
+        delete(i);
+      } else if (instr instanceof ConditionalBranchInstruction && finalTargets[ts[0]] == i + 1) {
+        // both outcomes go to the same place; just drop the operands
+        replace(
+            i,
+            new MethodEditor.Patch() {
+              @Override
+              public void emitTo(Output w) {
+                w.emit(PopInstruction.make(1));
+                w.emit(PopInstruction.make(1));
+              }
+            });
+      } else {
+        for (int t : ts) {
+          if (finalTargets[t] != t) {
+            final Instruction redirected = (Instruction) instr.redirectTargets(finalTargets);
+            replace(
+                i,
+                new MethodEditor.Patch() {
+                  @Override
+                  public void emitTo(Output w) {
+                    w.emit(redirected);
+                  }
+                });
+            break;
           }
         }
+      }
+    }
+  }
 
-        if (killed) {
-          final String type = s.getType();
-          final int newVar = LocalAllocator.allocate(data, type);
-          // put a store to the newVar right after the source
-          editor.insertAfter(
-              source,
+  private void forwardStoresToLoads() {
+    for (int i = 0; i + 1 < instructions.length; i++) {
+      if (instructions[i] instanceof StoreInstruction
+          && instructions[i + 1] instanceof LoadInstruction
+          && isReachable(i)
+          && !targets.get(i + 1)
+          // moving the store into another handler's range would change the handler's frame
+          && Arrays.equals(handlers[i], handlers[i + 1])
+          && !patched.get(i)
+          && !patched.get(i + 1)) {
+        final StoreInstruction s = (StoreInstruction) instructions[i];
+        LoadInstruction l = (LoadInstruction) instructions[i + 1];
+        if (s.getVarIndex() == l.getVarIndex() && s.getType().equals(l.getType())) {
+          replace(
+              i,
               new MethodEditor.Patch() {
                 @Override
                 public void emitTo(Output w) {
-                  w.emit(StoreInstruction.make(type, newVar));
+                  w.emit(DupInstruction.make(0));
                 }
               });
-          // load newVar before storing to correct variable
-          editor.insertBefore(
-              i,
+          replace(
+              i + 1,
               new MethodEditor.Patch() {
                 @Override
                 public void emitTo(Output w) {
-                  w.emit(LoadInstruction.make(type, newVar));
+                  w.emit(s);
                 }
               });
-        } else {
-          // remove store instruction
-          editor.replaceWith(
+          i++;
+        }
+      }
+    }
+  }
+
+  /** @return for each instruction, the locals that may be read after it executes */
+  private BitSet[] computeLiveLocals() {
+    BitSet[] liveIn = new BitSet[instructions.length];
+    BitSet[] liveOut = new BitSet[instructions.length];
+    for (int i = 0; i < instructions.length; i++) {
+      liveIn[i] = new BitSet();
+      liveOut[i] = new BitSet();
+    }
+
+    boolean changed;
+    do {
+      changed = false;
+      for (int i = instructions.length - 1; i >= 0; i--) {
+        if (!isReachable(i)) {
+          continue;
+        }
+        IInstruction instr = instructions[i];
+        BitSet out = liveOut[i];
+        if (instr.isFallThrough() && i + 1 < instructions.length) {
+          out.or(liveIn[i + 1]);
+        }
+        for (int t : instr.getBranchTargets()) {
+          out.or(liveIn[t]);
+        }
+
+        BitSet in = (BitSet) out.clone();
+        if (instr instanceof StoreInstruction) {
+          StoreInstruction s = (StoreInstruction) instr;
+          in.clear(s.getVarIndex(), s.getVarIndex() + Util.getWordSize(s.getType()));
+        } else if (instr instanceof LoadInstruction) {
+          LoadInstruction l = (LoadInstruction) instr;
+          in.set(l.getVarIndex(), l.getVarIndex() + Util.getWordSize(l.getType()));
+        }
+        // an exception can be thrown before this instruction has any effect
+        for (ExceptionHandler h : handlers[i]) {
+          in.or(liveIn[h.getHandler()]);
+        }
+
+        if (!in.equals(liveIn[i])) {
+          liveIn[i] = in;
+          changed = true;
+        }
+      }
+    } while (changed);
+
+    return liveOut;
+  }
+
+  private void removeDeadStores(BitSet[] liveOut) {
+    for (int i = 0; i < instructions.length; i++) {
+      if (instructions[i] instanceof StoreInstruction && isReachable(i) && !patched.get(i)) {
+        StoreInstruction s = (StoreInstruction) instructions[i];
+        if (!liveOut[i].get(s.getVarIndex())) {
+          replace(
               i,
-              new MethodEditor.Patch() {
-                @Override
-                public void emitTo(Output w) {}
-              });
-          // replace it right after the source
-          editor.insertAfter(
-              source,
               new MethodEditor.Patch() {
                 @Override
                 public void emitTo(Output w) {
-                  w.emit(s);
+                  w.emit(PopInstruction.make(1));
                 }
               });
         }
@@ -331,6 +442,47 @@ public final class MethodOptimizer {
     }
   }
 
+  /** @return true if instr only pushes one value, without side effects */
+  private static boolean isPurePush(IInstruction instr) {
+    if (instr instanceof LoadInstruction) {
+      return true;
+    } else if (instr instanceof DupInstruction) {
+      DupInstruction d = (DupInstruction) instr;
+      return d.getSize() == 1 && d.getDelta() == 0;
+    } else if (instr instanceof ConstantInstruction) {
+      // loading other constants may resolve classes or run bootstrap methods
+      switch (((ConstantInstruction) instr).getType()) {
+        case Constants.TYPE_int:
+        case Constants.TYPE_long:
+        case Constants.TYPE_float:
+        case Constants.TYPE_double:
+        case Constants.TYPE_String:
+        case Constants.TYPE_null:
+          return true;
+        default:
+          return false;
+      }
+    } else {
+      return false;
+    }
+  }
+
+  private void removeUselessPushes() {
+    for (int i = 1; i < instructions.length; i++) {
+      IInstruction instr = instructions[i];
+      if (instr instanceof PopInstruction
+          && instr.getPoppedCount() == 1
+          && isReachable(i)
+          && !targets.get(i)
+          && !patched.get(i - 1)
+          && !patched.get(i)
+          && isPurePush(instructions[i - 1])) {
+        delete(i - 1);
+        delete(i);
+      }
+    }
+  }
+
   private void buildStackDefMap() {
     int[][] abstractStacks = new int[instructions.length][];
 
@@ -450,53 +602,4 @@ public final class MethodOptimizer {
       instruction--;
     }
   }
-
-  private BitSet getInstructionsOnPath(int from, int to) {
-    BitSet reachable = new BitSet();
-    getReachableInstructions(reachable, from, to);
-    BitSet reaching = new BitSet();
-    getReachingInstructions(reaching, from, to);
-    reachable.and(reaching);
-    return reachable;
-  }
-
-  private void getReachableInstructions(BitSet bits, int from, int to) {
-    while (true) {
-      if (from == to) {
-        return;
-      }
-
-      bits.set(from);
-
-      int[] targets = instructions[from].getBranchTargets();
-      for (int target : targets) {
-        getReachableInstructions(bits, target, to);
-      }
-
-      if (!instructions[from].isFallThrough()) {
-        return;
-      }
-      from++;
-    }
-  }
-
-  private void getReachingInstructions(BitSet bits, int from, int to) {
-    while (true) {
-      if (to == from) {
-        return;
-      }
-
-      bits.set(to);
-
-      int[] targets = backEdges[to];
-      for (int target : targets) {
-        getReachingInstructions(bits, from, target);
-      }
-
-      if (to == 0 || !instructions[to - 1].isFallThrough()) {
-        return;
-      }
-      to--;
-    }
-  }
 }
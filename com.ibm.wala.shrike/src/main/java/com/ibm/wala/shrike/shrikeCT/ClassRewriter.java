@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002,2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.shrike.shrikeCT;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class rewrites a class file without decoding any of its code. The constant pool, fields,
+ * methods and class attributes of the original class are copied from the ClassReader's buffer as
+ * raw byte ranges; only the constant pool items changed with {@link #replaceUtf8}, new constant
+ * pool items, and the attributes set with {@link #setClassAttribute} are encoded anew. Use it for
+ * transformations that do not touch bytecode, such as renaming, adding a serialVersionUID, or
+ * adding a SourceDebugExtension.
+ *
+ * <p>New fields, methods and constant pool items are added through {@link #getWriter()}; they are
+ * emitted after the copied ones.
+ */
+public final class ClassRewriter {
+  private final ClassReader cr;
+
+  private final ClassWriter w = new ClassWriter();
+
+  /** Maps attribute names to their replacements; a null replacement removes the attribute. */
+  private final Map<String, ClassWriter.Element> replacedAttributes = new LinkedHashMap<>();
+
+  private final ArrayList<ClassWriter.Element> addedAttributes = new ArrayList<>();
+
+  /** @throws IllegalArgumentException if cr is null */
+  public ClassRewriter(ClassReader cr) throws InvalidClassFileException {
+    if (cr == null) {
+      throw new IllegalArgumentException("cr is null");
+    }
+    this.cr = cr;
+    w.setMajorVersion(cr.getMajorVersion());
+    w.setMinorVersion(cr.getMinorVersion());
+    w.setRawCP(cr.getCP(), false);
+    w.setAccessFlags(cr.getAccessFlags());
+    w.setNameIndex(cr.getNameIndex());
+    w.setSuperNameIndex(cr.getSuperNameIndex());
+    w.setInterfaceNameIndices(cr.getInterfaceNameIndices());
+
+    byte[] bytes = cr.getBytes();
+    for (int i = 0; i < cr.getFieldCount(); i++) {
+      w.addRawField(
+          new ClassWriter.RawElement(bytes, cr.getFieldRawOffset(i), cr.getFieldRawSize(i)));
+    }
+    for (int i = 0; i < cr.getMethodCount(); i++) {
+      w.addRawMethod(
+          new ClassWriter.RawElement(bytes, cr.getMethodRawOffset(i), cr.getMethodRawSize(i)));
+    }
+  }
+
+  /** @return the reader for the original class */
+  public ClassReader getReader() {
+    return cr;
+  }
+
+  /**
+   * @return the writer the class is copied into, for adding constant pool items, fields and methods
+   */
+  public ClassWriter getWriter() {
+    return w;
+  }
+
+  /**
+   * Change the value of a Utf8 item of the original constant pool.
+   *
+   * @see ClassWriter#replaceRawCPUtf8(int, String)
+   */
+  public void replaceUtf8(int index, String s) {
+    w.replaceRawCPUtf8(index, s);
+  }
+
+  /**
+   * Replace all class attributes with the given name by 'attribute', or add it if the class has no
+   * such attribute. The name is matched against the original constant pool.
+   */
+  public void setClassAttribute(String name, ClassWriter.Element attribute) {
+    if (name == null) {
+      throw new IllegalArgumentException("name is null");
+    }
+    if (attribute == null) {
+      throw new IllegalArgumentException("attribute is null");
+    }
+    replacedAttributes.put(name, attribute);
+  }
+
+  /** Drop all class attributes with the given name. */
+  public void removeClassAttribute(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name is null");
+    }
+    replacedAttributes.put(name, null);
+  }
+
+  /** Add a class attribute, keeping any existing attributes of the same name. */
+  public void addClassAttribute(ClassWriter.Element attribute) {
+    if (attribute == null) {
+      throw new IllegalArgumentException("attribute is null");
+    }
+    addedAttributes.add(attribute);
+  }
+
+  /**
+   * Generate the rewritten class file. This can only be called once.
+   *
+   * @return the bytes of the new class
+   */
+  public byte[] makeBytes() throws InvalidClassFileException {
+    Map<String, ClassWriter.Element> pending = new LinkedHashMap<>(replacedAttributes);
+    ClassReader.AttrIterator iter = new ClassReader.AttrIterator();
+    cr.initClassAttributeIterator(iter);
+    for (; iter.isValid(); iter.advance()) {
+      String name = iter.getName();
+      if (!replacedAttributes.containsKey(name)) {
+        w.addClassAttribute(
+            new ClassWriter.RawElement(cr.getBytes(), iter.getRawOffset(), iter.getRawSize()));
+      } else if (pending.containsKey(name)) {
+        // emit a replacement once, in place of the first attribute it replaces
+        ClassWriter.Element replacement = pending.remove(name);
+        if (replacement != null) {
+          w.addClassAttribute(replacement);
+        }
+      }
+    }
+    for (ClassWriter.Element replacement : pending.values()) {
+      if (replacement != null) {
+        w.addClassAttribute(replacement);
+      }
+    }
+    for (ClassWriter.Element attribute : addedAttributes) {
+      w.addClassAttribute(attribute);
+    }
+    return w.makeBytes();
+  }
+}
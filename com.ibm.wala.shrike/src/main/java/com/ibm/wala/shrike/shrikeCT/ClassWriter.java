@@ -14,6 +14,8 @@ import com.ibm.wala.shrike.shrikeCT.BootstrapMethodsReader.BootstrapMethod;
 import com.ibm.wala.shrike.shrikeCT.ConstantPoolParser.ReferenceToken;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 /** This class formats and writes class data into JVM format. */
 public class ClassWriter implements ClassConstants {
@@ -24,6 +26,8 @@ public class ClassWriter implements ClassConstants {
 
   private ConstantPoolParser rawCP;
 
+  private TreeMap<Integer, String> replacedRawUtf8;
+
   private HashMap<Object, Integer> cachedCPEntries = new HashMap<>(1);
 
   private final ArrayList<Object> newCPEntries = new ArrayList<>(1);
@@ -300,9 +304,13 @@ public class ClassWriter implements ClassConstants {
             break;
           case CONSTANT_Long:
             cachedCPEntries.put(cp.getCPLong(i), i);
+            // the next index is unused
+            i++;
             break;
           case CONSTANT_Double:
             cachedCPEntries.put(cp.getCPDouble(i), i);
+            // the next index is unused
+            i++;
             break;
           case CONSTANT_Utf8:
             cachedCPEntries.put(cp.getCPUtf8(i), i);
@@ -315,6 +323,77 @@ public class ClassWriter implements ClassConstants {
     }
   }
 
+  /**
+   * Change the value of a Utf8 item of the raw constant pool set with {@link #setRawCP}. All raw
+   * fields, methods and attributes that refer to the item see the new value; the rest of the raw
+   * constant pool is still copied verbatim. This is how e.g. classes or members can be renamed
+   * without rebuilding the class. Items of the raw constant pool that refer to the changed item are
+   * no longer reused by the addCP methods, even if {@link #setRawCP} cached them.
+   *
+   * @param index the index of a CONSTANT_Utf8 item in the raw constant pool
+   * @param s the new value of the item
+   */
+  public void replaceRawCPUtf8(int index, String s) throws IllegalArgumentException {
+    if (rawCP == null) {
+      throw new IllegalArgumentException("No raw constant pool set");
+    }
+    if (s == null) {
+      throw new IllegalArgumentException("s is null");
+    }
+    if (index < 1 || index >= rawCP.getItemCount() || rawCP.getItemType(index) != CONSTANT_Utf8) {
+      throw new IllegalArgumentException("Constant pool item #" + index + " is not a Utf8 item");
+    }
+    if (cachedCPEntries == null) {
+      throw new IllegalArgumentException(
+          "Cannot change a constant pool entry during makeBytes() processing!");
+    }
+    if (replacedRawUtf8 == null) {
+      replacedRawUtf8 = new TreeMap<>();
+    }
+    String old = replacedRawUtf8.put(index, s);
+    if (old == null) {
+      try {
+        old = rawCP.getCPUtf8(index);
+      } catch (InvalidClassFileException e) {
+        throw new IllegalArgumentException(e.getMessage());
+      }
+      // the raw items built on this one now mean something else
+      uncacheRawItemsReferringTo(old);
+    }
+    // keep addCPUtf8 from handing out this item for its old value
+    Integer cached = cachedCPEntries.get(old);
+    if (cached != null && cached == index) {
+      cachedCPEntries.remove(old);
+    }
+    cachedCPEntries.putIfAbsent(s, index);
+  }
+
+  /**
+   * Keep the addCP methods from handing out raw constant pool items that may refer to a Utf8 item
+   * whose value was 's'. Items are matched by the strings they were cached with, which finds every
+   * item referring to the Utf8 item, and possibly a few that refer to another item with the same
+   * value; those are just not shared any more. InvokeDynamic items are all dropped, as their
+   * bootstrap arguments are not matched.
+   */
+  private void uncacheRawItemsReferringTo(String s) {
+    int rawCount = rawCP.getItemCount();
+    cachedCPEntries.entrySet().removeIf(e -> e.getValue() < rawCount && refersTo(e.getKey(), s));
+  }
+
+  private static boolean refersTo(Object item, String s) {
+    if (item instanceof CWStringItem) {
+      return ((CWStringItem) item).s.equals(s);
+    } else if (item instanceof CWRef) {
+      CWRef r = (CWRef) item;
+      return r.c.equals(s) || r.n.equals(s) || r.t.equals(s);
+    } else if (item instanceof CWNAT) {
+      CWNAT nat = (CWNAT) item;
+      return nat.n.equals(s) || nat.t.equals(s);
+    } else {
+      return item instanceof CWInvokeDynamic;
+    }
+  }
+
   /**
    * @param force true iff you want the addCP methods to always create a new constant pool entry and
    *     never reuse an existing constant pool entry
@@ -787,11 +866,78 @@ public class ClassWriter implements ClassConstants {
 
   private static final char[] noChars = new char[0];
 
+  private void emitRawConstantPool() {
+    byte[] raw = rawCP.getRawBytes();
+    int start = rawCP.getRawOffset();
+    int end = start + rawCP.getRawSize();
+    char[] chars = noChars;
+    if (replacedRawUtf8 != null) {
+      // copy the ranges between replaced items verbatim
+      for (Map.Entry<Integer, String> e : replacedRawUtf8.entrySet()) {
+        int itemOffset = rawCP.getItemRawOffset(e.getKey());
+        int offset = reserveBuf(itemOffset - start);
+        System.arraycopy(raw, start, buf, offset, itemOffset - start);
+        chars = emitUtf8(e.getValue(), chars);
+        int oldLength = ((raw[itemOffset + 1] & 0xFF) << 8) | (raw[itemOffset + 2] & 0xFF);
+        start = itemOffset + 3 + oldLength;
+      }
+    }
+    int offset = reserveBuf(end - start);
+    System.arraycopy(raw, start, buf, offset, end - start);
+  }
+
+  /**
+   * Emit a CONSTANT_Utf8 item holding s.
+   *
+   * @param chars a scratch buffer
+   * @return the scratch buffer, possibly grown
+   */
+  private char[] emitUtf8(String s, char[] chars) {
+    int slen = s.length();
+
+    if (chars.length < slen) {
+      chars = new char[slen];
+    }
+    s.getChars(0, slen, chars, 0);
+
+    int offset = reserveBuf(3);
+    buf[offset] = CONSTANT_Utf8;
+
+    int maxBytes = slen * 3;
+    int p = reserveBuf(maxBytes); // worst case reservation
+
+    for (int j = 0; j < slen; j++) {
+      char ch = chars[j];
+      if (ch == 0) {
+        setUShort(buf, p, 0xC080);
+        p += 2;
+      } else if (ch < 0x80) {
+        buf[p] = (byte) ch;
+        p += 1;
+      } else if (ch < 0x800) {
+        buf[p] = (byte) ((ch >> 6) | 0xC0);
+        buf[p + 1] = (byte) ((ch & 0x3F) | 0x80);
+        p += 2;
+      } else {
+        buf[p] = (byte) ((ch >> 12) | 0xE0);
+        buf[p + 1] = (byte) (((ch >> 6) & 0x3F) | 0x80);
+        buf[p + 2] = (byte) ((ch & 0x3F) | 0x80);
+        p += 3;
+      }
+    }
+    int bytes = p - (offset + 3);
+    reserveBuf(bytes - maxBytes); // negative reservation to push back buf
+    // size
+    if (bytes > 0xFFFF) {
+      throw new IllegalArgumentException("String too long: " + bytes + " bytes");
+    }
+    setUShort(buf, offset + 1, bytes);
+    return chars;
+  }
+
   private void emitConstantPool() {
     if (rawCP != null) {
-      int len = rawCP.getRawSize();
-      int offset = reserveBuf(len);
-      System.arraycopy(rawCP.getRawBytes(), rawCP.getRawOffset(), buf, offset, len);
+      emitRawConstantPool();
     }
 
     char[] chars = noChars;
@@ -880,46 +1026,7 @@ public class ClassWriter implements ClassConstants {
         buf[offset] = t;
       } else {
         if (o instanceof String) {
-          String s = (String) o;
-          int slen = s.length();
-
-          if (chars.length < slen) {
-            chars = new char[slen];
-          }
-          s.getChars(0, slen, chars, 0);
-
-          int offset = reserveBuf(3);
-          buf[offset] = CONSTANT_Utf8;
-
-          int maxBytes = slen * 3;
-          int p = reserveBuf(maxBytes); // worst case reservation
-
-          for (int j = 0; j < slen; j++) {
-            char ch = chars[j];
-            if (ch == 0) {
-              setUShort(buf, p, 0xC080);
-              p += 2;
-            } else if (ch < 0x80) {
-              buf[p] = (byte) ch;
-              p += 1;
-            } else if (ch < 0x800) {
-              buf[p] = (byte) ((ch >> 6) | 0xC0);
-              buf[p + 1] = (byte) ((ch & 0x3F) | 0x80);
-              p += 2;
-            } else {
-              buf[p] = (byte) ((ch >> 12) | 0xE0);
-              buf[p + 1] = (byte) (((ch >> 6) & 0x3F) | 0x80);
-              buf[p + 2] = (byte) ((ch & 0x3F) | 0x80);
-              p += 3;
-            }
-          }
-          int bytes = p - (offset + 3);
-          reserveBuf(bytes - maxBytes); // negative reservation to push back buf
-          // size
-          if (bytes > 0xFFFF) {
-            throw new IllegalArgumentException("String too long: " + bytes + " bytes");
-          }
-          setUShort(buf, offset + 1, bytes);
+          chars = emitUtf8((String) o, chars);
         } else if (o instanceof Integer) {
           int offset = reserveBuf(5);
           buf[offset] = CONSTANT_Integer;
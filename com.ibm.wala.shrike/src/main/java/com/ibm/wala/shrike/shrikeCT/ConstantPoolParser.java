@@ -142,6 +142,17 @@ public final class ConstantPoolParser implements ClassConstants {
     return cpOffsets[cpOffsets.length - 1] - cpOffsets[1];
   }
 
+  /**
+   * @return the offset of constant pool item i in the raw class file buffer, or 0 if i is an unused
+   *     constant pool item
+   */
+  public int getItemRawOffset(int i) throws IllegalArgumentException {
+    if (i < 1 || i >= cpItems.length) {
+      throw new IllegalArgumentException("Constant pool item #" + i + " out of range");
+    }
+    return cpOffsets[i];
+  }
+
   /** @return the number of constant pool items (maximum item index plus one) */
   public int getItemCount() {
     return cpOffsets.length - 1;